@@ -0,0 +1,1003 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An adaptive radix tree (ART) over String keys. Each inner node branches
+ * on one character of the key, so a lookup costs one step per character
+ * no matter how many keys there are, and all keys sharing a prefix sit in
+ * one subtree, which makes prefix scans a walk of that subtree.
+ *
+ * Inner nodes come in four sizes and change size as children come and go:
+ * Node4 and Node16 keep sorted arrays of characters and children, Node48
+ * maps every character to a slot among 48 children, and Node256 has a
+ * child per character. A chain of nodes with one child each is stored as
+ * a prefix on the node below it (path compression), so the tree is never
+ * deeper than the number of distinct branch points on a key.
+ *
+ * Keys may only hold characters 1 to 127. Every key ends with a 0
+ * character inside the tree, so a key that is a prefix of another still
+ * gets its own leaf. Because the characters compare like String.compareTo,
+ * iteration is in key order. All entries with one key share a leaf, the
+ * newest first, and like SkipList remove takes the newest.
+ *
+ * @author Rushil, Kush
+ *
+ * @version 1.0
+ * @param <V>
+ *            Value
+ */
+public class AdaptiveRadixTree<V> implements NameIndex<String, V> {
+
+    private Node root; // null while the tree is empty
+    private int size; // number of entries in the tree
+
+    /**
+     * Constructs an empty AdaptiveRadixTree.
+     */
+    public AdaptiveRadixTree() {
+        root = null;
+        size = 0;
+    }
+
+
+    /**
+     * Returns the number of elements in the AdaptiveRadixTree.
+     *
+     * @return The size of the AdaptiveRadixTree.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Searches for a key in the tree and returns all associated values.
+     *
+     * @param key
+     *            The key to search for.
+     * @return A list of key-value pairs with the specified key, newest
+     *         first.
+     */
+    @Override
+    public MyArrayList<KVPair<String, V>> search(String key) {
+        MyArrayList<KVPair<String, V>> result = new MyArrayList<>();
+        byte[] bytes = toBytes(key);
+        if (bytes != null) {
+            Leaf<V> leaf = findLeaf(bytes);
+            if (leaf != null) {
+                leaf.addTo(result);
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns every entry whose key starts with the given prefix, in key
+     * order and the newest first within a key.
+     *
+     * @param prefix
+     *            the prefix to look for; the empty string matches every key
+     * @return a list of the matching key-value pairs
+     */
+    public MyArrayList<KVPair<String, V>> searchPrefix(String prefix) {
+        MyArrayList<KVPair<String, V>> result = new MyArrayList<>();
+        byte[] bytes = toBytes(prefix);
+        if (bytes == null || root == null) {
+            return result;
+        }
+        // Leave out the terminator: keys only have to start with the prefix
+        int length = bytes.length - 1;
+        Node node = root;
+        int depth = 0;
+        while (depth < length) {
+            if (node instanceof Leaf) {
+                // The leaf's key is the only one left; check the rest of it
+                byte[] key = ((Leaf<?>)node).key;
+                for (int i = depth; i < length; i++) {
+                    if (key[i] != bytes[i]) {
+                        return result;
+                    }
+                }
+                break;
+            }
+            Inner inner = (Inner)node;
+            byte[] nodePrefix = inner.prefix;
+            int shared = Math.min(nodePrefix.length, length - depth);
+            for (int i = 0; i < shared; i++) {
+                if (nodePrefix[i] != bytes[depth + i]) {
+                    return result;
+                }
+            }
+            depth += nodePrefix.length;
+            if (depth >= length) {
+                break;
+            }
+            node = inner.find(bytes[depth]);
+            if (node == null) {
+                return result;
+            }
+            depth++;
+        }
+        for (Iterator<KVPair<String, V>> it = new TreeIterator(node); it
+            .hasNext();) {
+            result.add(it.next());
+        }
+        return result;
+    }
+
+
+    /**
+     * Inserts the KVPair in front of any entries with the same key.
+     *
+     * @param it
+     *            The key-value pair to insert.
+     * @throws IllegalArgumentException
+     *             if KV Pair or its key is null, or the key has a
+     *             character outside 1 to 127.
+     */
+    @Override
+    public void insert(KVPair<String, V> it) {
+        if (it == null || it.getKey() == null) {
+            throw new IllegalArgumentException("KV pair is null");
+        }
+        byte[] bytes = toBytes(it.getKey());
+        if (bytes == null) {
+            throw new IllegalArgumentException("Illegal Key: " + it.getKey());
+        }
+        root = insert(root, bytes, 0, it);
+        size++;
+    }
+
+
+    /**
+     * Removes the first occurrence of a key.
+     *
+     * @param key
+     *            The key to remove.
+     * @return The removed key-value pair, or null if not found.
+     */
+    @Override
+    public KVPair<String, V> remove(String key) {
+        byte[] bytes = toBytes(key);
+        if (bytes == null || findLeaf(bytes) == null) {
+            return null;
+        }
+        return delete(bytes, null);
+    }
+
+
+    /**
+     * Removes a KVPair with the specified value.
+     *
+     * @param val
+     *            the value of the KVPair to be removed
+     * @return the removed KVPair, or null if not found
+     */
+    @Override
+    public KVPair<String, V> removeByValue(V val) {
+        for (KVPair<String, V> pair : this) {
+            if (pair.getValue().equals(val)) {
+                return delete(toBytes(pair.getKey()), pair);
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Prints out the entries in the same format as SkipList.dump(), in key
+     * order and newest first among equal keys. The tree has no towers, so
+     * every entry shows depth 1.
+     */
+    @Override
+    public void dump() {
+        System.out.println("SkipList dump:");
+        if (size == 0) {
+            System.out.println("Node has depth 1, Value (null)");
+            System.out.println("SkipList size is: 0");
+            return;
+        }
+
+        System.out.println("Node has depth 1, value null");
+        for (KVPair<String, V> pair : this) {
+            System.out.println("Node has depth 1, value " + pair.toString());
+        }
+        System.out.println("SkipList size is: " + size);
+    }
+
+
+    /**
+     * Prints out the nodes of the tree top-down, each with its depth, then
+     * the size, for debugging.
+     */
+    public void dumpNodes() {
+        System.out.println("AdaptiveRadixTree dump:");
+        if (root != null) {
+            dump(root, 1);
+        }
+        System.out.println("AdaptiveRadixTree size is: " + size);
+    }
+
+
+    /**
+     * Prints a node and everything below it.
+     *
+     * @param node
+     *            the node to print
+     * @param depth
+     *            the depth of the node, 1 for the root
+     */
+    private void dump(Node node, int depth) {
+        if (node instanceof Leaf) {
+            Leaf<V> leaf = leaf(node);
+            for (int i = leaf.pairs.size() - 1; i >= 0; i--) {
+                System.out.println("Leaf has depth " + depth + ", value "
+                    + leaf.pairs.get(i).toString());
+            }
+            return;
+        }
+        Inner inner = (Inner)node;
+        System.out.println(inner.getClass().getSimpleName() + " has depth "
+            + depth + ", prefix \"" + new String(inner.prefix,
+                java.nio.charset.StandardCharsets.US_ASCII) + "\", "
+            + inner.count + " children");
+        for (int b = inner.next(0); b >= 0; b = inner.next(b + 1)) {
+            dump(inner.find(b), depth + 1);
+        }
+    }
+
+
+    /**
+     * Turns a key into the characters the tree branches on, with the 0
+     * terminator added.
+     *
+     * @param key
+     *            the key
+     * @return the characters, or null if key is null or has a character
+     *         outside 1 to 127
+     */
+    private static byte[] toBytes(String key) {
+        if (key == null) {
+            return null;
+        }
+        byte[] bytes = new byte[key.length() + 1];
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c == 0 || c > 127) {
+                return null;
+            }
+            bytes[i] = (byte)c;
+        }
+        return bytes;
+    }
+
+
+    /**
+     * Walks down to the leaf of a key.
+     *
+     * @param key
+     *            the key, with its terminator
+     * @return the leaf, or null if the key is not in the tree
+     */
+    private Leaf<V> findLeaf(byte[] key) {
+        Node node = root;
+        int depth = 0;
+        while (node instanceof Inner) {
+            Inner inner = (Inner)node;
+            if (inner.mismatch(key, depth) < inner.prefix.length) {
+                return null;
+            }
+            depth += inner.prefix.length;
+            node = inner.find(key[depth]);
+            depth++;
+        }
+        if (node == null || !java.util.Arrays.equals(((Leaf<?>)node).key,
+            key)) {
+            return null;
+        }
+        return leaf(node);
+    }
+
+
+    /**
+     * Inserts an entry into a subtree.
+     *
+     * @param node
+     *            the root of the subtree, null if it is empty
+     * @param key
+     *            the key of the entry, with its terminator
+     * @param depth
+     *            the number of characters of the key above the subtree
+     * @param pair
+     *            the entry
+     * @return the new root of the subtree
+     */
+    private Node insert(Node node, byte[] key, int depth,
+        KVPair<String, V> pair) {
+        if (node == null) {
+            return new Leaf<V>(key, pair);
+        }
+        if (node instanceof Leaf) {
+            Leaf<V> leaf = leaf(node);
+            if (java.util.Arrays.equals(leaf.key, key)) {
+                leaf.pairs.add(pair);
+                return leaf;
+            }
+            // Neither key is a prefix of the other thanks to the
+            // terminator, so they part before either one ends
+            int shared = 0;
+            while (leaf.key[depth + shared] == key[depth + shared]) {
+                shared++;
+            }
+            Inner branch = new Node4(java.util.Arrays.copyOfRange(key,
+                depth, depth + shared));
+            branch.add(leaf.key[depth + shared], leaf);
+            branch.add(key[depth + shared], new Leaf<V>(key, pair));
+            return branch;
+        }
+
+        Inner inner = (Inner)node;
+        int shared = inner.mismatch(key, depth);
+        if (shared < inner.prefix.length) {
+            // The key leaves the compressed path: split the path there
+            Inner branch = new Node4(java.util.Arrays.copyOf(inner.prefix,
+                shared));
+            byte split = inner.prefix[shared];
+            inner.prefix = java.util.Arrays.copyOfRange(inner.prefix, shared
+                + 1, inner.prefix.length);
+            branch.add(split, inner);
+            branch.add(key[depth + shared], new Leaf<V>(key, pair));
+            return branch;
+        }
+        depth += inner.prefix.length;
+        Node child = inner.find(key[depth]);
+        if (child == null) {
+            return inner.add(key[depth], new Leaf<V>(key, pair));
+        }
+        Node newChild = insert(child, key, depth + 1, pair);
+        if (newChild != child) {
+            inner.replace(key[depth], newChild);
+        }
+        return inner;
+    }
+
+
+    /**
+     * Removes an entry of a key that is in the tree.
+     *
+     * @param key
+     *            the key, with its terminator
+     * @param pair
+     *            the entry to remove, or null for the newest of the key
+     * @return the removed key-value pair
+     */
+    private KVPair<String, V> delete(byte[] key, KVPair<String, V> pair) {
+        Leaf<V> leaf = findLeaf(key);
+        KVPair<String, V> removed = leaf.remove(pair);
+        size--;
+        if (leaf.pairs.isEmpty()) {
+            root = unlink(root, key, 0);
+        }
+        return removed;
+    }
+
+
+    /**
+     * Removes the leaf of a key from a subtree, then shrinks the nodes on
+     * the way back up that have room to spare.
+     *
+     * @param node
+     *            the root of the subtree, which holds the leaf
+     * @param key
+     *            the key of the leaf, with its terminator
+     * @param depth
+     *            the number of characters of the key above the subtree
+     * @return the new root of the subtree, null if it is empty
+     */
+    private Node unlink(Node node, byte[] key, int depth) {
+        if (node instanceof Leaf) {
+            return null;
+        }
+        Inner inner = (Inner)node;
+        depth += inner.prefix.length;
+        byte b = key[depth];
+        Node child = inner.find(b);
+        Node newChild = unlink(child, key, depth + 1);
+        if (newChild != null) {
+            if (newChild != child) {
+                inner.replace(b, newChild);
+            }
+            return inner;
+        }
+        inner = inner.remove(b);
+        if (inner.count > 1) {
+            return inner;
+        }
+
+        // One child left: fold this node into it
+        int last = inner.next(0);
+        Node only = inner.find(last);
+        if (only instanceof Inner) {
+            Inner below = (Inner)only;
+            byte[] joined = new byte[inner.prefix.length + 1
+                + below.prefix.length];
+            System.arraycopy(inner.prefix, 0, joined, 0, inner.prefix.length);
+            joined[inner.prefix.length] = (byte)last;
+            System.arraycopy(below.prefix, 0, joined, inner.prefix.length + 1,
+                below.prefix.length);
+            below.prefix = joined;
+        }
+        return only;
+    }
+
+
+    /**
+     * Casts a node known to be a leaf.
+     *
+     * @param node
+     *            the node
+     * @return the node as a leaf
+     */
+    @SuppressWarnings("unchecked")
+    private Leaf<V> leaf(Node node) {
+        return (Leaf<V>)node;
+    }
+
+
+    /**
+     * A node of the tree.
+     */
+    private abstract static class Node {
+        // Nothing shared; only marks leaves and inner nodes as one type
+    }
+
+
+    /**
+     * A leaf: a whole key and its entries, oldest first.
+     *
+     * @param <V>
+     *            Value
+     */
+    private static class Leaf<V> extends Node {
+        private byte[] key;
+        private MyArrayList<KVPair<String, V>> pairs;
+
+        /**
+         * Creates a leaf with one entry.
+         *
+         * @param key
+         *            the key, with its terminator
+         * @param pair
+         *            the entry
+         */
+        Leaf(byte[] key, KVPair<String, V> pair) {
+            this.key = key;
+            pairs = new MyArrayList<>(1);
+            pairs.add(pair);
+        }
+
+
+        /**
+         * Adds the entries to a list, newest first.
+         *
+         * @param list
+         *            the list to add to
+         */
+        private void addTo(MyArrayList<KVPair<String, V>> list) {
+            for (int i = pairs.size() - 1; i >= 0; i--) {
+                list.add(pairs.get(i));
+            }
+        }
+
+
+        /**
+         * Removes an entry.
+         *
+         * @param pair
+         *            the entry to remove, or null for the newest
+         * @return the removed entry
+         */
+        private KVPair<String, V> remove(KVPair<String, V> pair) {
+            int index = pairs.size() - 1;
+            if (pair != null) {
+                while (pairs.get(index) != pair) {
+                    index--;
+                }
+            }
+            return pairs.remove(index);
+        }
+    }
+
+
+    /**
+     * An inner node: a compressed path and between 2 and its capacity
+     * children, each under a different character.
+     */
+    private abstract static class Inner extends Node {
+        protected byte[] prefix; // characters every key below shares here
+        protected int count; // number of children
+
+        /**
+         * Creates an empty inner node.
+         *
+         * @param prefix
+         *            the compressed path
+         */
+        Inner(byte[] prefix) {
+            this.prefix = prefix;
+        }
+
+
+        /**
+         * Counts how many characters of the prefix a key matches.
+         *
+         * @param key
+         *            the key, with its terminator
+         * @param depth
+         *            the number of characters of the key above this node
+         * @return the length of the match, prefix.length for all of it
+         */
+        protected int mismatch(byte[] key, int depth) {
+            int limit = Math.min(prefix.length, key.length - depth);
+            for (int i = 0; i < limit; i++) {
+                if (prefix[i] != key[depth + i]) {
+                    return i;
+                }
+            }
+            return limit;
+        }
+
+
+        /**
+         * Copies the prefix and children into a node of another size.
+         *
+         * @param to
+         *            the empty node to fill
+         * @return the filled node
+         */
+        protected Inner moveTo(Inner to) {
+            for (int b = next(0); b >= 0; b = next(b + 1)) {
+                to.add((byte)b, find(b));
+            }
+            return to;
+        }
+
+
+        /**
+         * Returns the child under a character.
+         *
+         * @param b
+         *            the character
+         * @return the child, or null if there is none
+         */
+        protected abstract Node find(int b);
+
+
+        /**
+         * Adds a child under a character that has none.
+         *
+         * @param b
+         *            the character
+         * @param child
+         *            the child
+         * @return this node, or a larger copy of it if it was full
+         */
+        protected abstract Inner add(byte b, Node child);
+
+
+        /**
+         * Replaces the child under a character.
+         *
+         * @param b
+         *            the character
+         * @param child
+         *            the new child
+         */
+        protected abstract void replace(byte b, Node child);
+
+
+        /**
+         * Removes the child under a character.
+         *
+         * @param b
+         *            the character
+         * @return this node, or a smaller copy of it if it got sparse
+         */
+        protected abstract Inner remove(byte b);
+
+
+        /**
+         * Finds the smallest character at or above from that has a child.
+         *
+         * @param from
+         *            the character to start at
+         * @return the character, or -1 if there is none
+         */
+        protected abstract int next(int from);
+    }
+
+
+    /**
+     * An inner node of up to 4 children in character order.
+     */
+    private static class Node4 extends Inner {
+        protected byte[] keys;
+        protected Node[] children;
+
+        /**
+         * Creates an empty Node4.
+         *
+         * @param prefix
+         *            the compressed path
+         */
+        Node4(byte[] prefix) {
+            this(prefix, 4);
+        }
+
+
+        /**
+         * Creates an empty node of sorted arrays.
+         *
+         * @param prefix
+         *            the compressed path
+         * @param capacity
+         *            the most children it holds
+         */
+        protected Node4(byte[] prefix, int capacity) {
+            super(prefix);
+            keys = new byte[capacity];
+            children = new Node[capacity];
+        }
+
+
+        /**
+         * Finds the position of a character.
+         *
+         * @param b
+         *            the character
+         * @return its position, or -1 if it has no child
+         */
+        protected int indexOf(int b) {
+            for (int i = 0; i < count; i++) {
+                if (keys[i] == b) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+
+        @Override
+        protected Node find(int b) {
+            int i = indexOf(b);
+            return i >= 0 ? children[i] : null;
+        }
+
+
+        @Override
+        protected Inner add(byte b, Node child) {
+            if (count == keys.length) {
+                return grow().add(b, child);
+            }
+            int pos = count;
+            while (pos > 0 && keys[pos - 1] > b) {
+                keys[pos] = keys[pos - 1];
+                children[pos] = children[pos - 1];
+                pos--;
+            }
+            keys[pos] = b;
+            children[pos] = child;
+            count++;
+            return this;
+        }
+
+
+        @Override
+        protected void replace(byte b, Node child) {
+            children[indexOf(b)] = child;
+        }
+
+
+        @Override
+        protected Inner remove(byte b) {
+            int pos = indexOf(b);
+            count--;
+            System.arraycopy(keys, pos + 1, keys, pos, count - pos);
+            System.arraycopy(children, pos + 1, children, pos, count - pos);
+            children[count] = null;
+            return shrink();
+        }
+
+
+        @Override
+        protected int next(int from) {
+            for (int i = 0; i < count; i++) {
+                if (keys[i] >= from) {
+                    return keys[i];
+                }
+            }
+            return -1;
+        }
+
+
+        /**
+         * Returns a larger copy of this full node.
+         *
+         * @return the copy
+         */
+        protected Inner grow() {
+            return moveTo(new Node16(prefix));
+        }
+
+
+        /**
+         * Returns a smaller copy of this node if it got sparse.
+         *
+         * @return this node or the copy
+         */
+        protected Inner shrink() {
+            return this;
+        }
+    }
+
+
+    /**
+     * An inner node of up to 16 children in character order, searched by
+     * halving.
+     */
+    private static class Node16 extends Node4 {
+
+        /**
+         * Creates an empty Node16.
+         *
+         * @param prefix
+         *            the compressed path
+         */
+        Node16(byte[] prefix) {
+            super(prefix, 16);
+        }
+
+
+        @Override
+        protected int indexOf(int b) {
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid] < b) {
+                    low = mid + 1;
+                }
+                else if (keys[mid] > b) {
+                    high = mid - 1;
+                }
+                else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+
+        @Override
+        protected Inner grow() {
+            return moveTo(new Node48(prefix));
+        }
+
+
+        @Override
+        protected Inner shrink() {
+            return count <= 3 ? moveTo(new Node4(prefix)) : this;
+        }
+    }
+
+
+    /**
+     * An inner node of up to 48 children, with a slot number per character.
+     */
+    private static class Node48 extends Inner {
+        private byte[] slots = new byte[256]; // slot + 1 per character
+        private Node[] children = new Node[48];
+
+        /**
+         * Creates an empty Node48.
+         *
+         * @param prefix
+         *            the compressed path
+         */
+        Node48(byte[] prefix) {
+            super(prefix);
+        }
+
+
+        @Override
+        protected Node find(int b) {
+            int slot = slots[b & 0xFF];
+            return slot > 0 ? children[slot - 1] : null;
+        }
+
+
+        @Override
+        protected Inner add(byte b, Node child) {
+            if (count == children.length) {
+                return moveTo(new Node256(prefix)).add(b, child);
+            }
+            int slot = 0;
+            while (children[slot] != null) {
+                slot++;
+            }
+            children[slot] = child;
+            slots[b & 0xFF] = (byte)(slot + 1);
+            count++;
+            return this;
+        }
+
+
+        @Override
+        protected void replace(byte b, Node child) {
+            children[slots[b & 0xFF] - 1] = child;
+        }
+
+
+        @Override
+        protected Inner remove(byte b) {
+            children[slots[b & 0xFF] - 1] = null;
+            slots[b & 0xFF] = 0;
+            count--;
+            return count <= 12 ? moveTo(new Node16(prefix)) : this;
+        }
+
+
+        @Override
+        protected int next(int from) {
+            for (int b = from; b < 256; b++) {
+                if (slots[b] != 0) {
+                    return b;
+                }
+            }
+            return -1;
+        }
+    }
+
+
+    /**
+     * An inner node with a child per character.
+     */
+    private static class Node256 extends Inner {
+        private Node[] children = new Node[256];
+
+        /**
+         * Creates an empty Node256.
+         *
+         * @param prefix
+         *            the compressed path
+         */
+        Node256(byte[] prefix) {
+            super(prefix);
+        }
+
+
+        @Override
+        protected Node find(int b) {
+            return children[b & 0xFF];
+        }
+
+
+        @Override
+        protected Inner add(byte b, Node child) {
+            children[b & 0xFF] = child;
+            count++;
+            return this;
+        }
+
+
+        @Override
+        protected void replace(byte b, Node child) {
+            children[b & 0xFF] = child;
+        }
+
+
+        @Override
+        protected Inner remove(byte b) {
+            children[b & 0xFF] = null;
+            count--;
+            return count <= 40 ? moveTo(new Node48(prefix)) : this;
+        }
+
+
+        @Override
+        protected int next(int from) {
+            for (int b = from; b < 256; b++) {
+                if (children[b] != null) {
+                    return b;
+                }
+            }
+            return -1;
+        }
+    }
+
+
+    /**
+     * Iterates over the entries of a subtree in key order, keeping the
+     * path from the subtree root on a stack.
+     */
+    private class TreeIterator implements Iterator<KVPair<String, V>> {
+        private Inner[] path = new Inner[8]; // inner nodes being walked
+        private int[] nextChar = new int[8]; // next character to visit
+        private int depth = 0; // number of nodes on the path
+        private Leaf<V> leaf; // leaf being returned, null when done
+        private int index; // next entry of the leaf, counting down
+
+        /**
+         * Creates an iterator over a subtree.
+         *
+         * @param start
+         *            the root of the subtree, may be null
+         */
+        TreeIterator(Node start) {
+            descend(start);
+        }
+
+
+        /**
+         * Walks down the leftmost path of a subtree to its first leaf,
+         * then finds the next leaf if that one is used up.
+         *
+         * @param node
+         *            the root of the subtree, may be null
+         */
+        private void descend(Node node) {
+            while (node instanceof Inner) {
+                Inner inner = (Inner)node;
+                if (depth == path.length) {
+                    path = java.util.Arrays.copyOf(path, depth * 2);
+                    nextChar = java.util.Arrays.copyOf(nextChar, depth * 2);
+                }
+                int b = inner.next(0);
+                path[depth] = inner;
+                nextChar[depth] = b + 1;
+                depth++;
+                node = inner.find(b);
+            }
+            leaf = node != null ? leaf(node) : null;
+            index = leaf != null ? leaf.pairs.size() - 1 : -1;
+        }
+
+
+        @Override
+        public boolean hasNext() {
+            while (index < 0 && depth > 0) {
+                Inner top = path[depth - 1];
+                int b = top.next(nextChar[depth - 1]);
+                if (b < 0) {
+                    depth--;
+                }
+                else {
+                    nextChar[depth - 1] = b + 1;
+                    descend(top.find(b));
+                }
+            }
+            return index >= 0;
+        }
+
+
+        @Override
+        public KVPair<String, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return leaf.pairs.get(index--);
+        }
+    }
+
+    /**
+     * Returns an iterator over elements of the AdaptiveRadixTree.
+     *
+     * @return An iterator over key-value pairs.
+     */
+    @Override
+    public Iterator<KVPair<String, V>> iterator() {
+        return new TreeIterator(root);
+    }
+}
@@ -0,0 +1,228 @@
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * The test class for AdaptiveRadixTree
+ *
+ * @author Rushil, Kush
+ * @version 1.0
+ */
+public class AdaptiveRadixTreeTest extends NameIndexTestCase {
+    private AdaptiveRadixTree<Integer> tree;
+
+    /**
+     * Sets up the variables for use in this class
+     */
+    public void setUp() {
+        tree = new AdaptiveRadixTree<>();
+    }
+
+
+    /**
+     * Tests bad keys
+     */
+    public void testIllegalKeys() {
+        try {
+            tree.insert(new KVPair<String, Integer>(null, 1));
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+        try {
+            tree.insert(new KVPair<>("caf\u00e9", 1));
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+        try {
+            tree.insert(new KVPair<>("a\u0000b", 1));
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+        assertTrue(tree.search(null).isEmpty());
+        assertTrue(tree.search("caf\u00e9").isEmpty());
+        assertTrue(tree.searchPrefix(null).isEmpty());
+        assertNull(tree.remove(null));
+        assertNull(tree.remove("a"));
+        assertNull(tree.removeByValue(1));
+        assertEquals(0, tree.size());
+    }
+
+
+    /**
+     * Tests keys that are prefixes of each other and duplicates
+     */
+    public void testPrefixKeysAndDuplicates() {
+        tree.insert(new KVPair<>("car", 1));
+        tree.insert(new KVPair<>("ca", 2));
+        tree.insert(new KVPair<>("cart", 3));
+        tree.insert(new KVPair<>("car", 4));
+        tree.insert(new KVPair<>("", 5));
+        assertEquals(5, tree.size());
+        MyArrayList<KVPair<String, Integer>> cars = tree.search("car");
+        assertEquals(2, cars.size());
+        assertEquals(4, (int)cars.get(0).getValue());
+        assertEquals(1, (int)cars.get(1).getValue());
+        assertEquals(1, tree.search("").size());
+        assertTrue(tree.search("c").isEmpty());
+        assertTrue(tree.search("carts").isEmpty());
+
+        assertEquals(4, (int)tree.remove("car").getValue());
+        assertEquals(1, (int)tree.removeByValue(1).getValue());
+        assertTrue(tree.search("car").isEmpty());
+        assertEquals(3, (int)tree.search("cart").get(0).getValue());
+        assertEquals(2, (int)tree.search("ca").get(0).getValue());
+        assertEquals(3, tree.size());
+    }
+
+
+    /**
+     * Tests that random inserts and removes give the same entries in the
+     * same order as a SkipList, through every node size
+     */
+    public void testMatchesSkipList() {
+        Random random = new Random(23);
+        String[] keys = new String[2000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = randomName(random);
+        }
+        SkipList<String, Integer> reference = assertMatchesSkipList(tree,
+            keys, step -> step, 30000, 23);
+        while (reference.size() > 0) {
+            String key = reference.iterator().next().getKey();
+            assertSame(reference.remove(key), tree.remove(key));
+        }
+        assertEquals(0, tree.size());
+        assertFalse(tree.iterator().hasNext());
+    }
+
+
+    /**
+     * Tests prefix scans against a filter of every entry
+     */
+    public void testSearchPrefix() {
+        Random random = new Random(230);
+        SkipList<String, Integer> reference = new SkipList<>();
+        for (int i = 0; i < 3000; i++) {
+            KVPair<String, Integer> pair = new KVPair<>(randomName(random), i);
+            tree.insert(pair);
+            reference.insert(pair);
+        }
+        String[] prefixes = { "", "a", "b", "Zz", "a1", "q_", "xyzzy",
+            "abcdefghij" };
+        for (String prefix : prefixes) {
+            MyArrayList<KVPair<String, Integer>> found = tree.searchPrefix(
+                prefix);
+            int i = 0;
+            for (KVPair<String, Integer> pair : reference) {
+                if (pair.getKey().startsWith(prefix)) {
+                    assertSame(pair, found.get(i++));
+                }
+            }
+            assertEquals(i, found.size());
+        }
+        String key = reference.iterator().next().getKey();
+        assertTrue(tree.searchPrefix(key).size() >= 1);
+        assertEquals(0, tree.searchPrefix(key + "~~").size());
+    }
+
+
+    /**
+     * Tests the dump in SkipList format, and that nodes grow to Node256 and
+     * shrink back in the node dump
+     */
+    public void testNodeSizesAndDump() {
+        SkipList<String, Integer> reference = new SkipList<>();
+        assertDumpMatchesSkipList(tree, reference);
+        for (int i = 0; i < 12; i++) {
+            KVPair<String, Integer> pair = new KVPair<>("n" + (i % 5), i);
+            reference.insert(pair);
+            tree.insert(pair);
+        }
+        assertDumpMatchesSkipList(tree, reference);
+        tree = new AdaptiveRadixTree<>();
+
+        systemOut().clearHistory();
+        tree.dumpNodes();
+        assertTrue(systemOut().getHistory().contains(
+            "AdaptiveRadixTree size is: 0"));
+        for (char c = 33; c < 127; c++) {
+            tree.insert(new KVPair<>("k" + c, (int)c));
+        }
+        systemOut().clearHistory();
+        tree.dumpNodes();
+        assertTrue(systemOut().getHistory().contains(
+            "Node256 has depth 1, prefix \"k\", 94 children"));
+        for (char c = 33; c < 127; c++) {
+            if (c > 35) {
+                assertEquals((int)c, (int)tree.remove("k" + c).getValue());
+            }
+        }
+        systemOut().clearHistory();
+        tree.dumpNodes();
+        assertFuzzyEquals("AdaptiveRadixTree dump:\n"
+            + "Node4 has depth 1, prefix \"k\", 3 children\n"
+            + "Leaf has depth 2, value 33\nLeaf has depth 2, value 34\n"
+            + "Leaf has depth 2, value 35\nAdaptiveRadixTree size is: 3",
+            systemOut().getHistory());
+        tree.remove("k!");
+        tree.remove("k\"");
+        systemOut().clearHistory();
+        tree.dumpNodes();
+        assertFuzzyEquals("AdaptiveRadixTree dump:\n"
+            + "Leaf has depth 1, value 35\nAdaptiveRadixTree size is: 1",
+            systemOut().getHistory());
+    }
+
+
+    /**
+     * Tests the iterator and using the tree as the name index of a
+     * Database
+     */
+    public void testIteratorAndDatabaseIndex() {
+        Iterator<KVPair<String, Integer>> iterator = tree.iterator();
+        assertFalse(iterator.hasNext());
+        try {
+            iterator.next();
+            fail("Expected NoSuchElementException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof java.util.NoSuchElementException);
+        }
+
+        Database db = new Database(new AdaptiveRadixTree<Point>());
+        db.insert("apple", 100, 100);
+        db.insert("apple", 200, 200);
+        db.insert("applet", 300, 300);
+        db.remove("applet");
+        db.remove(100, 100);
+        assertEquals(1, db.getNameIndex().size());
+        assertEquals(new Point("apple", 200, 200), db.getNameIndex().search(
+            "apple").get(0).getValue());
+    }
+
+
+    /**
+     * Makes a name that follows the Database rules, short enough that
+     * names share prefixes often
+     *
+     * @param random
+     *            the source of randomness
+     * @return the name
+     */
+    private String randomName(Random random) {
+        String letters = "abqxyzZ";
+        String rest = "abz019_";
+        StringBuilder name = new StringBuilder();
+        name.append(letters.charAt(random.nextInt(letters.length())));
+        int length = random.nextInt(6);
+        for (int i = 0; i < length; i++) {
+            name.append(rest.charAt(random.nextInt(rest.length())));
+        }
+        return name.toString();
+    }
+}
@@ -0,0 +1,436 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import student.TestableRandom;
+
+/**
+ * A SkipList that keeps its nodes in parallel arrays instead of SkipNode
+ * objects. A node is just an int handle: its key, value and level live at
+ * that index of the keys, values and levels arrays, and its forward links
+ * are a run of ints in one shared links array starting at linkBase[node].
+ * Removed nodes are put on a free list for their level so that their slot
+ * and their run of links can be reused by the next node of the same level.
+ *
+ * Node 0 is the head (Sentinel Node). It owns MAX_LEVEL links so it never
+ * has to be reallocated; topLevel says how many of them are in use.
+ *
+ * @author Rushil, Kush
+ *
+ * @version 1.0
+ * @param <K>
+ *            Key
+ * @param <V>
+ *            Value
+ */
+public class ArraySkipList<K extends Comparable<K>, V>
+    implements NameIndex<K, V> {
+
+    /**
+     * The largest level a node may have.
+     */
+    public static final int MAX_LEVEL = 32;
+
+    private static final int NIL = -1; // the null node handle
+    private static final int HEAD = 0; // handle of the head node
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private Object[] keys; // key of each node
+    private Object[] values; // value of each node
+    private int[] levels; // level of each node
+    private int[] linkBase; // start of each node's links in links
+    private int[] links; // forward links of all nodes, level 1 first
+    private int[] freeByLevel; // first free node of each level
+    private int nodeCount; // node slots handed out so far, head included
+    private int linkCount; // links handed out so far
+    private int topLevel; // highest level in use by the head
+    private int size; // number of entries in the Skip List
+    private Random rng; // Random number generator for determining node levels
+
+    /**
+     * Constructs an empty ArraySkipList.
+     */
+    public ArraySkipList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+
+    /**
+     * Constructs an empty ArraySkipList with room for the given number of
+     * entries before the arrays have to grow.
+     *
+     * @param initialCapacity
+     *            the number of entries to allocate room for
+     * @throws IllegalArgumentException
+     *             if the initial capacity is negative
+     */
+    public ArraySkipList(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal Capacity: "
+                + initialCapacity);
+        }
+        int nodes = initialCapacity + 1;
+        keys = new Object[nodes];
+        values = new Object[nodes];
+        levels = new int[nodes];
+        linkBase = new int[nodes];
+        // Expected two links per node, plus the head's full tower
+        links = new int[MAX_LEVEL + 2 * initialCapacity];
+        freeByLevel = new int[MAX_LEVEL + 1];
+        Arrays.fill(freeByLevel, NIL);
+
+        levels[HEAD] = MAX_LEVEL;
+        linkBase[HEAD] = 0;
+        Arrays.fill(links, 0, MAX_LEVEL, NIL);
+        nodeCount = 1;
+        linkCount = MAX_LEVEL;
+        topLevel = 1;
+        size = 0;
+        rng = new TestableRandom();
+    }
+
+
+    /**
+     * Generates a random level for a new node.
+     *
+     * @return The randomly generated level.
+     */
+    public int randomLevel() {
+        int level = 1; // Start at level 1
+        while (level < MAX_LEVEL && rng.nextBoolean()) {
+            level++;
+        }
+        return level;
+    }
+
+
+    /**
+     * Returns the number of elements in the ArraySkipList.
+     *
+     * @return The size of the ArraySkipList.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Returns the highest level currently used by the head.
+     *
+     * @return the head level
+     */
+    public int getTopLevel() {
+        return topLevel;
+    }
+
+
+    /**
+     * Returns the number of node slots (head included) that have been
+     * allocated, whether they are in use or on the free list.
+     *
+     * @return the number of allocated node slots
+     */
+    public int getAllocatedNodes() {
+        return nodeCount;
+    }
+
+
+    /**
+     * Searches for a key in the list and returns all associated values.
+     *
+     * @param key
+     *            The key to search for.
+     * @return A list of key-value pairs with the specified key.
+     */
+    @Override
+    public MyArrayList<KVPair<K, V>> search(K key) {
+        MyArrayList<KVPair<K, V>> result = new MyArrayList<>();
+        int current = predecessor(key, null);
+        current = next(current, 1);
+        while (current != NIL && key(current).compareTo(key) == 0) {
+            result.add(pair(current));
+            current = next(current, 1);
+        }
+        return result;
+    }
+
+
+    /**
+     * Inserts the KVPair in the list at its appropriate spot as designated by
+     * its lexicographical order.
+     *
+     * @param it
+     *            The key-value pair to insert.
+     * @throws IllegalArgumentException
+     *             if KV Pair is null.
+     */
+    @Override
+    public void insert(KVPair<K, V> it) {
+        if (it == null) {
+            throw new IllegalArgumentException("KV pair is null");
+        }
+
+        int newLevel = randomLevel();
+        if (newLevel > topLevel) {
+            topLevel = newLevel;
+        }
+
+        int[] update = new int[topLevel + 1];
+        predecessor(it.getKey(), update);
+
+        int node = allocate(newLevel);
+        keys[node] = it.getKey();
+        values[node] = it.getValue();
+        for (int i = 1; i <= newLevel; i++) {
+            setNext(node, i, next(update[i], i));
+            setNext(update[i], i, node);
+        }
+        size++;
+    }
+
+
+    /**
+     * Removes the first occurrence of a key from the list.
+     *
+     * @param key
+     *            The key to remove.
+     * @return The removed key-value pair, or null if not found.
+     */
+    @Override
+    public KVPair<K, V> remove(K key) {
+        int[] update = new int[topLevel + 1];
+        int current = next(predecessor(key, update), 1);
+        if (current == NIL || key(current).compareTo(key) != 0) {
+            return null;
+        }
+        return unlink(current, update);
+    }
+
+
+    /**
+     * Removes a KVPair with the specified value.
+     *
+     * @param val
+     *            the value of the KVPair to be removed
+     * @return returns the removed KVPair, or null if not found
+     */
+    @Override
+    public KVPair<K, V> removeByValue(V val) {
+        int current = next(HEAD, 1);
+        while (current != NIL) {
+            if (values[current].equals(val)) {
+                // Find the predecessors of this exact node
+                int[] update = new int[topLevel + 1];
+                predecessor(key(current), update);
+                for (int i = 1; i <= levels[current]; i++) {
+                    while (next(update[i], i) != NIL && next(update[i],
+                        i) != current && key(next(update[i], i)).compareTo(
+                            key(current)) == 0) {
+                        update[i] = next(update[i], i);
+                    }
+                }
+                return unlink(current, update);
+            }
+            current = next(current, 1);
+        }
+        return null;
+    }
+
+
+    /**
+     * Prints out the ArraySkipList in the same format as SkipList.dump().
+     */
+    @Override
+    public void dump() {
+        System.out.println("SkipList dump:");
+        if (size == 0) {
+            System.out.println("Node has depth 1, Value (null)");
+            System.out.println("SkipList size is: 0");
+            return;
+        }
+
+        System.out.println("Node has depth " + topLevel + ", value null");
+        for (int n = next(HEAD, 1); n != NIL; n = next(n, 1)) {
+            System.out.println("Node has depth " + levels[n] + ", value "
+                + values[n].toString());
+        }
+        System.out.println("SkipList size is: " + size);
+    }
+
+
+    /**
+     * Walks down from the head to the last node whose key is less than the
+     * given key.
+     *
+     * @param key
+     *            the key to look for
+     * @param update
+     *            if not null, receives the last node before key at each level
+     * @return the last node at level 1 whose key is less than key
+     */
+    private int predecessor(K key, int[] update) {
+        int current = HEAD;
+        for (int i = topLevel; i >= 1; i--) {
+            int n = next(current, i);
+            while (n != NIL && key(n).compareTo(key) < 0) {
+                current = n;
+                n = next(current, i);
+            }
+            if (update != null) {
+                update[i] = current;
+            }
+        }
+        return current;
+    }
+
+
+    /**
+     * Unlinks a node from every level, puts it on the free list and returns
+     * its entry.
+     *
+     * @param node
+     *            the node to remove
+     * @param update
+     *            the last node before it at each level
+     * @return the removed key-value pair
+     */
+    @SuppressWarnings("unchecked")
+    private KVPair<K, V> unlink(int node, int[] update) {
+        for (int i = 1; i <= levels[node]; i++) {
+            setNext(update[i], i, next(node, i));
+        }
+        KVPair<K, V> removed = pair(node);
+
+        keys[node] = null;
+        values[node] = null;
+        // Chain free nodes through their level 1 link
+        setNext(node, 1, freeByLevel[levels[node]]);
+        freeByLevel[levels[node]] = node;
+        size--;
+        return removed;
+    }
+
+
+    /**
+     * Returns a node slot with room for the given number of links, reusing a
+     * free node of the same level when there is one.
+     *
+     * @param level
+     *            the level of the new node
+     * @return the handle of the new node
+     */
+    private int allocate(int level) {
+        int node = freeByLevel[level];
+        if (node != NIL) {
+            freeByLevel[level] = next(node, 1);
+            return node;
+        }
+
+        if (nodeCount == keys.length) {
+            int newCapacity = keys.length * 2;
+            keys = Arrays.copyOf(keys, newCapacity);
+            values = Arrays.copyOf(values, newCapacity);
+            levels = Arrays.copyOf(levels, newCapacity);
+            linkBase = Arrays.copyOf(linkBase, newCapacity);
+        }
+        if (linkCount + level > links.length) {
+            links = Arrays.copyOf(links, Math.max(links.length * 2, linkCount
+                + level));
+        }
+        node = nodeCount++;
+        levels[node] = level;
+        linkBase[node] = linkCount;
+        linkCount += level;
+        return node;
+    }
+
+
+    /**
+     * Returns the forward link of a node at a level.
+     *
+     * @param node
+     *            the node handle
+     * @param level
+     *            the level, starting at 1
+     * @return the next node handle, or NIL
+     */
+    private int next(int node, int level) {
+        return links[linkBase[node] + level - 1];
+    }
+
+
+    /**
+     * Sets the forward link of a node at a level.
+     *
+     * @param node
+     *            the node handle
+     * @param level
+     *            the level, starting at 1
+     * @param target
+     *            the next node handle, or NIL
+     */
+    private void setNext(int node, int level, int target) {
+        links[linkBase[node] + level - 1] = target;
+    }
+
+
+    /**
+     * Returns the key of a node.
+     *
+     * @param node
+     *            the node handle
+     * @return the key
+     */
+    @SuppressWarnings("unchecked")
+    private K key(int node) {
+        return (K)keys[node];
+    }
+
+
+    /**
+     * Builds a KVPair for a node. Pairs are not stored, so a new one is made
+     * each time.
+     *
+     * @param node
+     *            the node handle
+     * @return the key-value pair
+     */
+    @SuppressWarnings("unchecked")
+    private KVPair<K, V> pair(int node) {
+        return new KVPair<K, V>((K)keys[node], (V)values[node]);
+    }
+
+
+    /**
+     * Iterator class for traversing the ArraySkipList.
+     */
+    private class ArraySkipListIterator implements Iterator<KVPair<K, V>> {
+        private int current = HEAD;
+
+        @Override
+        public boolean hasNext() {
+            return ArraySkipList.this.next(current, 1) != NIL;
+        }
+
+
+        @Override
+        public KVPair<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            current = ArraySkipList.this.next(current, 1);
+            return pair(current);
+        }
+    }
+
+    /**
+     * Returns an iterator over elements of the ArraySkipList.
+     *
+     * @return An iterator over key-value pairs.
+     */
+    @Override
+    public Iterator<KVPair<K, V>> iterator() {
+        return new ArraySkipListIterator();
+    }
+}
@@ -0,0 +1,141 @@
+import java.util.Iterator;
+import student.TestCase;
+
+/**
+ * The test class for ArraySkipList
+ *
+ * @author Rushil, Kush
+ * @version 1.0
+ */
+public class ArraySkipListTest extends TestCase {
+    private ArraySkipList<Integer, String> skipList;
+
+    /**
+     * Sets up the variables for use in this class
+     */
+    public void setUp() {
+        skipList = new ArraySkipList<>();
+    }
+
+
+    /**
+     * Tests for null inserts and a negative capacity
+     */
+    public void testIllegalArguments() {
+        try {
+            skipList.insert(null);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+        try {
+            new ArraySkipList<Integer, String>(-1);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+    }
+
+
+    /**
+     * Tests for inserting and searching
+     */
+    public void testInsertAndSearch() {
+        skipList.insert(new KVPair<>(20, "Value20"));
+        skipList.insert(new KVPair<>(10, "Value10"));
+        skipList.insert(new KVPair<>(30, "Value30"));
+
+        assertEquals("Value10", skipList.search(10).get(0).getValue());
+        assertEquals("Value20", skipList.search(20).get(0).getValue());
+        assertEquals("Value30", skipList.search(30).get(0).getValue());
+        assertTrue(skipList.search(99).isEmpty());
+        assertEquals(3, skipList.size());
+    }
+
+
+    /**
+     * Tests that duplicates behave like they do in SkipList
+     */
+    public void testDuplicateKeys() {
+        SkipList<Integer, String> reference = new SkipList<>();
+        skipList.insert(new KVPair<>(5, "A"));
+        skipList.insert(new KVPair<>(5, "B"));
+        reference.insert(new KVPair<>(5, "A"));
+        reference.insert(new KVPair<>(5, "B"));
+        assertEquals(2, skipList.search(5).size());
+        assertEquals(reference.remove(5).getValue(), skipList.remove(5)
+            .getValue());
+        assertEquals(1, skipList.size());
+    }
+
+
+    /**
+     * Tests remove and remove by value
+     */
+    public void testRemove() {
+        skipList.insert(new KVPair<>(1, "A"));
+        skipList.insert(new KVPair<>(1, "B"));
+        skipList.insert(new KVPair<>(2, "C"));
+        assertNull(skipList.remove(7));
+        assertEquals("A", skipList.removeByValue("A").getValue());
+        assertNull(skipList.removeByValue("A"));
+        assertEquals("B", skipList.search(1).get(0).getValue());
+        assertEquals("C", skipList.remove(2).getValue());
+        assertNull(skipList.remove(2));
+        assertEquals(1, skipList.size());
+    }
+
+
+    /**
+     * Tests that removed node slots are reused
+     */
+    public void testFreeListReuse() {
+        for (int i = 0; i < 100; i++) {
+            skipList.insert(new KVPair<>(i, "V" + i));
+        }
+        int allocated = skipList.getAllocatedNodes();
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 100; i++) {
+                skipList.remove(i);
+            }
+            for (int i = 0; i < 100; i++) {
+                skipList.insert(new KVPair<>(i, "V" + i));
+            }
+        }
+        assertEquals(100, skipList.size());
+        // Only nodes of a level that was not free before need a new slot
+        assertTrue(skipList.getAllocatedNodes() < allocated + 100);
+    }
+
+
+    /**
+     * Tests the iterator methods
+     */
+    public void testIterator() {
+        for (int i = 50; i >= 1; i--) {
+            skipList.insert(new KVPair<>(i, "V" + i));
+        }
+        Iterator<KVPair<Integer, String>> iterator = skipList.iterator();
+        for (int i = 1; i <= 50; i++) {
+            assertTrue(iterator.hasNext());
+            assertEquals(i, iterator.next().getKey(), 0.01);
+        }
+        assertFalse(iterator.hasNext());
+    }
+
+
+    /**
+     * Tests the dump method
+     */
+    public void testDump() {
+        systemOut().clearHistory();
+        skipList.dump();
+        assertTrue(systemOut().getHistory().contains("SkipList size is: 0"));
+        skipList.insert(new KVPair<>(5, "Five"));
+        skipList.dump();
+        assertTrue(systemOut().getHistory().contains("value Five"));
+        assertTrue(systemOut().getHistory().contains("SkipList size is: 1"));
+    }
+}
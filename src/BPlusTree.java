@@ -0,0 +1,781 @@
+import java.lang.reflect.Array;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A B+ tree of key-value pairs. Entries sit only in the leaves, which are
+ * arrays of up to order entries linked left to right, so iteration, range
+ * walks and dump read whole arrays in key order instead of chasing one
+ * pointer per entry. Inner nodes hold up to order children and the
+ * smallest key of every child but the first. All leaves are at the same
+ * depth, which stays near log(n) / log(order / 2).
+ *
+ * Every node but the root holds at least order / 2 entries or children.
+ * Insert splits a node in half once it overflows and passes the split key
+ * up; remove refills a node that got too small by borrowing from a
+ * neighbour, or merges the two when the neighbour has nothing to spare.
+ *
+ * Duplicate keys are told apart by an insertion number, and like SkipList
+ * the newest duplicate comes first and is the one remove takes.
+ *
+ * @author Rushil, Kush
+ *
+ * @version 1.0
+ * @param <K>
+ *            Key
+ * @param <V>
+ *            Value
+ */
+public class BPlusTree<K extends Comparable<K>, V>
+    implements NameIndex<K, V> {
+
+    /**
+     * The most entries of a leaf and children of an inner node when no
+     * order is given
+     */
+    public static final int DEFAULT_ORDER = 64;
+
+    private final int order; // most entries or children of a node
+    private final int minimum; // fewest entries or children below the root
+    private Node root; // a Leaf until the first split
+    private Leaf firstLeaf; // leftmost leaf, never merged away
+    private int height; // number of levels, counting the leaves
+    private int size; // number of entries in the tree
+    private long nextSeq; // insertion number of the next entry
+
+    // Split key passed up from a node that was split during insert
+    private K splitKey;
+    private long splitSeq;
+
+    /**
+     * Constructs an empty BPlusTree with the default order.
+     */
+    public BPlusTree() {
+        this(DEFAULT_ORDER);
+    }
+
+
+    /**
+     * Constructs an empty BPlusTree.
+     *
+     * @param order
+     *            the most entries of a leaf and children of an inner node
+     * @throws IllegalArgumentException
+     *             if order is less than 4
+     */
+    public BPlusTree(int order) {
+        if (order < 4) {
+            throw new IllegalArgumentException("Illegal Order: " + order);
+        }
+        this.order = order;
+        minimum = order / 2;
+        firstLeaf = new Leaf();
+        root = firstLeaf;
+        height = 1;
+        size = 0;
+        nextSeq = 0;
+    }
+
+
+    /**
+     * Returns the number of elements in the BPlusTree.
+     *
+     * @return The size of the BPlusTree.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Returns the number of levels, counting the leaves.
+     *
+     * @return the height of the tree
+     */
+    public int getHeight() {
+        return height;
+    }
+
+
+    /**
+     * Returns the most entries of a leaf and children of an inner node.
+     *
+     * @return the order of the tree
+     */
+    public int getOrder() {
+        return order;
+    }
+
+
+    /**
+     * Searches for a key in the tree and returns all associated values.
+     *
+     * @param key
+     *            The key to search for.
+     * @return A list of key-value pairs with the specified key.
+     */
+    @Override
+    public MyArrayList<KVPair<K, V>> search(K key) {
+        MyArrayList<KVPair<K, V>> result = new MyArrayList<>();
+        if (key == null) {
+            return result;
+        }
+        // The newest duplicate has the highest number, so it comes first
+        Leaf leaf = findLeaf(key, Long.MAX_VALUE);
+        int pos = leaf.lowerBound(key, Long.MAX_VALUE);
+        while (leaf != null) {
+            for (; pos < leaf.count; pos++) {
+                if (leaf.key(pos).compareTo(key) != 0) {
+                    return result;
+                }
+                result.add(leaf.pair(pos));
+            }
+            leaf = leaf.next;
+            pos = 0;
+        }
+        return result;
+    }
+
+
+    /**
+     * Inserts the KVPair in front of any entries with the same key.
+     *
+     * @param it
+     *            The key-value pair to insert.
+     * @throws IllegalArgumentException
+     *             if KV Pair or its key is null.
+     */
+    @Override
+    public void insert(KVPair<K, V> it) {
+        if (it == null || it.getKey() == null) {
+            throw new IllegalArgumentException("KV pair is null");
+        }
+        Node sibling = root.insert(it.getKey(), nextSeq++, it);
+        if (sibling != null) {
+            Inner newRoot = new Inner();
+            newRoot.children[0] = root;
+            newRoot.children[1] = sibling;
+            newRoot.keys[0] = splitKey;
+            newRoot.seqs[0] = splitSeq;
+            newRoot.count = 2;
+            root = newRoot;
+            height++;
+        }
+        splitKey = null;
+        size++;
+    }
+
+
+    /**
+     * Removes the first occurrence of a key.
+     *
+     * @param key
+     *            The key to remove.
+     * @return The removed key-value pair, or null if not found.
+     */
+    @Override
+    public KVPair<K, V> remove(K key) {
+        if (key == null) {
+            return null;
+        }
+        Leaf leaf = findLeaf(key, Long.MAX_VALUE);
+        int pos = leaf.lowerBound(key, Long.MAX_VALUE);
+        if (pos == leaf.count) {
+            // The first entry of the key may start the next leaf
+            leaf = leaf.next;
+            pos = 0;
+        }
+        if (leaf == null || leaf.key(pos).compareTo(key) != 0) {
+            return null;
+        }
+        return delete(leaf.key(pos), leaf.seqs[pos]);
+    }
+
+
+    /**
+     * Removes a KVPair with the specified value.
+     *
+     * @param val
+     *            the value of the KVPair to be removed
+     * @return the removed KVPair, or null if not found
+     */
+    @Override
+    public KVPair<K, V> removeByValue(V val) {
+        for (Leaf leaf = firstLeaf; leaf != null; leaf = leaf.next) {
+            for (int pos = 0; pos < leaf.count; pos++) {
+                if (leaf.pair(pos).getValue().equals(val)) {
+                    return delete(leaf.key(pos), leaf.seqs[pos]);
+                }
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Prints out the entries in the same format as SkipList.dump(), in key
+     * order and newest first among equal keys. The head line shows the
+     * height of the tree; every entry sits in a leaf and shows depth 1.
+     */
+    @Override
+    public void dump() {
+        System.out.println("SkipList dump:");
+        if (size == 0) {
+            System.out.println("Node has depth 1, Value (null)");
+            System.out.println("SkipList size is: 0");
+            return;
+        }
+
+        System.out.println("Node has depth " + height + ", value null");
+        for (KVPair<K, V> pair : this) {
+            System.out.println("Node has depth 1, value " + pair.toString());
+        }
+        System.out.println("SkipList size is: " + size);
+    }
+
+
+    /**
+     * Prints out how the tree is laid out, for debugging: its height, then
+     * the entries one leaf at a time, then its size.
+     */
+    public void dumpLeaves() {
+        System.out.println("BPlusTree dump:");
+        int leaves = 0;
+        for (Leaf leaf = firstLeaf; leaf != null; leaf = leaf.next) {
+            leaves++;
+        }
+        System.out.println("Tree has height " + height + " and " + leaves
+            + " leaves");
+        for (Leaf leaf = firstLeaf; leaf != null; leaf = leaf.next) {
+            System.out.println("Leaf has " + leaf.count + " entries");
+            for (int pos = 0; pos < leaf.count; pos++) {
+                System.out.println("Entry value " + leaf.pair(pos)
+                    .toString());
+            }
+        }
+        System.out.println("BPlusTree size is: " + size);
+    }
+
+
+    /**
+     * Removes the entry with the given key and insertion number, then
+     * refills or merges every node on the way back up that got too small.
+     *
+     * @param key
+     *            the key of the entry
+     * @param seq
+     *            the insertion number of the entry
+     * @return the removed key-value pair
+     */
+    private KVPair<K, V> delete(K key, long seq) {
+        KVPair<K, V> removed = root.delete(key, seq);
+        if (removed != null) {
+            size--;
+            // An inner root left with one child is not needed any more
+            if (root instanceof Inner && root.count == 1) {
+                root = ((Inner)root).children[0];
+                height--;
+            }
+        }
+        return removed;
+    }
+
+
+    /**
+     * Walks down to the leaf where the given entry is or would go.
+     *
+     * @param key
+     *            the key of the entry
+     * @param seq
+     *            the insertion number of the entry
+     * @return the leaf
+     */
+    private Leaf findLeaf(K key, long seq) {
+        Node node = root;
+        while (node instanceof Inner) {
+            Inner inner = (Inner)node;
+            node = inner.children[inner.childIndex(key, seq)];
+        }
+        return (Leaf)node;
+    }
+
+
+    /**
+     * Compares two entries: by key, then newest first.
+     *
+     * @param key
+     *            the key of the first entry
+     * @param seq
+     *            the insertion number of the first entry
+     * @param otherKey
+     *            the key of the second entry
+     * @param otherSeq
+     *            the insertion number of the second entry
+     * @return a negative number, zero or a positive number as the first
+     *         entry comes before, is or comes after the second
+     */
+    private int compare(K key, long seq, K otherKey, long otherSeq) {
+        int cmp = key.compareTo(otherKey);
+        if (cmp != 0) {
+            return cmp;
+        }
+        return Long.compare(otherSeq, seq);
+    }
+
+
+    /**
+     * A node of the tree. For a leaf count is the number of entries, for an
+     * inner node the number of children.
+     */
+    private abstract class Node {
+        // One more than order so a node can overflow before it is split
+        protected Object[] keys = new Object[order + 1];
+        protected long[] seqs = new long[order + 1];
+        protected int count;
+
+        /**
+         * Returns the key in a position.
+         *
+         * @param pos
+         *            the position
+         * @return the key
+         */
+        @SuppressWarnings("unchecked")
+        protected K key(int pos) {
+            return (K)keys[pos];
+        }
+
+
+        /**
+         * Inserts an entry below this node.
+         *
+         * @param key
+         *            the key of the entry
+         * @param seq
+         *            the insertion number of the entry
+         * @param pair
+         *            the entry
+         * @return the new right half if this node was split, with its
+         *         smallest key in splitKey and splitSeq, or null
+         */
+        protected abstract Node insert(K key, long seq, KVPair<K, V> pair);
+
+
+        /**
+         * Removes an entry below this node and fixes the child it was
+         * removed from if that got too small.
+         *
+         * @param key
+         *            the key of the entry
+         * @param seq
+         *            the insertion number of the entry
+         * @return the removed key-value pair, or null if it is not there
+         */
+        protected abstract KVPair<K, V> delete(K key, long seq);
+    }
+
+
+    /**
+     * A leaf: entries in order and a link to the next leaf.
+     */
+    private class Leaf extends Node {
+        private Object[] pairs = new Object[order + 1];
+        private Leaf next;
+
+        /**
+         * Returns the entry in a position.
+         *
+         * @param pos
+         *            the position
+         * @return the entry
+         */
+        @SuppressWarnings("unchecked")
+        private KVPair<K, V> pair(int pos) {
+            return (KVPair<K, V>)pairs[pos];
+        }
+
+
+        /**
+         * Finds the first position whose entry does not come before the
+         * given one.
+         *
+         * @param key
+         *            the key of the entry
+         * @param seq
+         *            the insertion number of the entry
+         * @return the position, count if every entry comes before it
+         */
+        private int lowerBound(K key, long seq) {
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compare(key(mid), seqs[mid], key, seq) < 0) {
+                    low = mid + 1;
+                }
+                else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+
+        @Override
+        protected Node insert(K key, long seq, KVPair<K, V> pair) {
+            int pos = lowerBound(key, seq);
+            System.arraycopy(keys, pos, keys, pos + 1, count - pos);
+            System.arraycopy(seqs, pos, seqs, pos + 1, count - pos);
+            System.arraycopy(pairs, pos, pairs, pos + 1, count - pos);
+            keys[pos] = key;
+            seqs[pos] = seq;
+            pairs[pos] = pair;
+            count++;
+            if (count <= order) {
+                return null;
+            }
+
+            // Move the upper half into a new leaf to the right
+            Leaf right = new Leaf();
+            int half = count / 2;
+            right.count = count - half;
+            System.arraycopy(keys, half, right.keys, 0, right.count);
+            System.arraycopy(seqs, half, right.seqs, 0, right.count);
+            System.arraycopy(pairs, half, right.pairs, 0, right.count);
+            for (int i = half; i < count; i++) {
+                keys[i] = null;
+                pairs[i] = null;
+            }
+            count = half;
+            right.next = next;
+            next = right;
+            splitKey = right.key(0);
+            splitSeq = right.seqs[0];
+            return right;
+        }
+
+
+        @Override
+        protected KVPair<K, V> delete(K key, long seq) {
+            int pos = lowerBound(key, seq);
+            if (pos == count || compare(key(pos), seqs[pos], key,
+                seq) != 0) {
+                return null;
+            }
+            KVPair<K, V> removed = pair(pos);
+            removeAt(pos);
+            return removed;
+        }
+
+
+        /**
+         * Removes the entry in a position.
+         *
+         * @param pos
+         *            the position
+         */
+        private void removeAt(int pos) {
+            count--;
+            System.arraycopy(keys, pos + 1, keys, pos, count - pos);
+            System.arraycopy(seqs, pos + 1, seqs, pos, count - pos);
+            System.arraycopy(pairs, pos + 1, pairs, pos, count - pos);
+            keys[count] = null;
+            pairs[count] = null;
+        }
+
+
+        /**
+         * Copies an entry of another leaf into a position of this one.
+         *
+         * @param to
+         *            the position in this leaf, already made free
+         * @param from
+         *            the other leaf
+         * @param pos
+         *            the position in the other leaf
+         */
+        private void copyEntry(int to, Leaf from, int pos) {
+            keys[to] = from.keys[pos];
+            seqs[to] = from.seqs[pos];
+            pairs[to] = from.pairs[pos];
+        }
+    }
+
+
+    /**
+     * An inner node: count children and count - 1 separators, where
+     * separator i is no larger than any entry under child i + 1 and larger
+     * than every entry under child i.
+     */
+    private class Inner extends Node {
+        private Node[] children;
+
+        /**
+         * Creates an empty inner node.
+         */
+        @SuppressWarnings("unchecked")
+        Inner() {
+            children = (Node[])Array.newInstance(BPlusTree.Node.class, order
+                + 1);
+        }
+
+
+        /**
+         * Picks the child whose range holds the given entry.
+         *
+         * @param key
+         *            the key of the entry
+         * @param seq
+         *            the insertion number of the entry
+         * @return the index of the child
+         */
+        private int childIndex(K key, long seq) {
+            int low = 0;
+            int high = count - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compare(key, seq, key(mid), seqs[mid]) < 0) {
+                    high = mid;
+                }
+                else {
+                    low = mid + 1;
+                }
+            }
+            return low;
+        }
+
+
+        @Override
+        protected Node insert(K key, long seq, KVPair<K, V> pair) {
+            int index = childIndex(key, seq);
+            Node sibling = children[index].insert(key, seq, pair);
+            if (sibling == null) {
+                return null;
+            }
+            // The child's right half goes in after it
+            int moved = count - 1 - index;
+            System.arraycopy(keys, index, keys, index + 1, moved);
+            System.arraycopy(seqs, index, seqs, index + 1, moved);
+            System.arraycopy(children, index + 1, children, index + 2,
+                moved);
+            keys[index] = splitKey;
+            seqs[index] = splitSeq;
+            children[index + 1] = sibling;
+            count++;
+            if (count <= order) {
+                return null;
+            }
+
+            // Keep half the children; the separator between the halves
+            // moves up instead of into either half
+            Inner right = new Inner();
+            int half = count / 2;
+            right.count = count - half;
+            System.arraycopy(children, half, right.children, 0, right.count);
+            System.arraycopy(keys, half, right.keys, 0, right.count - 1);
+            System.arraycopy(seqs, half, right.seqs, 0, right.count - 1);
+            splitKey = key(half - 1);
+            splitSeq = seqs[half - 1];
+            for (int i = half - 1; i < count - 1; i++) {
+                keys[i] = null;
+                children[i + 1] = null;
+            }
+            count = half;
+            return right;
+        }
+
+
+        @Override
+        protected KVPair<K, V> delete(K key, long seq) {
+            int index = childIndex(key, seq);
+            KVPair<K, V> removed = children[index].delete(key, seq);
+            if (removed != null && children[index].count < minimum) {
+                refill(index);
+            }
+            return removed;
+        }
+
+
+        /**
+         * Brings a child that got too small back to the minimum, from a
+         * neighbour that can spare an entry or by merging with one.
+         *
+         * @param index
+         *            the index of the child
+         */
+        private void refill(int index) {
+            if (index > 0 && children[index - 1].count > minimum) {
+                borrowLeft(index);
+            }
+            else if (index + 1 < count && children[index + 1].count
+                > minimum) {
+                borrowRight(index);
+            }
+            else if (index > 0) {
+                merge(index - 1);
+            }
+            else {
+                merge(index);
+            }
+        }
+
+
+        /**
+         * Moves the last entry or child of the left neighbour to the front
+         * of a child.
+         *
+         * @param index
+         *            the index of the child
+         */
+        private void borrowLeft(int index) {
+            Node left = children[index - 1];
+            Node child = children[index];
+            System.arraycopy(child.keys, 0, child.keys, 1, child.count);
+            System.arraycopy(child.seqs, 0, child.seqs, 1, child.count);
+            if (child instanceof Leaf) {
+                Leaf to = (Leaf)child;
+                Leaf from = (Leaf)left;
+                System.arraycopy(to.pairs, 0, to.pairs, 1, to.count);
+                to.copyEntry(0, from, from.count - 1);
+                to.count++;
+                from.removeAt(from.count - 1);
+                keys[index - 1] = to.keys[0];
+                seqs[index - 1] = to.seqs[0];
+            }
+            else {
+                Inner to = (Inner)child;
+                Inner from = (Inner)left;
+                System.arraycopy(to.children, 0, to.children, 1, to.count);
+                to.children[0] = from.children[from.count - 1];
+                to.keys[0] = keys[index - 1];
+                to.seqs[0] = seqs[index - 1];
+                to.count++;
+                keys[index - 1] = from.keys[from.count - 2];
+                seqs[index - 1] = from.seqs[from.count - 2];
+                from.keys[from.count - 2] = null;
+                from.children[from.count - 1] = null;
+                from.count--;
+            }
+        }
+
+
+        /**
+         * Moves the first entry or child of the right neighbour to the end
+         * of a child.
+         *
+         * @param index
+         *            the index of the child
+         */
+        private void borrowRight(int index) {
+            Node child = children[index];
+            Node right = children[index + 1];
+            if (child instanceof Leaf) {
+                Leaf to = (Leaf)child;
+                Leaf from = (Leaf)right;
+                to.copyEntry(to.count, from, 0);
+                to.count++;
+                from.removeAt(0);
+                keys[index] = from.keys[0];
+                seqs[index] = from.seqs[0];
+            }
+            else {
+                Inner to = (Inner)child;
+                Inner from = (Inner)right;
+                to.keys[to.count - 1] = keys[index];
+                to.seqs[to.count - 1] = seqs[index];
+                to.children[to.count] = from.children[0];
+                to.count++;
+                keys[index] = from.keys[0];
+                seqs[index] = from.seqs[0];
+                from.count--;
+                System.arraycopy(from.keys, 1, from.keys, 0, from.count - 1);
+                System.arraycopy(from.seqs, 1, from.seqs, 0, from.count - 1);
+                System.arraycopy(from.children, 1, from.children, 0,
+                    from.count);
+                from.keys[from.count - 1] = null;
+                from.children[from.count] = null;
+            }
+        }
+
+
+        /**
+         * Moves everything in a child's right neighbour into the child and
+         * drops the neighbour.
+         *
+         * @param index
+         *            the index of the child
+         */
+        private void merge(int index) {
+            Node child = children[index];
+            Node right = children[index + 1];
+            if (child instanceof Leaf) {
+                Leaf to = (Leaf)child;
+                Leaf from = (Leaf)right;
+                for (int i = 0; i < from.count; i++) {
+                    to.copyEntry(to.count + i, from, i);
+                }
+                to.count += from.count;
+                to.next = from.next;
+            }
+            else {
+                // The separator between the two comes down between them
+                Inner to = (Inner)child;
+                Inner from = (Inner)right;
+                to.keys[to.count - 1] = keys[index];
+                to.seqs[to.count - 1] = seqs[index];
+                System.arraycopy(from.keys, 0, to.keys, to.count, from.count
+                    - 1);
+                System.arraycopy(from.seqs, 0, to.seqs, to.count, from.count
+                    - 1);
+                System.arraycopy(from.children, 0, to.children, to.count,
+                    from.count);
+                to.count += from.count;
+            }
+            count--;
+            System.arraycopy(keys, index + 1, keys, index, count - 1 - index);
+            System.arraycopy(seqs, index + 1, seqs, index, count - 1 - index);
+            System.arraycopy(children, index + 2, children, index + 1, count
+                - 1 - index);
+            keys[count - 1] = null;
+            children[count] = null;
+        }
+    }
+
+
+    /**
+     * Iterates over the entries by walking the linked leaves.
+     */
+    private class LeafIterator implements Iterator<KVPair<K, V>> {
+        private Leaf leaf = firstLeaf;
+        private int pos = 0;
+
+        @Override
+        public boolean hasNext() {
+            while (leaf != null && pos == leaf.count) {
+                leaf = leaf.next;
+                pos = 0;
+            }
+            return leaf != null;
+        }
+
+
+        @Override
+        public KVPair<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return leaf.pair(pos++);
+        }
+    }
+
+    /**
+     * Returns an iterator over elements of the BPlusTree.
+     *
+     * @return An iterator over key-value pairs.
+     */
+    @Override
+    public Iterator<KVPair<K, V>> iterator() {
+        return new LeafIterator();
+    }
+}
@@ -0,0 +1,157 @@
+import java.util.Iterator;
+
+/**
+ * The test class for BPlusTree
+ *
+ * @author Rushil, Kush
+ * @version 1.0
+ */
+public class BPlusTreeTest extends NameIndexTestCase {
+    private BPlusTree<Integer, String> tree;
+
+    /**
+     * Sets up the variables for use in this class
+     */
+    public void setUp() {
+        tree = new BPlusTree<>(4);
+    }
+
+
+    /**
+     * Tests bad arguments and an empty tree
+     */
+    public void testIllegalArguments() {
+        try {
+            new BPlusTree<Integer, String>(3);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+        try {
+            tree.insert(new KVPair<Integer, String>(null, "A"));
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+        assertEquals(BPlusTree.DEFAULT_ORDER, new BPlusTree<Integer,
+            String>().getOrder());
+        assertTrue(tree.search(null).isEmpty());
+        assertNull(tree.remove(null));
+        assertNull(tree.remove(1));
+        assertNull(tree.removeByValue("A"));
+        assertEquals(1, tree.getHeight());
+    }
+
+
+    /**
+     * Tests that random inserts and removes give the same entries in the
+     * same order as a SkipList, for a narrow and a wide tree
+     */
+    public void testMatchesSkipList() {
+        assertMatchesSkipList(tree, intKeys(300), step -> "V" + step, 20000,
+            22);
+        assertMatchesSkipList(new BPlusTree<Integer, String>(5), intKeys(300),
+            step -> "V" + step, 20000, 22);
+        assertMatchesSkipList(new BPlusTree<Integer, String>(), intKeys(300),
+            step -> "V" + step, 20000, 22);
+    }
+
+
+    /**
+     * Tests that the height stays logarithmic for sorted input and that the
+     * tree shrinks back to one leaf
+     */
+    public void testHeightBound() {
+        for (int i = 0; i < 4096; i++) {
+            tree.insert(new KVPair<>(i, "V"));
+        }
+        for (int i = -1; i >= -4096; i--) {
+            tree.insert(new KVPair<>(i, "V"));
+        }
+        // Every node below the root has at least 2 of its 4 slots in use
+        assertTrue(tree.getHeight() <= 14);
+        for (int i = -4096; i < 4096; i++) {
+            assertEquals(i, (int)tree.remove(i).getKey());
+        }
+        assertEquals(0, tree.size());
+        assertEquals(1, tree.getHeight());
+        assertFalse(tree.iterator().hasNext());
+    }
+
+
+    /**
+     * Tests that runs of one key spanning many leaves keep the newest first
+     */
+    public void testDuplicates() {
+        tree.insert(new KVPair<>(4, "low"));
+        tree.insert(new KVPair<>(6, "high"));
+        for (int i = 0; i < 100; i++) {
+            tree.insert(new KVPair<>(5, "V" + i));
+        }
+        MyArrayList<KVPair<Integer, String>> fives = tree.search(5);
+        assertEquals(100, fives.size());
+        assertEquals("V99", fives.get(0).getValue());
+        assertEquals("V0", fives.get(99).getValue());
+        assertEquals("V99", tree.remove(5).getValue());
+        assertEquals("V0", tree.removeByValue("V0").getValue());
+        assertEquals(98, tree.search(5).size());
+        assertEquals(1, tree.search(4).size());
+        assertEquals(1, tree.search(6).size());
+    }
+
+
+    /**
+     * Tests the iterator, the dump in SkipList format and the leaf dump
+     */
+    public void testIteratorAndDump() {
+        SkipList<Integer, String> reference = new SkipList<>();
+        assertDumpMatchesSkipList(tree, reference);
+        BPlusTree<Integer, String> duplicates = new BPlusTree<>();
+        for (int i = 1; i <= 5; i++) {
+            KVPair<Integer, String> pair = new KVPair<>(i % 3, "V" + i);
+            reference.insert(pair);
+            duplicates.insert(pair);
+            tree.insert(new KVPair<>(i, "V" + i));
+        }
+        assertDumpMatchesSkipList(duplicates, reference);
+        Iterator<KVPair<Integer, String>> iterator = tree.iterator();
+        for (int i = 1; i <= 5; i++) {
+            assertEquals("V" + i, iterator.next().getValue());
+        }
+        assertFalse(iterator.hasNext());
+        try {
+            iterator.next();
+            fail("Expected NoSuchElementException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof java.util.NoSuchElementException);
+        }
+
+        systemOut().clearHistory();
+        tree.dumpLeaves();
+        // The fifth insert split the full leaf in two
+        assertFuzzyEquals("BPlusTree dump:\nTree has height 2 and 2 leaves\n"
+            + "Leaf has 2 entries\nEntry value V1\nEntry value V2\n"
+            + "Leaf has 3 entries\nEntry value V3\nEntry value V4\n"
+            + "Entry value V5\nBPlusTree size is: 5", systemOut()
+                .getHistory());
+    }
+
+
+    /**
+     * Tests using the tree as the name index of a Database
+     */
+    public void testDatabaseIndex() {
+        Database db = new Database(new BPlusTree<String, Point>());
+        db.insert("apple", 100, 100);
+        db.insert("apple", 200, 200);
+        db.insert("pear", 300, 300);
+        db.remove("pear");
+        db.remove(100, 100);
+        assertEquals(1, db.getNameIndex().size());
+        assertEquals(new Point("apple", 200, 200), db.getNameIndex().search(
+            "apple").get(0).getValue());
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * The answer to a batch search. It holds the distinct probe keys in sorted
+ * order and the entries found for all of them in one flat array, with an
+ * offset array marking where each key's entries start. No list is allocated
+ * per key.
+ *
+ * @author Rushil, Kush
+ *
+ * @version 1.0
+ * @param <K>
+ *            Key
+ * @param <V>
+ *            Value
+ */
+public class BatchResult<K extends Comparable<K>, V> {
+
+    private Object[] keys; // distinct probe keys in sorted order
+    private int[] offsets; // entries of key i are at offsets[i]..offsets[i+1]
+    private Object[] pairs; // entries of all keys, key by key
+    private int keyCount; // number of distinct keys
+
+    /**
+     * Creates a result over arrays filled in by the search.
+     *
+     * @param keys
+     *            the distinct keys in sorted order
+     * @param offsets
+     *            keyCount + 1 offsets into pairs
+     * @param pairs
+     *            the entries found, key by key
+     * @param keyCount
+     *            the number of distinct keys
+     */
+    BatchResult(Object[] keys, int[] offsets, Object[] pairs, int keyCount) {
+        this.keys = keys;
+        this.offsets = offsets;
+        this.pairs = pairs;
+        this.keyCount = keyCount;
+    }
+
+
+    /**
+     * Returns the number of distinct keys that were searched for.
+     *
+     * @return the number of keys
+     */
+    public int size() {
+        return keyCount;
+    }
+
+
+    /**
+     * Returns the number of entries found over all keys.
+     *
+     * @return the total number of entries
+     */
+    public int total() {
+        return offsets[keyCount];
+    }
+
+
+    /**
+     * Returns the key at a position. Keys are sorted and distinct.
+     *
+     * @param index
+     *            the position of the key
+     * @return the key
+     * @throws IndexOutOfBoundsException
+     *             if the index is out of range
+     */
+    @SuppressWarnings("unchecked")
+    public K key(int index) {
+        checkIndex(index);
+        return (K)keys[index];
+    }
+
+
+    /**
+     * Returns the number of entries found for the key at a position.
+     *
+     * @param index
+     *            the position of the key
+     * @return the number of entries with that key
+     * @throws IndexOutOfBoundsException
+     *             if the index is out of range
+     */
+    public int count(int index) {
+        checkIndex(index);
+        return offsets[index + 1] - offsets[index];
+    }
+
+
+    /**
+     * Returns one of the entries found for the key at a position, in the
+     * order search would return them.
+     *
+     * @param index
+     *            the position of the key
+     * @param entry
+     *            the position of the entry among that key's entries
+     * @return the key-value pair
+     * @throws IndexOutOfBoundsException
+     *             if either position is out of range
+     */
+    @SuppressWarnings("unchecked")
+    public KVPair<K, V> get(int index, int entry) {
+        int count = count(index);
+        if (entry < 0 || entry >= count) {
+            throw new IndexOutOfBoundsException("Index: " + entry + ", Size: "
+                + count);
+        }
+        return (KVPair<K, V>)pairs[offsets[index] + entry];
+    }
+
+
+    /**
+     * Finds the position of a key by binary search.
+     *
+     * @param key
+     *            the key to look for
+     * @return the position of the key, or -1 if it was not searched for
+     */
+    @SuppressWarnings("unchecked")
+    public int indexOf(K key) {
+        int low = 0;
+        int high = keyCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = ((K)keys[mid]).compareTo(key);
+            if (cmp < 0) {
+                low = mid + 1;
+            }
+            else if (cmp > 0) {
+                high = mid - 1;
+            }
+            else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+
+    /**
+     * Checks that a key position is in range.
+     *
+     * @param index
+     *            the position to check
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= keyCount) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+                + keyCount);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+import student.TestCase;
+
+/**
+ * The test class for BatchResult
+ *
+ * @author Rushil, Kush
+ * @version 1.0
+ */
+public class BatchResultTest extends TestCase {
+    private BatchResult<String, Integer> result;
+
+    /**
+     * Sets up a result from a small list
+     */
+    public void setUp() {
+        SkipList<String, Integer> list = new SkipList<>();
+        list.insert(new KVPair<>("b", 1));
+        list.insert(new KVPair<>("b", 2));
+        list.insert(new KVPair<>("d", 3));
+        java.util.ArrayList<String> keys = new java.util.ArrayList<>();
+        keys.add("d");
+        keys.add("c");
+        keys.add("b");
+        keys.add("d");
+        result = list.searchAll(keys);
+    }
+
+
+    /**
+     * Tests the keys and their counts
+     */
+    public void testKeysAndCounts() {
+        assertEquals(3, result.size());
+        assertEquals(3, result.total());
+        assertEquals("b", result.key(0));
+        assertEquals("c", result.key(1));
+        assertEquals("d", result.key(2));
+        assertEquals(2, result.count(0));
+        assertEquals(0, result.count(1));
+        assertEquals(3, result.get(2, 0).getValue(), 0.01);
+        // Newer duplicates come first, as in SkipList.search
+        assertEquals(2, result.get(0, 0).getValue(), 0.01);
+    }
+
+
+    /**
+     * Tests finding keys by binary search
+     */
+    public void testIndexOf() {
+        assertEquals(0, result.indexOf("b"));
+        assertEquals(1, result.indexOf("c"));
+        assertEquals(2, result.indexOf("d"));
+        assertEquals(-1, result.indexOf("a"));
+        assertEquals(-1, result.indexOf("e"));
+    }
+
+
+    /**
+     * Tests positions out of range
+     */
+    public void testOutOfBounds() {
+        try {
+            result.key(3);
+            fail("Expected IndexOutOfBoundsException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IndexOutOfBoundsException);
+        }
+        try {
+            result.count(-1);
+            fail("Expected IndexOutOfBoundsException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IndexOutOfBoundsException);
+        }
+        try {
+            result.get(1, 0);
+            fail("Expected IndexOutOfBoundsException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IndexOutOfBoundsException);
+        }
+    }
+
+
+    /**
+     * Tests an empty batch
+     */
+    public void testEmpty() {
+        BatchResult<String, Integer> empty = new SkipList<String, Integer>()
+            .searchAll(new java.util.ArrayList<String>());
+        assertEquals(0, empty.size());
+        assertEquals(0, empty.total());
+        assertEquals(-1, empty.indexOf("a"));
+    }
+}
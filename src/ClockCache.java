@@ -0,0 +1,194 @@
+import java.util.HashMap;
+
+/**
+ * A fixed size cache that evicts with the CLOCK policy. Entries sit in a
+ * ring of slots with a referenced bit each. A hit only sets the bit. To make
+ * room, the hand sweeps the ring, clearing set bits, and evicts the first
+ * entry whose bit is already clear, so keys that keep getting hit stay in
+ * the cache while one-off keys are pushed out.
+ *
+ * @author Rushil, Kush
+ *
+ * @version 1.0
+ * @param <K>
+ *            Key
+ * @param <V>
+ *            Value
+ */
+public class ClockCache<K, V> {
+
+    private Object[] keys; // key in each slot, null if the slot is free
+    private Object[] values; // value in each slot
+    private boolean[] referenced; // slot was hit since the hand last passed
+    private HashMap<K, Integer> slots; // slot of each cached key
+    private int[] free; // stack of free slots
+    private int freeCount; // number of free slots on the stack
+    private int hand; // next slot the hand looks at
+    private int hits; // lookups that found their key
+    private int misses; // lookups that did not
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param capacity
+     *            the most entries the cache holds
+     * @throws IllegalArgumentException
+     *             if capacity is less than 1
+     */
+    public ClockCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Illegal Capacity: "
+                + capacity);
+        }
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        referenced = new boolean[capacity];
+        slots = new HashMap<>(capacity * 2);
+        free = new int[capacity];
+        clear();
+    }
+
+
+    /**
+     * Looks up a key and counts the hit or miss.
+     *
+     * @param key
+     *            the key to look up
+     * @return the cached value, or null if the key is not cached
+     */
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        Integer slot = slots.get(key);
+        if (slot == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        referenced[slot] = true;
+        return (V)values[slot];
+    }
+
+
+    /**
+     * Caches a value for a key, replacing any value it had and evicting
+     * another entry if the cache is full.
+     *
+     * @param key
+     *            the key
+     * @param value
+     *            the value to cache
+     * @throws IllegalArgumentException
+     *             if key or value is null
+     */
+    public void put(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Key or value is null");
+        }
+        Integer slot = slots.get(key);
+        if (slot == null) {
+            slot = victim();
+            if (keys[slot] != null) {
+                slots.remove(keys[slot]);
+            }
+            keys[slot] = key;
+            slots.put(key, slot);
+            // A new entry has to be hit before the hand comes by to stay
+            referenced[slot] = false;
+        }
+        values[slot] = value;
+    }
+
+
+    /**
+     * Drops a key from the cache.
+     *
+     * @param key
+     *            the key to drop
+     */
+    public void invalidate(K key) {
+        Integer slot = slots.remove(key);
+        if (slot != null) {
+            keys[slot] = null;
+            values[slot] = null;
+            referenced[slot] = false;
+            free[freeCount++] = slot;
+        }
+    }
+
+
+    /**
+     * Drops every entry. The counters are kept.
+     */
+    public void clear() {
+        slots.clear();
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = null;
+            values[i] = null;
+            referenced[i] = false;
+            // Hand out low slots first
+            free[i] = keys.length - 1 - i;
+        }
+        freeCount = keys.length;
+    }
+
+
+    /**
+     * Returns the number of cached entries.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return slots.size();
+    }
+
+
+    /**
+     * Returns the most entries the cache holds.
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+
+    /**
+     * Returns the number of lookups that found their key.
+     *
+     * @return the hit count
+     */
+    public int getHits() {
+        return hits;
+    }
+
+
+    /**
+     * Returns the number of lookups that did not find their key.
+     *
+     * @return the miss count
+     */
+    public int getMisses() {
+        return misses;
+    }
+
+
+    /**
+     * Picks the slot for a new entry: a free slot if there is one, or else
+     * the first slot the hand finds not referenced since it last passed.
+     *
+     * @return the slot to use
+     */
+    private int victim() {
+        if (freeCount > 0) {
+            return free[--freeCount];
+        }
+        while (true) {
+            int slot = hand;
+            hand = (hand + 1) % keys.length;
+            if (!referenced[slot]) {
+                return slot;
+            }
+            referenced[slot] = false;
+        }
+    }
+}
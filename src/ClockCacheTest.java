@@ -0,0 +1,111 @@
+import student.TestCase;
+
+/**
+ * The test class for ClockCache
+ *
+ * @author Rushil, Kush
+ * @version 1.0
+ */
+public class ClockCacheTest extends TestCase {
+    private ClockCache<String, Integer> cache;
+
+    /**
+     * Sets up the variables for use in this class
+     */
+    public void setUp() {
+        cache = new ClockCache<>(3);
+    }
+
+
+    /**
+     * Tests bad arguments
+     */
+    public void testIllegalArguments() {
+        try {
+            new ClockCache<String, Integer>(0);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+        try {
+            cache.put(null, 1);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+        try {
+            cache.put("a", null);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+    }
+
+
+    /**
+     * Tests hits, misses and replacing a value
+     */
+    public void testGetAndPut() {
+        assertNull(cache.get("a"));
+        cache.put("a", 1);
+        cache.put("a", 2);
+        assertEquals(2, (int)cache.get("a"));
+        assertEquals(1, cache.size());
+        assertEquals(3, cache.capacity());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+
+    /**
+     * Tests that referenced keys survive eviction
+     */
+    public void testEviction() {
+        cache.put("hot", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        cache.get("hot");
+        // The hand skips the hot key and evicts b, then c
+        cache.put("d", 4);
+        assertNull(cache.get("b"));
+        cache.put("e", 5);
+        assertNull(cache.get("c"));
+        assertEquals(1, (int)cache.get("hot"));
+        assertEquals(4, (int)cache.get("d"));
+        assertEquals(3, cache.size());
+
+        // Every key hit: the hand clears them all and comes back around
+        cache.get("e");
+        cache.put("f", 6);
+        assertEquals(3, cache.size());
+        assertNotNull(cache.get("f"));
+    }
+
+
+    /**
+     * Tests dropping entries
+     */
+    public void testInvalidateAndClear() {
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        cache.get("a");
+        cache.get("b");
+        cache.get("c");
+        cache.invalidate("b");
+        cache.invalidate("x");
+        assertNull(cache.get("b"));
+        // The free slot is used before anything is evicted
+        cache.put("d", 4);
+        assertEquals(1, (int)cache.get("a"));
+        assertEquals(3, (int)cache.get("c"));
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertNull(cache.get("a"));
+        cache.put("a", 1);
+        assertEquals(1, cache.size());
+    }
+}
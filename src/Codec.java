@@ -0,0 +1,45 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Turns values into bytes and back, for structures that keep their values
+ * outside the heap, such as MappedSkipList.
+ *
+ * @author Rushil, Kush
+ *
+ * @version 1.0
+ * @param <V>
+ *            Value
+ */
+public interface Codec<V> {
+
+    /**
+     * Returns the number of bytes write will put out for a value.
+     *
+     * @param value
+     *            the value
+     * @return its size in bytes
+     */
+    int size(V value);
+
+
+    /**
+     * Writes a value at the position of a buffer, which has exactly
+     * size(value) bytes left.
+     *
+     * @param value
+     *            the value
+     * @param out
+     *            the buffer to write to
+     */
+    void write(V value, ByteBuffer out);
+
+
+    /**
+     * Reads a value back from the bytes a buffer has left.
+     *
+     * @param in
+     *            the buffer, from the start of the value to its end
+     * @return the value
+     */
+    V read(ByteBuffer in);
+}
@@ -0,0 +1,453 @@
+import java.lang.reflect.Array;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicMarkableReference;
+
+/**
+ * A lock-free SkipList that can be searched and modified by many threads at
+ * once. It offers the same search/insert/remove/iterator operations as
+ * SkipList, but every forward link is an AtomicMarkableReference updated with
+ * compare-and-set. A node is removed by first marking its forward links
+ * (logical deletion, top level down) and then physically unlinking it, which
+ * any thread that walks past the marked node will help finish.
+ *
+ * Duplicate keys are allowed, just like in SkipList. Every node is given a
+ * unique sequence number so that two nodes never compare as equal, and a
+ * newer duplicate is placed before the older ones, so search returns the
+ * newest first and remove takes the newest, the same as SkipList.
+ *
+ * @author Rushil, Kush
+ *
+ * @version 1.0
+ * @param <K>
+ *            Key
+ * @param <V>
+ *            Value
+ */
+public class ConcurrentSkipList<K extends Comparable<K>, V>
+    implements Iterable<KVPair<K, V>> {
+
+    /**
+     * The largest level a node may have. 2^32 entries are far beyond what
+     * this list is expected to hold.
+     */
+    public static final int MAX_LEVEL = 32;
+
+    private final Node head; // First element (Sentinel Node)
+    private final AtomicInteger size; // number of live entries
+    private final AtomicLong sequence; // tiebreak for duplicate keys
+    private final AtomicInteger topLevel; // highest level a node ever had
+
+    /**
+     * Constructs an empty ConcurrentSkipList.
+     */
+    public ConcurrentSkipList() {
+        head = new Node(null, Long.MIN_VALUE, MAX_LEVEL);
+        size = new AtomicInteger();
+        sequence = new AtomicLong();
+        topLevel = new AtomicInteger(1);
+    }
+
+
+    /**
+     * Generates a random level for a new node between 1 and MAX_LEVEL.
+     *
+     * @return The randomly generated level.
+     */
+    public int randomLevel() {
+        int level = 1;
+        while (level < MAX_LEVEL && ThreadLocalRandom.current().nextBoolean()) {
+            level++;
+        }
+        return level;
+    }
+
+
+    /**
+     * Returns the number of elements in the ConcurrentSkipList. While other
+     * threads are modifying the list this is only a snapshot.
+     *
+     * @return The size of the ConcurrentSkipList.
+     */
+    public int size() {
+        return size.get();
+    }
+
+
+    /**
+     * Returns the highest level any node has had. Searches start there
+     * instead of at MAX_LEVEL. It never goes down, so a search that read it
+     * before a taller node was linked may only miss that node's upper
+     * levels, never the node itself.
+     *
+     * @return the top level in use, at least 1
+     */
+    public int getTopLevel() {
+        return topLevel.get();
+    }
+
+
+    /**
+     * Searches for a key in the list and returns all associated values that
+     * were present when the search walked past them.
+     *
+     * @param key
+     *            The key to search for.
+     * @return A list of key-value pairs with the specified key.
+     */
+    public MyArrayList<KVPair<K, V>> search(K key) {
+        MyArrayList<KVPair<K, V>> result = new MyArrayList<>();
+        Node pred = head;
+        Node curr = null;
+        boolean[] marked = { false };
+
+        // Wait-free descent, stepping over (but not unlinking) marked nodes
+        for (int i = topLevel.get(); i >= 1; i--) {
+            curr = pred.forward[i].getReference();
+            while (curr != null) {
+                Node succ = curr.forward[i].get(marked);
+                if (marked[0]) {
+                    curr = succ;
+                    continue;
+                }
+                if (curr.compareTo(key, Long.MAX_VALUE) >= 0) {
+                    break;
+                }
+                pred = curr;
+                curr = succ;
+            }
+        }
+
+        while (curr != null && curr.pair.getKey().compareTo(key) == 0) {
+            if (!curr.forward[1].isMarked()) {
+                result.add(curr.pair);
+            }
+            curr = curr.forward[1].getReference();
+        }
+        return result;
+    }
+
+
+    /**
+     * Inserts the KVPair in the list at its appropriate spot as designated by
+     * its lexicographical order.
+     *
+     * @param it
+     *            The key-value pair to insert.
+     * @throws IllegalArgumentException
+     *             if KV Pair is null.
+     */
+    public void insert(KVPair<K, V> it) {
+        if (it == null) {
+            throw new IllegalArgumentException("KV pair is null");
+        }
+
+        long seq = sequence.incrementAndGet();
+        int newLevel = randomLevel();
+        Node[] preds = newPath();
+        Node[] succs = newPath();
+        Node newNode = new Node(it, seq, newLevel);
+        // Raised before linking, so every find sees all levels of the node
+        int top = topLevel.get();
+        while (newLevel > top && !topLevel.compareAndSet(top, newLevel)) {
+            top = topLevel.get();
+        }
+
+        while (true) {
+            find(it.getKey(), seq, preds, succs);
+            for (int i = 1; i <= newLevel; i++) {
+                newNode.forward[i].set(succs[i], false);
+            }
+
+            // The node becomes part of the list once level 1 is linked
+            if (!preds[1].forward[1].compareAndSet(succs[1], newNode, false,
+                false)) {
+                continue;
+            }
+
+            for (int i = 2; i <= newLevel; i++) {
+                while (true) {
+                    if (preds[i].forward[i].compareAndSet(succs[i], newNode,
+                        false, false)) {
+                        break;
+                    }
+                    find(it.getKey(), seq, preds, succs);
+                    // Stop raising the tower if it is already being removed
+                    Node succ = newNode.forward[i].getReference();
+                    if (newNode.forward[i].isMarked()
+                        || !newNode.forward[i].compareAndSet(succ, succs[i],
+                            false, false)) {
+                        size.incrementAndGet();
+                        return;
+                    }
+                }
+            }
+            size.incrementAndGet();
+            return;
+        }
+    }
+
+
+    /**
+     * Removes the first occurrence of a key from the list.
+     *
+     * @param key
+     *            The key to remove.
+     * @return The removed key-value pair, or null if not found.
+     */
+    public KVPair<K, V> remove(K key) {
+        Node[] preds = newPath();
+        Node[] succs = newPath();
+
+        while (true) {
+            find(key, Long.MAX_VALUE, preds, succs);
+            Node victim = succs[1];
+            if (victim == null || victim.pair.getKey().compareTo(key) != 0) {
+                return null;
+            }
+            if (delete(victim, preds, succs)) {
+                return victim.pair;
+            }
+            // Another thread removed this node first; try the next one
+        }
+    }
+
+
+    /**
+     * Removes a KVPair with the specified value.
+     *
+     * @param val
+     *            the value of the KVPair to be removed
+     * @return returns the removed KVPair, or null if not found
+     */
+    public KVPair<K, V> removeByValue(V val) {
+        Node[] preds = newPath();
+        Node[] succs = newPath();
+
+        Node current = head.forward[1].getReference();
+        while (current != null) {
+            if (!current.forward[1].isMarked() && current.pair.getValue()
+                .equals(val)) {
+                find(current.pair.getKey(), current.seq, preds, succs);
+                if (delete(current, preds, succs)) {
+                    return current.pair;
+                }
+            }
+            current = current.forward[1].getReference();
+        }
+        return null;
+    }
+
+
+    /**
+     * Creates an array for the predecessors or successors of a position,
+     * indexed by level from 1.
+     *
+     * @return an empty array of MAX_LEVEL + 1 nodes
+     */
+    @SuppressWarnings("unchecked")
+    private Node[] newPath() {
+        return (Node[])Array.newInstance(ConcurrentSkipList.Node.class,
+            MAX_LEVEL + 1);
+    }
+
+
+    /**
+     * Logically deletes a node by marking its forward links from the top
+     * level down and then physically unlinks it.
+     *
+     * @param victim
+     *            the node to remove
+     * @param preds
+     *            scratch array for predecessors
+     * @param succs
+     *            scratch array for successors
+     * @return true if this thread marked the node at level 1
+     */
+    private boolean delete(Node victim, Node[] preds, Node[] succs) {
+        boolean[] marked = { false };
+        for (int i = victim.level; i >= 2; i--) {
+            Node succ = victim.forward[i].get(marked);
+            while (!marked[0]) {
+                victim.forward[i].compareAndSet(succ, succ, false, true);
+                succ = victim.forward[i].get(marked);
+            }
+        }
+
+        Node succ = victim.forward[1].get(marked);
+        while (true) {
+            boolean iMarkedIt = victim.forward[1].compareAndSet(succ, succ,
+                false, true);
+            succ = victim.forward[1].get(marked);
+            if (iMarkedIt) {
+                size.decrementAndGet();
+                // Let find() unlink the marked tower
+                find(victim.pair.getKey(), victim.seq, preds, succs);
+                return true;
+            }
+            else if (marked[0]) {
+                return false;
+            }
+        }
+    }
+
+
+    /**
+     * Fills in the predecessors and successors of the position (key, seq) at
+     * every level up to the top level, unlinking any marked nodes it finds
+     * along the way. Levels above it are left as they are.
+     *
+     * @param key
+     *            the key to look for
+     * @param seq
+     *            the sequence number used to break ties between equal keys
+     * @param preds
+     *            receives the last node before the position at each level
+     * @param succs
+     *            receives the first node at or after the position at each
+     *            level
+     */
+    private void find(K key, long seq, Node[] preds, Node[] succs) {
+        boolean[] marked = { false };
+        retry: while (true) {
+            Node pred = head;
+            for (int i = topLevel.get(); i >= 1; i--) {
+                Node curr = pred.forward[i].getReference();
+                while (curr != null) {
+                    Node succ = curr.forward[i].get(marked);
+                    while (marked[0]) {
+                        if (!pred.forward[i].compareAndSet(curr, succ, false,
+                            false)) {
+                            continue retry;
+                        }
+                        curr = succ;
+                        if (curr == null) {
+                            break;
+                        }
+                        succ = curr.forward[i].get(marked);
+                    }
+                    if (curr == null || curr.compareTo(key, seq) >= 0) {
+                        break;
+                    }
+                    pred = curr;
+                    curr = succ;
+                }
+                preds[i] = pred;
+                succs[i] = curr;
+            }
+            return;
+        }
+    }
+
+
+    /**
+     * A node of the ConcurrentSkipList. The mark bit on forward[i] says that
+     * the node itself has been deleted at level i.
+     */
+    private class Node {
+        private final KVPair<K, V> pair;
+        private final long seq;
+        private final int level;
+        private final AtomicMarkableReference<Node>[] forward;
+
+        /**
+         * Creates a node with empty forward links.
+         *
+         * @param tempPair
+         *            the KVPair to be stored, null for the head
+         * @param seq
+         *            the unique sequence number of the node
+         * @param level
+         *            the number of levels that the node should have
+         */
+        @SuppressWarnings("unchecked")
+        Node(KVPair<K, V> tempPair, long seq, int level) {
+            this.pair = tempPair;
+            this.seq = seq;
+            this.level = level;
+            // Add 1 to array size since we're starting at level 1
+            forward = (AtomicMarkableReference<Node>[])Array.newInstance(
+                AtomicMarkableReference.class, level + 1);
+            for (int i = 1; i <= level; i++) {
+                forward[i] = new AtomicMarkableReference<>(null, false);
+            }
+        }
+
+
+        /**
+         * Compares this node against a (key, seq) position. Equal keys are
+         * ordered by descending sequence number, so newer nodes come first.
+         *
+         * @param key
+         *            the key to compare to
+         * @param otherSeq
+         *            the sequence number to compare to
+         * @return standard values for compareTo
+         */
+        int compareTo(K key, long otherSeq) {
+            int cmp = pair.getKey().compareTo(key);
+            return cmp != 0 ? cmp : Long.compare(otherSeq, seq);
+        }
+    }
+
+
+    /**
+     * Weakly consistent iterator: it never throws because of concurrent
+     * modification and skips nodes that were deleted before it reached them.
+     */
+    private class ConcurrentIterator implements Iterator<KVPair<K, V>> {
+        private Node next;
+
+        /**
+         * Starts the iterator at the first live node.
+         */
+        ConcurrentIterator() {
+            next = skipMarked(head.forward[1].getReference());
+        }
+
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+
+        @Override
+        public KVPair<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            KVPair<K, V> elem = next.pair;
+            next = skipMarked(next.forward[1].getReference());
+            return elem;
+        }
+
+
+        /**
+         * Advances past nodes that are marked for deletion.
+         *
+         * @param node
+         *            the node to start from
+         * @return the first unmarked node, or null
+         */
+        private Node skipMarked(Node node) {
+            while (node != null && node.forward[1].isMarked()) {
+                node = node.forward[1].getReference();
+            }
+            return node;
+        }
+    }
+
+    /**
+     * Returns a weakly consistent iterator over elements of the list.
+     *
+     * @return An iterator over key-value pairs.
+     */
+    @Override
+    public Iterator<KVPair<K, V>> iterator() {
+        return new ConcurrentIterator();
+    }
+}
@@ -0,0 +1,248 @@
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import student.TestCase;
+
+/**
+ * The test class for ConcurrentSkipList
+ *
+ * @author Rushil, Kush
+ * @version 1.0
+ */
+public class ConcurrentSkipListTest extends TestCase {
+    private ConcurrentSkipList<Integer, String> skipList;
+
+    /**
+     * Sets up the variables for use in this class
+     */
+    public void setUp() {
+        skipList = new ConcurrentSkipList<>();
+    }
+
+
+    /**
+     * Tests for null inserts
+     */
+    public void testInsertNullKVPair() {
+        try {
+            skipList.insert(null);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+    }
+
+
+    /**
+     * Tests for inserting and searching
+     */
+    public void testInsertAndSearch() {
+        skipList.insert(new KVPair<>(20, "Value20"));
+        skipList.insert(new KVPair<>(10, "Value10"));
+        skipList.insert(new KVPair<>(30, "Value30"));
+
+        assertEquals("Value10", skipList.search(10).get(0).getValue());
+        assertEquals("Value20", skipList.search(20).get(0).getValue());
+        assertEquals("Value30", skipList.search(30).get(0).getValue());
+        assertTrue(skipList.search(99).isEmpty());
+        assertEquals(3, skipList.size());
+    }
+
+
+    /**
+     * Tests that duplicates are kept newest first and removed newest first,
+     * the same as SkipList
+     */
+    public void testDuplicateKeys() {
+        SkipList<Integer, String> reference = new SkipList<>();
+        for (String value : new String[] { "A", "B", "C" }) {
+            skipList.insert(new KVPair<>(5, value));
+            reference.insert(new KVPair<>(5, value));
+        }
+        skipList.insert(new KVPair<>(4, "D"));
+        skipList.insert(new KVPair<>(6, "E"));
+
+        assertEquals(3, skipList.search(5).size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(reference.search(5).get(i).getValue(), skipList
+                .search(5).get(i).getValue());
+        }
+        assertEquals("C", skipList.search(5).get(0).getValue());
+
+        Iterator<KVPair<Integer, String>> iterator = skipList.iterator();
+        assertEquals("D", iterator.next().getValue());
+        assertEquals("C", iterator.next().getValue());
+
+        assertEquals(reference.remove(5).getValue(), skipList.remove(5)
+            .getValue());
+        assertEquals("B", skipList.remove(5).getValue());
+        assertEquals("A", skipList.remove(5).getValue());
+        skipList.remove(4);
+        skipList.remove(6);
+        assertNull(skipList.remove(5));
+        assertEquals(0, skipList.size());
+    }
+
+
+    /**
+     * Tests remove by value
+     */
+    public void testRemoveByValue() {
+        skipList.insert(new KVPair<>(1, "A"));
+        skipList.insert(new KVPair<>(1, "B"));
+        assertEquals("B", skipList.removeByValue("B").getValue());
+        assertNull(skipList.removeByValue("B"));
+        assertEquals("A", skipList.search(1).get(0).getValue());
+    }
+
+
+    /**
+     * Tests the random level method
+     */
+    public void testRandomLevel() {
+        for (int i = 0; i < 1000; i++) {
+            int level = skipList.randomLevel();
+            assertTrue(level >= 1);
+            assertTrue(level <= ConcurrentSkipList.MAX_LEVEL);
+        }
+    }
+
+
+    /**
+     * Tests that the top level grows with the list, stays far below
+     * MAX_LEVEL and that searches starting there find every key
+     */
+    public void testTopLevel() {
+        assertEquals(1, skipList.getTopLevel());
+        for (int i = 0; i < 1000; i++) {
+            skipList.insert(new KVPair<>(i, "v" + i));
+        }
+        int top = skipList.getTopLevel();
+        assertTrue(top > 1);
+        assertTrue(top < ConcurrentSkipList.MAX_LEVEL);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(1, skipList.search(i).size());
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertNotNull(skipList.remove(i));
+        }
+        assertEquals(top, skipList.getTopLevel());
+        assertEquals(0, skipList.size());
+    }
+
+
+    /**
+     * Tests that the iterator returns keys in order and skips removed ones
+     */
+    public void testIterator() {
+        for (int i = 10; i >= 1; i--) {
+            skipList.insert(new KVPair<>(i, "V" + i));
+        }
+        skipList.remove(4);
+
+        Iterator<KVPair<Integer, String>> iterator = skipList.iterator();
+        int expected = 1;
+        while (iterator.hasNext()) {
+            if (expected == 4) {
+                expected++;
+            }
+            assertEquals(expected, iterator.next().getKey(), 0.01);
+            expected++;
+        }
+        assertEquals(11, expected);
+    }
+
+
+    /**
+     * Tests that readers and writers on several threads leave the list
+     * consistent
+     *
+     * @throws InterruptedException
+     */
+    public void testConcurrentInsertRemove() throws InterruptedException {
+        final int threads = 4;
+        final int perThread = 2000;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int base = t * perThread;
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    skipList.insert(new KVPair<>(base + i, "V"));
+                    skipList.search(base + i / 2);
+                }
+                // Remove every even key this thread inserted
+                for (int i = 0; i < perThread; i += 2) {
+                    skipList.remove(base + i);
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals(threads * perThread / 2, skipList.size());
+        int count = 0;
+        int last = -1;
+        for (KVPair<Integer, String> pair : skipList) {
+            assertTrue(pair.getKey() > last);
+            assertEquals(1, pair.getKey() % 2);
+            last = pair.getKey();
+            count++;
+        }
+        assertEquals(threads * perThread / 2, count);
+    }
+
+
+    /**
+     * Tests that threads inserting and removing the same keys never lose a
+     * pair. Every remove follows an insert of the same key by the same
+     * thread, so it must always find something to remove.
+     *
+     * @throws InterruptedException
+     */
+    public void testContendedKeys() throws InterruptedException {
+        final int threads = 4;
+        final int keys = 64;
+        final int rounds = 200;
+        final AtomicInteger missed = new AtomicInteger();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final String value = "T" + t;
+            workers[t] = new Thread(() -> {
+                for (int r = 0; r < rounds; r++) {
+                    for (int k = 0; k < keys; k++) {
+                        skipList.insert(new KVPair<>(k, value));
+                    }
+                    for (int k = keys - 1; k >= 0; k--) {
+                        if (skipList.remove(k) == null) {
+                            missed.incrementAndGet();
+                        }
+                    }
+                }
+                // Leave one pair per key behind
+                for (int k = 0; k < keys; k++) {
+                    skipList.insert(new KVPair<>(k, value));
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals(0, missed.get());
+        assertEquals(threads * keys, skipList.size());
+        int count = 0;
+        int last = -1;
+        for (KVPair<Integer, String> pair : skipList) {
+            assertTrue(pair.getKey() >= last);
+            last = pair.getKey();
+            count++;
+        }
+        assertEquals(threads * keys, count);
+        for (int k = 0; k < keys; k++) {
+            assertEquals(threads, skipList.search(k).size());
+        }
+    }
+}
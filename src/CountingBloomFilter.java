@@ -0,0 +1,221 @@
+/**
+ * A counting Bloom filter. Each key bumps a few counters picked by its hash;
+ * a key is possibly present only if all of its counters are above zero, so
+ * a miss is certain and a hit may be a false positive. Unlike a plain Bloom
+ * filter, keys that were added can be removed again by lowering their
+ * counters. Counters stop at 255; a counter that got there is never lowered
+ * again, which can only cause false positives, never false negatives.
+ *
+ * @author Rushil, Kush
+ *
+ * @version 1.0
+ * @param <K>
+ *            Key
+ */
+public class CountingBloomFilter<K> {
+
+    private static final int MAX_COUNT = 255; // counters saturate here
+
+    private byte[] counters; // one unsigned counter per slot
+    private int hashes; // counters touched per key
+    private int size; // keys added and not removed
+
+    /**
+     * Creates a filter sized so that it has about the given false positive
+     * rate once it holds the expected number of keys.
+     *
+     * @param expectedKeys
+     *            the number of keys the filter is sized for
+     * @param falsePositiveRate
+     *            the wanted false positive rate at that size
+     * @throws IllegalArgumentException
+     *             if expectedKeys is less than 1 or the rate is not
+     *             strictly between 0 and 1
+     */
+    public CountingBloomFilter(int expectedKeys, double falsePositiveRate) {
+        if (expectedKeys < 1) {
+            throw new IllegalArgumentException("Illegal Capacity: "
+                + expectedKeys);
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("Illegal Rate: "
+                + falsePositiveRate);
+        }
+        // m = -n ln p / (ln 2)^2 and k = m / n ln 2 are the optimal sizes
+        double ln2 = Math.log(2);
+        long slots = (long)Math.ceil(-expectedKeys * Math.log(
+            falsePositiveRate) / (ln2 * ln2));
+        if (slots > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Filter too large: " + slots);
+        }
+        counters = new byte[(int)Math.max(slots, 8)];
+        hashes = (int)Math.max(1, Math.round((double)counters.length
+            / expectedKeys * ln2));
+    }
+
+
+    /**
+     * Adds a key.
+     *
+     * @param key
+     *            the key to add
+     * @throws IllegalArgumentException
+     *             if key is null
+     */
+    public void add(K key) {
+        int hash = hash(key);
+        int step = step(hash);
+        for (int i = 0; i < hashes; i++) {
+            int slot = slot(hash, step, i);
+            int count = counters[slot] & 0xFF;
+            if (count < MAX_COUNT) {
+                counters[slot] = (byte)(count + 1);
+            }
+        }
+        size++;
+    }
+
+
+    /**
+     * Removes a key that was added before. Removing a key that was never
+     * added can make the filter miss other keys, so only call this after the
+     * key was really removed from the set the filter tracks.
+     *
+     * @param key
+     *            the key to remove
+     * @throws IllegalArgumentException
+     *             if key is null
+     */
+    public void remove(K key) {
+        int hash = hash(key);
+        int step = step(hash);
+        for (int i = 0; i < hashes; i++) {
+            int slot = slot(hash, step, i);
+            int count = counters[slot] & 0xFF;
+            if (count > 0 && count < MAX_COUNT) {
+                counters[slot] = (byte)(count - 1);
+            }
+        }
+        size--;
+    }
+
+
+    /**
+     * Checks whether a key may be in the filter.
+     *
+     * @param key
+     *            the key to check
+     * @return false if the key is certainly absent, true if it may be there
+     * @throws IllegalArgumentException
+     *             if key is null
+     */
+    public boolean mightContain(K key) {
+        int hash = hash(key);
+        int step = step(hash);
+        for (int i = 0; i < hashes; i++) {
+            if (counters[slot(hash, step, i)] == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Drops every key.
+     */
+    public void clear() {
+        java.util.Arrays.fill(counters, (byte)0);
+        size = 0;
+    }
+
+
+    /**
+     * Returns the number of keys added and not removed.
+     *
+     * @return the number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Returns the number of counters.
+     *
+     * @return the number of counters
+     */
+    public int getCounterCount() {
+        return counters.length;
+    }
+
+
+    /**
+     * Returns the number of counters each key touches.
+     *
+     * @return the number of hashes
+     */
+    public int getHashCount() {
+        return hashes;
+    }
+
+
+    /**
+     * Estimates the chance that a key that was never added is reported as
+     * possibly present, (1 - e^(-kn/m))^k for the current number of keys.
+     *
+     * @return the estimated false positive rate
+     */
+    public double falsePositiveRate() {
+        double filled = 1 - Math.exp(-(double)hashes * size
+            / counters.length);
+        return Math.pow(filled, hashes);
+    }
+
+
+    /**
+     * Spreads the bits of a key's hash code.
+     *
+     * @param key
+     *            the key
+     * @return the mixed hash
+     */
+    private int hash(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key is null");
+        }
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+
+    /**
+     * Derives the second hash for double hashing. It is odd so the probes
+     * of one key do not repeat early.
+     *
+     * @param hash
+     *            the mixed hash
+     * @return the step between probes
+     */
+    private int step(int hash) {
+        int h = hash * 0x85EBCA6B;
+        return (h ^ (h >>> 13)) | 1;
+    }
+
+
+    /**
+     * Returns the counter of the i-th probe.
+     *
+     * @param hash
+     *            the mixed hash
+     * @param step
+     *            the step between probes
+     * @param i
+     *            the probe number
+     * @return the counter index
+     */
+    private int slot(int hash, int step, int i) {
+        return (int)(((hash + (long)i * step) & 0xFFFFFFFFL)
+            % counters.length);
+    }
+}
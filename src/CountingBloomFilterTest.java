@@ -0,0 +1,122 @@
+import student.TestCase;
+
+/**
+ * The test class for CountingBloomFilter
+ *
+ * @author Rushil, Kush
+ * @version 1.0
+ */
+public class CountingBloomFilterTest extends TestCase {
+    private CountingBloomFilter<String> filter;
+
+    /**
+     * Sets up the variables for use in this class
+     */
+    public void setUp() {
+        filter = new CountingBloomFilter<>(1000, 0.01);
+    }
+
+
+    /**
+     * Tests bad arguments
+     */
+    public void testIllegalArguments() {
+        try {
+            new CountingBloomFilter<String>(0, 0.01);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+        try {
+            new CountingBloomFilter<String>(10, 1);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+        try {
+            new CountingBloomFilter<String>(10, Double.NaN);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+        try {
+            filter.add(null);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+    }
+
+
+    /**
+     * Tests that added keys are always found and removed keys go away
+     */
+    public void testAddAndRemove() {
+        assertEquals(7, filter.getHashCount());
+        assertEquals(9586, filter.getCounterCount());
+        assertFalse(filter.mightContain("a"));
+        filter.add("a");
+        filter.add("a");
+        filter.add("b");
+        assertEquals(3, filter.size());
+        assertTrue(filter.mightContain("a"));
+        filter.remove("a");
+        assertTrue(filter.mightContain("a"));
+        filter.remove("a");
+        assertFalse(filter.mightContain("a"));
+        assertTrue(filter.mightContain("b"));
+        filter.clear();
+        assertEquals(0, filter.size());
+        assertFalse(filter.mightContain("b"));
+        assertEquals(0.0, filter.falsePositiveRate(), 0.0);
+    }
+
+
+    /**
+     * Tests that the measured false positive rate is near the estimate
+     */
+    public void testFalsePositiveRate() {
+        for (int i = 0; i < 1000; i++) {
+            filter.add("in" + i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain("in" + i));
+        }
+        assertEquals(0.01, filter.falsePositiveRate(), 0.002);
+        int falsePositives = 0;
+        for (int i = 0; i < 100000; i++) {
+            if (filter.mightContain("out" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2000);
+
+        for (int i = 0; i < 1000; i++) {
+            filter.remove("in" + i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(filter.mightContain("in" + i));
+        }
+    }
+
+
+    /**
+     * Tests that saturated counters are never lowered
+     */
+    public void testSaturation() {
+        CountingBloomFilter<Integer> small = new CountingBloomFilter<>(1,
+            0.5);
+        for (int i = 0; i < 300; i++) {
+            small.add(7);
+        }
+        for (int i = 0; i < 300; i++) {
+            small.remove(7);
+        }
+        assertTrue(small.mightContain(7));
+        assertEquals(0, small.size());
+    }
+}
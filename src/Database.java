@@ -7,14 +7,33 @@ import java.util.Iterator;
  * @version 1.0
  */
 public class Database {
-    private SkipList<String, Point> skipList;
+    private NameIndex<String, Point> skipList;
     private PRQuadtree quadtree;
+    // name search results, null unless enableSearchCache was called
+    private ClockCache<String, MyArrayList<KVPair<String, Point>>>
+        searchCache;
+    // names in the index, null unless enableNameFilter was called
+    private CountingBloomFilter<String> nameFilter;
+    // exact-match copy of the index, null unless enableHashIndex was called
+    private HashIndex<String, Point> hashIndex;
 
     /**
      * The constructor for database
      */
     public Database() {
-        skipList = new SkipList<>();
+        this(new SkipList<String, Point>());
+    }
+
+
+    /**
+     * Constructor that uses the given index for point names instead of the
+     * default SkipList
+     * 
+     * @param names
+     *            the empty name index to use
+     */
+    public Database(NameIndex<String, Point> names) {
+        skipList = names != null ? names : new SkipList<String, Point>();
         quadtree = new PRQuadtree();
     }
 
@@ -61,6 +80,13 @@ public class Database {
         KVPair<String, Point> pair = new KVPair<String, Point>(name, point);
         // Insert into skipList
         skipList.insert(pair);
+        invalidate(name);
+        if (nameFilter != null) {
+            nameFilter.add(name);
+        }
+        if (hashIndex != null) {
+            hashIndex.insert(pair);
+        }
         // Insert into quadTree
         quadtree.insert(point.getX(), point.getY(), point.getName());
         System.out.println("Point inserted: " + point.toString());
@@ -79,8 +105,18 @@ public class Database {
             System.out.println("Point not removed: " + name);
             return;
         }
+        if ((nameFilter != null && !nameFilter.mightContain(name))
+            || (hashIndex != null && !hashIndex.contains(name))) {
+            System.out.println("Point not removed: " + name);
+            return;
+        }
         KVPair<String, Point> pair = skipList.remove(name);
         if (pair != null) {
+            invalidate(name);
+            forget(name);
+            if (hashIndex != null) {
+                hashIndex.removePair(pair);
+            }
             Point p = pair.getValue();
             quadtree.remove(p.getX(), p.getY());
             System.out.println("Point removed: " + pair.toString());
@@ -113,6 +149,11 @@ public class Database {
         KVPair<String, Point> removedPoint = skipList.removeByValue(pair
             .getValue());
         if (removedPoint != null) {
+            invalidate(removedPoint.getKey());
+            forget(removedPoint.getKey());
+            if (hashIndex != null) {
+                hashIndex.removePair(removedPoint);
+            }
             quadtree.remove(point.getX(), point.getY());
             System.out.println("Point removed: " + removedPoint.toString());
             // System.out.println("Point removed: (" + x + ", " + y + ")");
@@ -180,7 +221,23 @@ public class Database {
      *            name of the Rectangle to be searched for
      */
     public void search(String name) {
-        MyArrayList<KVPair<String, Point>> results = skipList.search(name);
+        if (nameFilter != null && name != null && !nameFilter.mightContain(
+            name)) {
+            System.out.println("Point not found: " + name);
+            return;
+        }
+        MyArrayList<KVPair<String, Point>> results = null;
+        if (searchCache != null) {
+            results = searchCache.get(name);
+        }
+        if (results == null) {
+            results = hashIndex != null
+                ? hashIndex.search(name)
+                : skipList.search(name);
+            if (searchCache != null && name != null) {
+                searchCache.put(name, results);
+            }
+        }
 
         // Check if there are any results and print them
         if (results.size() > 0) {
@@ -194,6 +251,119 @@ public class Database {
     }
 
 
+    /**
+     * Keeps the results of name searches in a CLOCK cache of the given size,
+     * so names that are looked up again and again skip the descent of the
+     * name index. Inserts and removes drop the cached result of their name.
+     * 
+     * @param capacity
+     *            the most names to keep results for
+     * @throws IllegalArgumentException
+     *             if capacity is less than 1
+     */
+    public void enableSearchCache(int capacity) {
+        searchCache = new ClockCache<>(capacity);
+    }
+
+
+    /**
+     * Gets the cache of name search results
+     * 
+     * @return the cache, or null if caching is off
+     */
+    public ClockCache<String, MyArrayList<KVPair<String, Point>>>
+        getSearchCache() {
+        return searchCache;
+    }
+
+
+    /**
+     * Drops the cached search result for a name
+     * 
+     * @param name
+     *            the name whose entries changed
+     */
+    private void invalidate(String name) {
+        if (searchCache != null) {
+            searchCache.invalidate(name);
+        }
+    }
+
+
+    /**
+     * Keeps a counting Bloom filter over the names in the index, so searches
+     * and removes by a name that is not there are answered without a
+     * descent of the name index. Names already in the index are added.
+     * 
+     * @param expectedNames
+     *            the number of names the filter is sized for
+     * @param falsePositiveRate
+     *            the wanted false positive rate at that size
+     * @throws IllegalArgumentException
+     *             if expectedNames is less than 1 or the rate is not
+     *             strictly between 0 and 1
+     */
+    public void enableNameFilter(int expectedNames, double falsePositiveRate) {
+        nameFilter = new CountingBloomFilter<>(expectedNames,
+            falsePositiveRate);
+        for (KVPair<String, Point> pair : skipList) {
+            nameFilter.add(pair.getKey());
+        }
+    }
+
+
+    /**
+     * Gets the filter over the names in the index
+     * 
+     * @return the filter, or null if it is off
+     */
+    public CountingBloomFilter<String> getNameFilter() {
+        return nameFilter;
+    }
+
+
+    /**
+     * Keeps a hash index from each name to its points next to the name
+     * index, so searches and removes by name find their entries in O(1)
+     * probes. Ordered work such as dump still uses the name index. Entries
+     * already in the index are added.
+     */
+    public void enableHashIndex() {
+        hashIndex = new HashIndex<>(skipList.size());
+        // The index lists equal names newest first, so add them backwards
+        MyArrayList<KVPair<String, Point>> pairs = new MyArrayList<>();
+        for (KVPair<String, Point> pair : skipList) {
+            pairs.add(pair);
+        }
+        for (int i = pairs.size() - 1; i >= 0; i--) {
+            hashIndex.insert(pairs.get(i));
+        }
+    }
+
+
+    /**
+     * Gets the hash index over the names
+     * 
+     * @return the hash index, or null if it is off
+     */
+    public HashIndex<String, Point> getHashIndex() {
+        return hashIndex;
+    }
+
+
+    /**
+     * Takes a removed name out of the name filter
+     * 
+     * @param name
+     *            the name of the removed entry
+     */
+    private void forget(String name) {
+        if (nameFilter != null) {
+            nameFilter.remove(name);
+        }
+    }
+
+
     /**
      * Prints out the aspects of quadtree and skiplist
      */
@@ -216,9 +386,22 @@ public class Database {
     /**
      * Gets the skiplist instance
      * 
-     * @return skiplist instance
+     * @return skiplist instance, or null if another name index is in use
      */
     public SkipList<String, Point> getSkipList() {
+        if (skipList instanceof SkipList) {
+            return (SkipList<String, Point>)skipList;
+        }
+        return null;
+    }
+
+
+    /**
+     * Gets the index used for point names
+     * 
+     * @return name index instance
+     */
+    public NameIndex<String, Point> getNameIndex() {
         return skipList;
     }
 }
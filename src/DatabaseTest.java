@@ -165,4 +165,156 @@ public class DatabaseTest extends TestCase {
     public void testGetSkipList() {
         assertEquals(list, db.getSkipList());
     }
+
+
+    /**
+     * Tests a database that uses an ArraySkipList for point names
+     */
+    public void testArraySkipListIndex() {
+        Database arrayDb = new Database(new ArraySkipList<String, Point>());
+        assertNull(arrayDb.getSkipList());
+        arrayDb.insert("apple", 100, 100);
+        arrayDb.insert("apple", 200, 200);
+        arrayDb.insert("pear", 300, 300);
+        assertEquals(3, arrayDb.getNameIndex().size());
+        arrayDb.remove(200, 200);
+        arrayDb.remove("pear");
+        assertEquals(1, arrayDb.getNameIndex().size());
+        assertEquals(new Point("apple", 100, 100), arrayDb.getNameIndex()
+            .search("apple").get(0).getValue());
+    }
+
+
+    /**
+     * Tests that cached search results stay correct across changes
+     */
+    public void testSearchCache() {
+        assertNull(db.getSearchCache());
+        db.enableSearchCache(4);
+        db.insert("truck", 10, 10);
+        systemOut().clearHistory();
+        db.search("truck");
+        db.search("truck");
+        assertEquals(1, db.getSearchCache().getHits());
+        assertEquals(1, db.getSearchCache().getMisses());
+        assertFuzzyEquals("Found (truck, 10, 10)\nFound (truck, 10, 10)",
+            systemOut().getHistory());
+
+        db.insert("truck", 20, 20);
+        systemOut().clearHistory();
+        db.search("truck");
+        assertTrue(systemOut().getHistory().contains("20, 20"));
+
+        db.remove(20, 20);
+        db.remove("truck");
+        systemOut().clearHistory();
+        db.search("truck");
+        assertFuzzyEquals("Point not found: truck", systemOut().getHistory());
+        assertEquals(1, db.getSearchCache().getHits());
+    }
+
+
+    /**
+     * Tests that the name filter answers misses without a search of the
+     * name index
+     */
+    public void testNameFilter() {
+        final int[] searches = new int[1];
+        db = new Database(new SkipList<String, Point>() {
+            @Override
+            public MyArrayList<KVPair<String, Point>> search(String key) {
+                searches[0]++;
+                return super.search(key);
+            }
+        });
+        db.insert("truck", 10, 10);
+        assertNull(db.getNameFilter());
+        db.enableNameFilter(100, 0.01);
+        assertEquals(1, db.getNameFilter().size());
+        db.insert("car", 20, 20);
+        systemOut().clearHistory();
+        db.search("truck");
+        db.search("car");
+        assertEquals(2, searches[0]);
+        db.search("boat");
+        db.remove("boat");
+        assertEquals(2, searches[0]);
+        assertFuzzyEquals("Found (truck, 10, 10)\nFound (car, 20, 20)\n"
+            + "Point not found: boat\nPoint not removed: boat", systemOut()
+                .getHistory());
+
+        db.remove("truck");
+        db.remove(20, 20);
+        assertEquals(0, db.getNameFilter().size());
+        assertFalse(db.getNameFilter().mightContain("truck"));
+        assertFalse(db.getNameFilter().mightContain("car"));
+        systemOut().clearHistory();
+        db.search("car");
+        assertEquals(2, searches[0]);
+        assertFuzzyEquals("Point not found: car", systemOut().getHistory());
+    }
+
+
+    /**
+     * Tests that the hash index answers name searches and stays in step
+     * with the name index
+     */
+    public void testHashIndex() {
+        final int[] searches = new int[1];
+        db = new Database(new SkipList<String, Point>() {
+            @Override
+            public MyArrayList<KVPair<String, Point>> search(String key) {
+                searches[0]++;
+                return super.search(key);
+            }
+        });
+        db.insert("truck", 10, 10);
+        db.insert("truck", 30, 30);
+        assertNull(db.getHashIndex());
+        db.enableHashIndex();
+        db.insert("car", 20, 20);
+        assertEquals(3, db.getHashIndex().size());
+        systemOut().clearHistory();
+        db.search("truck");
+        db.search("boat");
+        db.remove("boat");
+        assertFuzzyEquals("Found (truck, 30, 30)\nFound (truck, 10, 10)\n"
+            + "Point not found: boat\nPoint not removed: boat", systemOut()
+                .getHistory());
+        assertEquals(0, searches[0]);
+
+        db.remove("truck");
+        db.remove(20, 20);
+        assertEquals(1, db.getHashIndex().size());
+        assertEquals(db.getNameIndex().size(), db.getHashIndex().size());
+        systemOut().clearHistory();
+        db.search("truck");
+        db.search("car");
+        assertFuzzyEquals("Found (truck, 10, 10)\nPoint not found: car",
+            systemOut().getHistory());
+    }
+
+
+    /**
+     * Tests the hash index next to a name index that returns new pairs on
+     * every read, so removed pairs must be matched by value
+     */
+    public void testHashIndexWithArraySkipList() {
+        db = new Database(new ArraySkipList<String, Point>());
+        db.insert("apple", 10, 10);
+        db.insert("apple", 20, 20);
+        db.insert("pear", 30, 30);
+        db.enableHashIndex();
+        db.remove("apple");
+        db.remove(30, 30);
+        assertEquals(1, db.getHashIndex().size());
+        assertEquals(db.getNameIndex().size(), db.getHashIndex().size());
+        db.remove("apple");
+        assertEquals(0, db.getHashIndex().size());
+        systemOut().clearHistory();
+        db.search("apple");
+        db.search("pear");
+        assertFuzzyEquals("Point not found: apple\nPoint not found: pear",
+            systemOut().getHistory());
+    }
 }
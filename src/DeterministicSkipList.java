@@ -0,0 +1,541 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A deterministic 1-2-3 SkipList. No random levels are drawn: between any
+ * two neighbouring nodes of height h + 1 or more there are always 1, 2 or 3
+ * nodes of height exactly h. That keeps the height at most about log2(n)
+ * levels, so search, insert and remove are O(log n) in the worst case and
+ * not only in expectation.
+ *
+ * The list uses the linked representation where every node has a right and
+ * a down link and there is one node per level a key appears on. Each level
+ * ends with a node holding infinity, and the element of a node is the
+ * largest element among the nodes below it (its gap). Insert walks down
+ * once and splits every gap of 3 it is about to enter; remove walks down
+ * once and grows every gap of 1 it is about to enter by borrowing from or
+ * merging with a neighbour gap. Neither ever has to walk back up.
+ *
+ * Duplicate keys are told apart by an insertion number, and like SkipList
+ * the newest duplicate comes first and is the one remove takes.
+ *
+ * @author Rushil, Kush
+ *
+ * @version 1.0
+ * @param <K>
+ *            Key
+ * @param <V>
+ *            Value
+ */
+public class DeterministicSkipList<K extends Comparable<K>, V>
+    implements NameIndex<K, V> {
+
+    private Node header; // top node of the list, holds infinity
+    private Node bottom; // below the lowest level; holds the key of an insert
+    private Node tail; // right of the infinity node of every level
+
+    private int size; // number of entries in the Skip List
+    private long nextSeq; // insertion number of the next entry
+
+    /**
+     * Constructs an empty DeterministicSkipList.
+     */
+    public DeterministicSkipList() {
+        bottom = new Node(null, 0, null, null, null);
+        bottom.right = bottom;
+        bottom.down = bottom;
+        tail = new Node(null, 0, null, null, null);
+        tail.right = tail;
+        header = new Node(null, 0, null, tail, bottom);
+        size = 0;
+        nextSeq = 0;
+    }
+
+
+    /**
+     * Returns the number of elements in the DeterministicSkipList.
+     *
+     * @return The size of the DeterministicSkipList.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Returns the number of levels, counting the level that holds the
+     * entries.
+     *
+     * @return the height of the list
+     */
+    public int getHeight() {
+        int height = 0;
+        for (Node n = header; n != bottom; n = n.down) {
+            height++;
+        }
+        return height;
+    }
+
+
+    /**
+     * Searches for a key in the list and returns all associated values.
+     *
+     * @param key
+     *            The key to search for.
+     * @return A list of key-value pairs with the specified key.
+     */
+    @Override
+    public MyArrayList<KVPair<K, V>> search(K key) {
+        MyArrayList<KVPair<K, V>> result = new MyArrayList<>();
+        if (key == null) {
+            return result;
+        }
+        Node current = first(key);
+        while (current.key != null && current.key.compareTo(key) == 0) {
+            result.add(current.pair);
+            current = current.right;
+        }
+        return result;
+    }
+
+
+    /**
+     * Inserts the KVPair in front of any entries with the same key.
+     *
+     * @param it
+     *            The key-value pair to insert.
+     * @throws IllegalArgumentException
+     *             if KV Pair or its key is null.
+     */
+    @Override
+    public void insert(KVPair<K, V> it) {
+        if (it == null || it.getKey() == null) {
+            throw new IllegalArgumentException("KV pair is null");
+        }
+
+        // The bottom node holds the new element, so at the lowest level the
+        // split below inserts it
+        bottom.key = it.getKey();
+        bottom.seq = nextSeq++;
+        bottom.pair = it;
+
+        Node current = header;
+        while (current != bottom) {
+            while (compare(current, bottom) < 0) {
+                current = current.right;
+            }
+            // A gap of 3 (or the spot for the new entry): raise the middle
+            Node third = current.down.right.right;
+            if (compare(third, current) < 0) {
+                current.right = new Node(current.key, current.seq,
+                    current.down == bottom ? current.pair : null,
+                    current.right, third);
+                current.copyFrom(current.down.right);
+            }
+            else {
+                current = current.down;
+            }
+        }
+        bottom.key = null;
+        bottom.pair = null;
+
+        // The top level has more than one node, so add a level above it
+        if (header.right != tail) {
+            header = new Node(null, 0, null, tail, header);
+        }
+        size++;
+    }
+
+
+    /**
+     * Removes the newest entry with a key from the list.
+     *
+     * @param key
+     *            The key to remove.
+     * @return The removed key-value pair, or null if not found.
+     */
+    @Override
+    public KVPair<K, V> remove(K key) {
+        if (key == null) {
+            return null;
+        }
+        Node node = first(key);
+        if (node.key == null || node.key.compareTo(key) != 0) {
+            return null;
+        }
+        return delete(node.key, node.seq);
+    }
+
+
+    /**
+     * Removes a KVPair with the specified value.
+     *
+     * @param val
+     *            the value of the KVPair to be removed
+     * @return returns the removed KVPair, or null if not found
+     */
+    @Override
+    public KVPair<K, V> removeByValue(V val) {
+        for (Node n = lowest(); n.key != null; n = n.right) {
+            if (n.pair.getValue().equals(val)) {
+                return delete(n.key, n.seq);
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Prints out the DeterministicSkipList in the same format as
+     * SkipList.dump(). The depth of an entry is the number of levels its
+     * element appears on.
+     */
+    @Override
+    public void dump() {
+        System.out.println("SkipList dump:");
+        if (size == 0) {
+            System.out.println("Node has depth 1, Value (null)");
+            System.out.println("SkipList size is: 0");
+            return;
+        }
+
+        // Each upper level is in order, so one merge walk per level finds
+        // the entries it holds
+        int[] depths = new int[size];
+        for (Node level = header; level.down != bottom; level = level.down) {
+            int index = 0;
+            Node entry = lowest();
+            for (Node n = level; n.key != null; n = n.right) {
+                while (compare(entry, n) < 0) {
+                    entry = entry.right;
+                    index++;
+                }
+                depths[index]++;
+            }
+        }
+
+        System.out.println("Node has depth " + getHeight() + ", value null");
+        int index = 0;
+        for (Node n = lowest(); n.key != null; n = n.right) {
+            System.out.println("Node has depth " + (depths[index++] + 1)
+                + ", value " + n.pair.toString());
+        }
+        System.out.println("SkipList size is: " + size);
+    }
+
+
+    /**
+     * Removes the entry with the given key and insertion number. On the way
+     * down every node the walk is about to enter gets at least 3 nodes
+     * below it, so taking one away never breaks the gap invariant.
+     *
+     * @param key
+     *            the key of the entry
+     * @param seq
+     *            the insertion number of the entry
+     * @return the removed key-value pair, or null if not found
+     */
+    private KVPair<K, V> delete(K key, long seq) {
+        // Nodes above the entry that hold its element; they get the element
+        // before it once it is gone
+        MyArrayList<Node> matches = new MyArrayList<>();
+        Node parent = header;
+        KVPair<K, V> removed = null;
+
+        while (parent.down != bottom) {
+            Node child = parent.down;
+            while (compare(child, key, seq) < 0) {
+                child = child.right;
+            }
+
+            if (child.down == bottom) {
+                if (compare(child, key, seq) == 0) {
+                    removed = child.pair;
+                    unlinkEntry(parent, child, matches);
+                    size--;
+                }
+                break;
+            }
+
+            if (childCount(child) == 2) {
+                child = widen(parent, child);
+            }
+            if (compare(child, key, seq) == 0) {
+                matches.add(child);
+            }
+            parent = child;
+        }
+
+        // Drop top levels that are down to one node
+        while (header.down != bottom && header.down.right == tail) {
+            header = header.down;
+        }
+        return removed;
+    }
+
+
+    /**
+     * Takes an entry out of the lowest level. The parent has at least 3
+     * nodes below it, or 2 if it is the header.
+     *
+     * @param parent
+     *            the node above the entry's gap
+     * @param entry
+     *            the node of the entry
+     * @param matches
+     *            the upper nodes that hold the entry's element, parent
+     *            among them if it does
+     */
+    private void unlinkEntry(Node parent, Node entry,
+        MyArrayList<Node> matches) {
+        if (compare(entry, parent) != 0) {
+            // Not the last of the gap: take over the next node's contents,
+            // since nothing above points down to that one
+            Node next = entry.right;
+            entry.copyFrom(next);
+            entry.pair = next.pair;
+            entry.right = next.right;
+            return;
+        }
+
+        // The last of the gap: unlink it and let the nodes above hold the
+        // element before it instead
+        Node before = parent.down;
+        while (before.right != entry) {
+            before = before.right;
+        }
+        before.right = entry.right;
+        for (int i = 0; i < matches.size(); i++) {
+            matches.get(i).copyFrom(before);
+        }
+    }
+
+
+    /**
+     * Gives a node with a gap of 1 (2 nodes below it) a bigger gap, by
+     * borrowing a node from the gap of a neighbour under the same parent or
+     * by merging with that neighbour. The parent's element never changes.
+     *
+     * @param parent
+     *            the node above child
+     * @param child
+     *            the node about to be entered
+     * @return the node to enter instead of child
+     */
+    private Node widen(Node parent, Node child) {
+        if (compare(child, parent) != 0) {
+            Node next = child.right;
+            if (childCount(next) >= 3) {
+                // Borrow the first node below next
+                child.copyFrom(next.down);
+                next.down = next.down.right;
+                return child;
+            }
+            // Merge next into child
+            child.copyFrom(next);
+            child.right = next.right;
+            return child;
+        }
+
+        // child is the last under parent, so use the neighbour before it
+        Node before = parent.down;
+        while (before.right != child) {
+            before = before.right;
+        }
+        if (childCount(before) >= 3) {
+            // Borrow the last node below before
+            Node last = before.down;
+            while (compare(last.right, before) != 0) {
+                last = last.right;
+            }
+            child.down = last.right;
+            before.copyFrom(last);
+            return child;
+        }
+        // Merge child into before
+        before.copyFrom(child);
+        before.right = child.right;
+        return before;
+    }
+
+
+    /**
+     * Counts the nodes in the gap below a node, including the one that
+     * holds its own element.
+     *
+     * @param node
+     *            a node above the lowest level
+     * @return the number of nodes below it
+     */
+    private int childCount(Node node) {
+        int count = 1;
+        for (Node n = node.down; compare(n, node) != 0; n = n.right) {
+            count++;
+        }
+        return count;
+    }
+
+
+    /**
+     * Finds the first entry whose key is not less than key.
+     *
+     * @param key
+     *            the key to look for
+     * @return the node of that entry, or the infinity node of the lowest
+     *         level
+     */
+    private Node first(K key) {
+        // Newer duplicates sort first, so no entry sorts before this one
+        long seq = Long.MAX_VALUE;
+        Node current = header;
+        while (true) {
+            while (compare(current, key, seq) < 0) {
+                current = current.right;
+            }
+            if (current.down == bottom) {
+                return current;
+            }
+            current = current.down;
+        }
+    }
+
+
+    /**
+     * Returns the first node of the lowest level.
+     *
+     * @return the first entry, or the infinity node if the list is empty
+     */
+    private Node lowest() {
+        Node current = header;
+        while (current.down != bottom) {
+            current = current.down;
+        }
+        return current;
+    }
+
+
+    /**
+     * Compares the elements of two nodes. A null key is infinity, and among
+     * equal keys the higher insertion number comes first.
+     *
+     * @param a
+     *            the first node
+     * @param b
+     *            the second node
+     * @return standard values for compareTo
+     */
+    private int compare(Node a, Node b) {
+        if (b.key == null) {
+            return a.key == null ? 0 : -1;
+        }
+        return compare(a, b.key, b.seq);
+    }
+
+
+    /**
+     * Compares the element of a node with a key and insertion number.
+     *
+     * @param node
+     *            the node
+     * @param key
+     *            the key, not null
+     * @param seq
+     *            the insertion number
+     * @return standard values for compareTo
+     */
+    private int compare(Node node, K key, long seq) {
+        if (node.key == null) {
+            return 1;
+        }
+        int cmp = node.key.compareTo(key);
+        if (cmp != 0) {
+            return cmp;
+        }
+        return Long.compare(seq, node.seq);
+    }
+
+
+    /**
+     * A node of one level. Nodes of the lowest level hold the entries.
+     */
+    private class Node {
+        private K key;
+        private long seq;
+        private KVPair<K, V> pair;
+        private Node right;
+        private Node down;
+
+        /**
+         * Creates a node.
+         *
+         * @param key
+         *            the key of its element, null for infinity
+         * @param seq
+         *            the insertion number of its element
+         * @param pair
+         *            the entry, only on the lowest level
+         * @param right
+         *            the next node of the level
+         * @param down
+         *            the first node of its gap
+         */
+        Node(K key, long seq, KVPair<K, V> pair, Node right, Node down) {
+            this.key = key;
+            this.seq = seq;
+            this.pair = pair;
+            this.right = right;
+            this.down = down;
+        }
+
+
+        /**
+         * Takes over the element of another node, and its entry if this
+         * node is on the lowest level.
+         *
+         * @param other
+         *            the node to copy from
+         */
+        void copyFrom(Node other) {
+            key = other.key;
+            seq = other.seq;
+            if (down == bottom) {
+                pair = other.pair;
+            }
+        }
+    }
+
+
+    /**
+     * Iterator over the lowest level.
+     */
+    private class DeterministicIterator implements Iterator<KVPair<K, V>> {
+        private Node current = lowest();
+
+        @Override
+        public boolean hasNext() {
+            return current.key != null;
+        }
+
+
+        @Override
+        public KVPair<K, V> next() {
+            if (current.key == null) {
+                throw new NoSuchElementException();
+            }
+            KVPair<K, V> elem = current.pair;
+            current = current.right;
+            return elem;
+        }
+    }
+
+    /**
+     * Returns an iterator over elements of the DeterministicSkipList.
+     *
+     * @return An iterator over key-value pairs.
+     */
+    @Override
+    public Iterator<KVPair<K, V>> iterator() {
+        return new DeterministicIterator();
+    }
+}
@@ -0,0 +1,159 @@
+import java.util.Iterator;
+
+/**
+ * The test class for DeterministicSkipList
+ *
+ * @author Rushil, Kush
+ * @version 1.0
+ */
+public class DeterministicSkipListTest extends NameIndexTestCase {
+    private DeterministicSkipList<Integer, String> list;
+
+    /**
+     * Sets up the variables for use in this class
+     */
+    public void setUp() {
+        list = new DeterministicSkipList<>();
+    }
+
+
+    /**
+     * Tests for null inserts and null keys
+     */
+    public void testNulls() {
+        try {
+            list.insert(null);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+        try {
+            list.insert(new KVPair<Integer, String>(null, "A"));
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+        assertTrue(list.search(null).isEmpty());
+        assertNull(list.remove(null));
+        assertNull(list.remove(1));
+        assertNull(list.removeByValue("A"));
+        assertEquals(1, list.getHeight());
+    }
+
+
+    /**
+     * Tests that random inserts and removes give the same entries in the
+     * same order as a SkipList
+     */
+    public void testMatchesSkipList() {
+        assertMatchesSkipList(list, intKeys(300), step -> "V" + step, 20000,
+            7);
+    }
+
+
+    /**
+     * Tests that the height stays logarithmic for sorted input, in both
+     * directions, and while the list is emptied again
+     */
+    public void testHeightBound() {
+        for (int i = 0; i < 4096; i++) {
+            list.insert(new KVPair<>(i, "V"));
+            assertTrue(list.getHeight() <= 2 + log2(list.size()));
+        }
+        for (int i = -1; i >= -4096; i--) {
+            list.insert(new KVPair<>(i, "V"));
+        }
+        assertTrue(list.getHeight() <= 2 + log2(list.size()));
+
+        for (int i = -4096; i < 4096; i++) {
+            assertEquals(i, (int)list.remove(i).getKey());
+            assertTrue(list.getHeight() <= 2 + log2(list.size() + 1));
+        }
+        assertEquals(0, list.size());
+        assertEquals(1, list.getHeight());
+        assertFalse(list.iterator().hasNext());
+    }
+
+
+    /**
+     * Tests that many duplicates keep the newest first
+     */
+    public void testDuplicates() {
+        for (int i = 0; i < 100; i++) {
+            list.insert(new KVPair<>(5, "V" + i));
+        }
+        MyArrayList<KVPair<Integer, String>> fives = list.search(5);
+        assertEquals(100, fives.size());
+        assertEquals("V99", fives.get(0).getValue());
+        assertEquals("V99", list.remove(5).getValue());
+        assertEquals("V0", list.removeByValue("V0").getValue());
+        assertEquals(98, list.search(5).size());
+        assertTrue(list.getHeight() <= 2 + log2(list.size()));
+    }
+
+
+    /**
+     * Tests the iterator and the dump method
+     */
+    public void testIteratorAndDump() {
+        systemOut().clearHistory();
+        list.dump();
+        assertTrue(systemOut().getHistory().contains("SkipList size is: 0"));
+        for (int i = 1; i <= 4; i++) {
+            list.insert(new KVPair<>(i, "V" + i));
+        }
+        Iterator<KVPair<Integer, String>> iterator = list.iterator();
+        assertEquals("V1", iterator.next().getValue());
+        assertEquals("V2", iterator.next().getValue());
+        assertEquals("V3", iterator.next().getValue());
+        assertEquals("V4", iterator.next().getValue());
+        assertFalse(iterator.hasNext());
+        try {
+            iterator.next();
+            fail("Expected NoSuchElementException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof java.util.NoSuchElementException);
+        }
+
+        list.dump();
+        String history = systemOut().getHistory();
+        assertTrue(history.contains("Node has depth " + list.getHeight()
+            + ", value null"));
+        // The fourth insert split the gap of 3 and raised its middle key
+        assertTrue(history.contains("Node has depth 1, value V1"));
+        assertTrue(history.contains("Node has depth 2, value V2"));
+        assertTrue(history.contains("Node has depth 1, value V4"));
+        assertTrue(history.contains("SkipList size is: 4"));
+    }
+
+
+    /**
+     * Tests using the list as the name index of a Database
+     */
+    public void testDatabaseIndex() {
+        Database db = new Database(new DeterministicSkipList<String,
+            Point>());
+        db.insert("apple", 100, 100);
+        db.insert("apple", 200, 200);
+        db.insert("pear", 300, 300);
+        db.remove("pear");
+        assertEquals(2, db.getNameIndex().size());
+        assertEquals(new Point("apple", 200, 200), db.getNameIndex().search(
+            "apple").get(0).getValue());
+    }
+
+
+    /**
+     * Returns the base 2 logarithm of n, rounded down
+     *
+     * @param n
+     *            a positive number
+     * @return floor(log2(n))
+     */
+    private int log2(int n) {
+        return 31 - Integer.numberOfLeadingZeros(Math.max(n, 1));
+    }
+}
@@ -0,0 +1,328 @@
+/**
+ * An exact-match index from keys to the pairs stored under them, kept with
+ * open addressing and linear probing. Each key owns one slot, holding its
+ * pairs from oldest to newest, so insert, search and remove by key cost one
+ * hash probe sequence instead of a descent. It has no order; ordered work
+ * is left to the SkipList it is kept next to. Removed slots are closed with
+ * backward shifting, so there are no tombstones and probe runs stay short.
+ *
+ * @author Rushil, Kush
+ *
+ * @version 1.0
+ * @param <K>
+ *            Key
+ * @param <V>
+ *            Value
+ */
+public class HashIndex<K extends Comparable<K>, V> {
+
+    /**
+     * The number of slots of a new index
+     */
+    public static final int DEFAULT_CAPACITY = 16;
+
+    private Object[] keys; // key in each slot, null if the slot is empty
+    private Object[] entries; // MyArrayList of pairs per slot, oldest first
+    private int keyCount; // number of used slots
+    private int size; // number of pairs
+
+    /**
+     * Creates an empty index.
+     */
+    public HashIndex() {
+        this(DEFAULT_CAPACITY);
+    }
+
+
+    /**
+     * Creates an empty index with room for about the given number of keys
+     * before it grows.
+     *
+     * @param expectedKeys
+     *            the number of keys to make room for
+     * @throws IllegalArgumentException
+     *             if expectedKeys is negative
+     */
+    public HashIndex(int expectedKeys) {
+        if (expectedKeys < 0) {
+            throw new IllegalArgumentException("Illegal Capacity: "
+                + expectedKeys);
+        }
+        // Keep the table at most half full
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity < expectedKeys * 2) {
+            capacity *= 2;
+        }
+        keys = new Object[capacity];
+        entries = new Object[capacity];
+    }
+
+
+    /**
+     * Adds a pair under its key.
+     *
+     * @param it
+     *            the key-value pair to add
+     * @throws IllegalArgumentException
+     *             if it or its key is null
+     */
+    public void insert(KVPair<K, V> it) {
+        if (it == null || it.getKey() == null) {
+            throw new IllegalArgumentException("Pair or key is null");
+        }
+        int slot = find(it.getKey());
+        if (keys[slot] == null) {
+            if ((keyCount + 1) * 2 > keys.length) {
+                resize(keys.length * 2);
+                slot = find(it.getKey());
+            }
+            keys[slot] = it.getKey();
+            entries[slot] = new MyArrayList<KVPair<K, V>>();
+            keyCount++;
+        }
+        pairsAt(slot).add(it);
+        size++;
+    }
+
+
+    /**
+     * Returns the pairs stored under a key, newest first, the same order as
+     * SkipList.search.
+     *
+     * @param key
+     *            the key to look up
+     * @return a new list of the pairs, empty if there are none
+     */
+    public MyArrayList<KVPair<K, V>> search(K key) {
+        MyArrayList<KVPair<K, V>> result = new MyArrayList<>();
+        if (key == null) {
+            return result;
+        }
+        int slot = find(key);
+        if (keys[slot] != null) {
+            MyArrayList<KVPair<K, V>> pairs = pairsAt(slot);
+            for (int i = pairs.size() - 1; i >= 0; i--) {
+                result.add(pairs.get(i));
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Checks whether any pair is stored under a key.
+     *
+     * @param key
+     *            the key to look up
+     * @return true if the key has a pair
+     */
+    public boolean contains(K key) {
+        return key != null && keys[find(key)] != null;
+    }
+
+
+    /**
+     * Removes the newest pair stored under a key, the one SkipList.remove
+     * removes.
+     *
+     * @param key
+     *            the key to remove
+     * @return the removed pair, or null if there was none
+     */
+    public KVPair<K, V> remove(K key) {
+        if (key == null) {
+            return null;
+        }
+        int slot = find(key);
+        if (keys[slot] == null) {
+            return null;
+        }
+        MyArrayList<KVPair<K, V>> pairs = pairsAt(slot);
+        return removeAt(slot, pairs.size() - 1);
+    }
+
+
+    /**
+     * Removes the newest pair under the given pair's key whose value equals
+     * the given pair's value. Name indexes such as ArraySkipList hand out a
+     * new KVPair on every read, so the pair they return from a remove is
+     * only equal to the stored one, not the same object.
+     *
+     * @param it
+     *            the pair to remove
+     * @return true if the pair was in the index
+     */
+    public boolean removePair(KVPair<K, V> it) {
+        if (it == null || it.getKey() == null) {
+            return false;
+        }
+        int slot = find(it.getKey());
+        if (keys[slot] == null) {
+            return false;
+        }
+        MyArrayList<KVPair<K, V>> pairs = pairsAt(slot);
+        for (int i = pairs.size() - 1; i >= 0; i--) {
+            V value = pairs.get(i).getValue();
+            if (value == null ? it.getValue() == null
+                : value.equals(it.getValue())) {
+                removeAt(slot, i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * Drops every pair.
+     */
+    public void clear() {
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = null;
+            entries[i] = null;
+        }
+        keyCount = 0;
+        size = 0;
+    }
+
+
+    /**
+     * Returns the number of pairs.
+     *
+     * @return the number of pairs
+     */
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Returns the number of distinct keys.
+     *
+     * @return the number of keys
+     */
+    public int keyCount() {
+        return keyCount;
+    }
+
+
+    /**
+     * Returns the number of slots in the table.
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+
+    /**
+     * Returns the slot holding a key, or the empty slot where it would go.
+     *
+     * @param key
+     *            the key to look for
+     * @return the slot
+     */
+    private int find(Object key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != null && !keys[slot].equals(key)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+
+    /**
+     * Spreads the bits of a key's hash code.
+     *
+     * @param key
+     *            the key
+     * @return the mixed hash
+     */
+    private int hash(Object key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+
+    /**
+     * Gets the pairs of a used slot.
+     *
+     * @param slot
+     *            the slot
+     * @return its pairs, oldest first
+     */
+    @SuppressWarnings("unchecked")
+    private MyArrayList<KVPair<K, V>> pairsAt(int slot) {
+        return (MyArrayList<KVPair<K, V>>)entries[slot];
+    }
+
+
+    /**
+     * Removes one pair of a slot, and the slot itself if that was its last
+     * pair.
+     *
+     * @param slot
+     *            the slot
+     * @param index
+     *            the position of the pair in the slot's list
+     * @return the removed pair
+     */
+    private KVPair<K, V> removeAt(int slot, int index) {
+        MyArrayList<KVPair<K, V>> pairs = pairsAt(slot);
+        KVPair<K, V> removed = pairs.remove(index);
+        size--;
+        if (pairs.isEmpty()) {
+            closeSlot(slot);
+            keyCount--;
+        }
+        return removed;
+    }
+
+
+    /**
+     * Empties a slot and shifts later keys of the probe run back into the
+     * hole, so every key stays reachable from its home slot.
+     *
+     * @param hole
+     *            the slot to empty
+     */
+    private void closeSlot(int hole) {
+        int mask = keys.length - 1;
+        int slot = (hole + 1) & mask;
+        while (keys[slot] != null) {
+            int home = hash(keys[slot]) & mask;
+            // Move the key back if its home is not between the hole and it
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                keys[hole] = keys[slot];
+                entries[hole] = entries[slot];
+                hole = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[hole] = null;
+        entries[hole] = null;
+    }
+
+
+    /**
+     * Moves every key into a new table.
+     *
+     * @param capacity
+     *            the new number of slots, a power of two
+     */
+    private void resize(int capacity) {
+        Object[] oldKeys = keys;
+        Object[] oldEntries = entries;
+        keys = new Object[capacity];
+        entries = new Object[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                entries[slot] = oldEntries[i];
+            }
+        }
+    }
+}
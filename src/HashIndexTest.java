@@ -0,0 +1,112 @@
+import java.util.Random;
+import student.TestCase;
+
+/**
+ * The test class for HashIndex
+ *
+ * @author Rushil, Kush
+ * @version 1.0
+ */
+public class HashIndexTest extends TestCase {
+    private HashIndex<String, Integer> index;
+
+    /**
+     * Sets up the variables for use in this class
+     */
+    public void setUp() {
+        index = new HashIndex<>();
+    }
+
+
+    /**
+     * Tests bad arguments
+     */
+    public void testIllegalArguments() {
+        try {
+            new HashIndex<String, Integer>(-1);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+        try {
+            index.insert(new KVPair<String, Integer>(null, 1));
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+        assertEquals(0, index.search(null).size());
+        assertNull(index.remove(null));
+        assertFalse(index.removePair(null));
+        assertFalse(index.contains(null));
+    }
+
+
+    /**
+     * Tests duplicates come back newest first and are removed newest first
+     */
+    public void testDuplicates() {
+        KVPair<String, Integer> first = new KVPair<>("a", 1);
+        KVPair<String, Integer> second = new KVPair<>("a", 2);
+        KVPair<String, Integer> third = new KVPair<>("a", 3);
+        index.insert(first);
+        index.insert(second);
+        index.insert(third);
+        index.insert(new KVPair<>("b", 4));
+        assertEquals(4, index.size());
+        assertEquals(2, index.keyCount());
+        MyArrayList<KVPair<String, Integer>> found = index.search("a");
+        assertSame(third, found.get(0));
+        assertSame(first, found.get(2));
+        assertTrue(index.removePair(second));
+        assertFalse(index.removePair(second));
+        // A copy of a stored pair removes it as well
+        assertFalse(index.removePair(new KVPair<>("b", 5)));
+        assertTrue(index.removePair(new KVPair<>("b", 4)));
+        index.insert(new KVPair<>("b", 4));
+        assertSame(third, index.remove("a"));
+        assertSame(first, index.remove("a"));
+        assertNull(index.remove("a"));
+        assertFalse(index.contains("a"));
+        assertEquals(1, index.size());
+        assertEquals(1, index.keyCount());
+        index.clear();
+        assertEquals(0, index.size());
+        assertFalse(index.contains("b"));
+    }
+
+
+    /**
+     * Tests random inserts and removes against a SkipList, through growth
+     * and backward shift deletes
+     */
+    public void testMatchesSkipList() {
+        SkipList<String, Integer> reference = new SkipList<>();
+        Random random = new Random(21);
+        for (int step = 0; step < 20000; step++) {
+            String key = "k" + random.nextInt(800);
+            if (random.nextInt(10) < 6) {
+                KVPair<String, Integer> pair = new KVPair<>(key, step);
+                index.insert(pair);
+                reference.insert(pair);
+            }
+            else {
+                assertSame(reference.remove(key), index.remove(key));
+            }
+        }
+        assertEquals(reference.size(), index.size());
+        assertTrue(index.capacity() >= index.keyCount() * 2);
+        for (int i = -1; i <= 800; i++) {
+            MyArrayList<KVPair<String, Integer>> expected = reference.search(
+                "k" + i);
+            MyArrayList<KVPair<String, Integer>> actual = index.search("k"
+                + i);
+            assertEquals(expected.size(), actual.size());
+            assertEquals(expected.size() > 0, index.contains("k" + i));
+            for (int j = 0; j < expected.size(); j++) {
+                assertSame(expected.get(j), actual.get(j));
+            }
+        }
+    }
+}
@@ -0,0 +1,766 @@
+import java.lang.reflect.Array;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A log-structured name index. Inserts go into a small SkipList, the
+ * memtable. Once it holds memtableLimit entries it is frozen into a run:
+ * two plain arrays of keys and pairs in order that never change again, so
+ * most entries cost two array slots instead of a node with a tower of
+ * links. Removing an entry from a run only sets its bit in the run's
+ * deleted set.
+ *
+ * Reads look at the memtable and then at the runs from newest to oldest,
+ * so duplicates still come back newest first and remove still takes the
+ * newest, as with SkipList. Runs are merged size-tiered: runs of about the
+ * same size form a tier, and once a tier holds more than maxRuns runs they
+ * are merged into one run of the next tier, dropping deleted entries. Each
+ * tier is maxRuns + 1 times larger than the one below, so an entry is
+ * copied once per tier, a logarithmic number of times, instead of on every
+ * merge. Merging runs either inline in
+ * the insert that froze the memtable or, once startCompactor was called,
+ * on a background thread. That thread does the merge without the lock of
+ * the index and only takes it to start and to swap the merged run in, so
+ * inserts and searches keep going meanwhile. Every method of the index is
+ * synchronized; iterators must not be used while the index is modified.
+ *
+ * @author Rushil, Kush
+ *
+ * @version 1.0
+ * @param <K>
+ *            Key
+ * @param <V>
+ *            Value
+ */
+public class LsmNameIndex<K extends Comparable<K>, V>
+    implements NameIndex<K, V> {
+
+    /**
+     * Entries the memtable holds before it is frozen when no limit is given
+     */
+    public static final int DEFAULT_MEMTABLE_LIMIT = 1024;
+
+    /**
+     * Runs of one tier kept before they are merged when no limit is given
+     */
+    public static final int DEFAULT_MAX_RUNS = 4;
+
+    private final int memtableLimit; // memtable size that freezes it
+    private final int maxRuns; // runs per tier above which it is merged
+    private SkipList<K, V> memtable; // newest entries
+    private java.util.ArrayList<Run> runs; // frozen entries, newest run first
+    private int runEntries; // live entries in the runs
+    private int compactions; // number of merges done
+    private long mergedEntries; // entries written by merges
+    private boolean compacting; // a merge is between begin and install
+    private Thread compactor; // background merge thread, null if none
+    private volatile boolean compactorRunning;
+
+    /**
+     * Constructs an empty LsmNameIndex with the default limits.
+     */
+    public LsmNameIndex() {
+        this(DEFAULT_MEMTABLE_LIMIT, DEFAULT_MAX_RUNS);
+    }
+
+
+    /**
+     * Constructs an empty LsmNameIndex.
+     *
+     * @param memtableLimit
+     *            the number of entries that freezes the memtable
+     * @param maxRuns
+     *            the number of runs of one tier kept before they are merged
+     * @throws IllegalArgumentException
+     *             if either limit is less than 1
+     */
+    public LsmNameIndex(int memtableLimit, int maxRuns) {
+        if (memtableLimit < 1 || maxRuns < 1) {
+            throw new IllegalArgumentException("Illegal limits: "
+                + memtableLimit + ", " + maxRuns);
+        }
+        this.memtableLimit = memtableLimit;
+        this.maxRuns = maxRuns;
+        memtable = new SkipList<>();
+        runs = new java.util.ArrayList<>();
+    }
+
+
+    /**
+     * Returns the number of elements in the index.
+     *
+     * @return The size of the index.
+     */
+    @Override
+    public synchronized int size() {
+        return memtable.size() + runEntries;
+    }
+
+
+    /**
+     * Returns the number of frozen runs.
+     *
+     * @return the number of runs
+     */
+    public synchronized int getRunCount() {
+        return runs.size();
+    }
+
+
+    /**
+     * Returns the number of entries in the memtable.
+     *
+     * @return the memtable size
+     */
+    public synchronized int getMemtableSize() {
+        return memtable.size();
+    }
+
+
+    /**
+     * Returns the number of times runs were merged.
+     *
+     * @return the number of merges
+     */
+    public synchronized int getCompactionCount() {
+        return compactions;
+    }
+
+
+    /**
+     * Returns the number of entries all merges together have written, the
+     * work compaction has done.
+     *
+     * @return the number of merged entries
+     */
+    public synchronized long getMergedEntryCount() {
+        return mergedEntries;
+    }
+
+
+    /**
+     * Inserts the KVPair in front of any entries with the same key. Freezes
+     * the memtable once it is full, and merges runs if a tier has too many
+     * and no background compactor does it.
+     *
+     * @param it
+     *            The key-value pair to insert.
+     * @throws IllegalArgumentException
+     *             if KV Pair or its key is null.
+     */
+    @Override
+    public synchronized void insert(KVPair<K, V> it) {
+        if (it == null || it.getKey() == null) {
+            throw new IllegalArgumentException("KV pair is null");
+        }
+        memtable.insert(it);
+        if (memtable.size() >= memtableLimit) {
+            flush();
+        }
+    }
+
+
+    /**
+     * Freezes the memtable into a new run, even if it is not full.
+     */
+    public synchronized void flush() {
+        if (memtable.size() == 0) {
+            return;
+        }
+        Run run = new Run(memtable.size());
+        for (KVPair<K, V> pair : memtable) {
+            run.keys[run.live] = pair.getKey();
+            run.pairs[run.live] = pair;
+            run.live++;
+        }
+        runs.add(0, run);
+        runEntries += run.live;
+        memtable = new SkipList<>();
+
+        if (pickRuns() != null) {
+            if (compactorRunning) {
+                notifyAll();
+            }
+            else {
+                while (compact(false)) {
+                    // A merged run may fill up the next tier
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Searches for a key and returns all associated values.
+     *
+     * @param key
+     *            The key to search for.
+     * @return A list of key-value pairs with the specified key, newest
+     *         first.
+     */
+    @Override
+    public synchronized MyArrayList<KVPair<K, V>> search(K key) {
+        if (key == null) {
+            return new MyArrayList<>();
+        }
+        MyArrayList<KVPair<K, V>> result = memtable.search(key);
+        for (Run run : runs) {
+            for (int i = run.first(key); i < run.keys.length && run.key(i)
+                .compareTo(key) == 0; i++) {
+                if (!run.deleted.get(i)) {
+                    result.add(run.pair(i));
+                }
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Removes the newest entry of a key.
+     *
+     * @param key
+     *            The key to remove.
+     * @return The removed key-value pair, or null if not found.
+     */
+    @Override
+    public synchronized KVPair<K, V> remove(K key) {
+        if (key == null) {
+            return null;
+        }
+        KVPair<K, V> removed = memtable.remove(key);
+        if (removed != null) {
+            return removed;
+        }
+        for (Run run : runs) {
+            for (int i = run.first(key); i < run.keys.length && run.key(i)
+                .compareTo(key) == 0; i++) {
+                if (!run.deleted.get(i)) {
+                    return delete(run, i);
+                }
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Removes a KVPair with the specified value.
+     *
+     * @param val
+     *            the value of the KVPair to be removed
+     * @return the removed KVPair, or null if not found
+     */
+    @Override
+    public synchronized KVPair<K, V> removeByValue(V val) {
+        MergeIterator it = new MergeIterator();
+        while (it.hasNext()) {
+            KVPair<K, V> pair = it.next();
+            if (pair.getValue().equals(val)) {
+                // The first match in the memtable is this one
+                return it.source == 0
+                    ? memtable.removeByValue(val)
+                    : delete(it.sources[it.source], it.position);
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Prints out the entries in the same format as SkipList.dump(), in key
+     * order and newest first among equal keys. Runs have no towers, so
+     * every entry is shown at depth 1.
+     */
+    @Override
+    public synchronized void dump() {
+        System.out.println("SkipList dump:");
+        if (size() == 0) {
+            System.out.println("Node has depth 1, Value (null)");
+            System.out.println("SkipList size is: 0");
+            return;
+        }
+
+        System.out.println("Node has depth 1, value null");
+        MergeIterator it = new MergeIterator();
+        while (it.hasNext()) {
+            System.out.println("Node has depth 1, value " + it.next()
+                .toString());
+        }
+        System.out.println("SkipList size is: " + size());
+    }
+
+
+    /**
+     * Prints out how the entries are stored, for debugging: the memtable,
+     * then the live entries of each run from newest to oldest, then the
+     * size.
+     */
+    public synchronized void dumpRuns() {
+        System.out.println("LsmNameIndex dump:");
+        System.out.println("Memtable has " + memtable.size() + " entries");
+        for (KVPair<K, V> pair : memtable) {
+            System.out.println("Entry value " + pair.toString());
+        }
+        for (Run run : runs) {
+            System.out.println("Run has " + run.live + " entries");
+            for (int i = 0; i < run.keys.length; i++) {
+                if (!run.deleted.get(i)) {
+                    System.out.println("Entry value " + run.pair(i)
+                        .toString());
+                }
+            }
+        }
+        System.out.println("LsmNameIndex size is: " + size());
+    }
+
+
+    /**
+     * Merges every run into one, dropping deleted entries. The merge itself
+     * runs without the lock of the index; removes made meanwhile are
+     * carried over when the merged run is swapped in.
+     *
+     * @return true if runs were merged, false if there were fewer than two
+     *         or another merge was under way
+     */
+    public boolean compact() {
+        return compact(true);
+    }
+
+
+    /**
+     * Starts a daemon thread that merges the runs of a tier whenever it
+     * holds more than maxRuns of them. Does nothing if it is already
+     * running.
+     */
+    public synchronized void startCompactor() {
+        if (compactorRunning) {
+            return;
+        }
+        compactorRunning = true;
+        compactor = new Thread(this::runCompactor, "LsmCompactor");
+        compactor.setDaemon(true);
+        compactor.start();
+    }
+
+
+    /**
+     * Asks the background thread to stop after its current merge and waits
+     * for it. Merges happen inline again afterwards.
+     *
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    public void stopCompactor() throws InterruptedException {
+        Thread t;
+        synchronized (this) {
+            compactorRunning = false;
+            notifyAll();
+            t = compactor;
+            compactor = null;
+        }
+        if (t != null) {
+            t.join();
+        }
+    }
+
+
+    /**
+     * Waits until no tier holds more than maxRuns runs and no merge is
+     * under way.
+     *
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    public synchronized void awaitCompaction() throws InterruptedException {
+        while (compactorRunning && (compacting || pickRuns() != null)) {
+            wait();
+        }
+    }
+
+
+    /**
+     * Body of the background thread: sleeps until a tier has too many runs,
+     * then merges them.
+     */
+    private void runCompactor() {
+        while (compactorRunning) {
+            synchronized (this) {
+                while (compactorRunning && pickRuns() == null) {
+                    try {
+                        wait();
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        compactorRunning = false;
+                    }
+                }
+            }
+            if (compactorRunning) {
+                compact(false);
+            }
+        }
+    }
+
+
+    /**
+     * Runs one merge: takes its runs under the lock, merges them without
+     * it and swaps the result in under the lock again.
+     *
+     * @param all
+     *            true to merge every run, false to merge the runs of one
+     *            full tier
+     * @return true if runs were merged
+     */
+    private boolean compact(boolean all) {
+        Compaction job = beginCompaction(all);
+        if (job == null) {
+            return false;
+        }
+        job.merge();
+        installCompaction(job);
+        return true;
+    }
+
+
+    /**
+     * Finds the runs the next tiered merge takes. A run is in tier 0 if it
+     * has at most memtableLimit live entries, and each tier above allows
+     * maxRuns + 1 times as many. Going from the newest run to the oldest, a
+     * run is never counted in a lower tier than a newer one, so every tier
+     * is a stretch of adjacent runs and merging it keeps duplicates newest
+     * first.
+     *
+     * @return the first position and the end of the newest tier with more
+     *         than maxRuns runs, or null if there is none
+     */
+    private int[] pickRuns() {
+        int start = 0;
+        int tier = 0;
+        for (int i = 0; i < runs.size(); i++) {
+            int runTier = tierOf(runs.get(i));
+            if (runTier > tier) {
+                if (i - start > maxRuns) {
+                    return new int[] { start, i };
+                }
+                start = i;
+                tier = runTier;
+            }
+        }
+        if (runs.size() - start > maxRuns) {
+            return new int[] { start, runs.size() };
+        }
+        return null;
+    }
+
+
+    /**
+     * Returns the size tier of a run.
+     *
+     * @param run
+     *            the run
+     * @return the tier, 0 for runs no larger than a full memtable
+     */
+    private int tierOf(Run run) {
+        int tier = 0;
+        long limit = memtableLimit;
+        while (run.live > limit) {
+            limit *= maxRuns + 1;
+            tier++;
+        }
+        return tier;
+    }
+
+
+    /**
+     * Removes an entry from a run.
+     *
+     * @param run
+     *            the run
+     * @param i
+     *            the position of a live entry
+     * @return the removed key-value pair
+     */
+    private KVPair<K, V> delete(Run run, int i) {
+        run.deleted.set(i);
+        run.live--;
+        runEntries--;
+        return run.pair(i);
+    }
+
+
+    /**
+     * Takes the runs to merge and copies their deleted sets.
+     *
+     * @param all
+     *            true to take every run, false to take one full tier
+     * @return the merge to run, or null if there is nothing to do
+     */
+    private synchronized Compaction beginCompaction(boolean all) {
+        if (compacting || runs.size() < 2) {
+            return null;
+        }
+        if (all) {
+            compacting = true;
+            return new Compaction(new java.util.ArrayList<>(runs));
+        }
+        int[] range = pickRuns();
+        if (range == null) {
+            return null;
+        }
+        compacting = true;
+        return new Compaction(new java.util.ArrayList<>(runs.subList(
+            range[0], range[1])));
+    }
+
+
+    /**
+     * Swaps the merged run in for the runs it was made from and deletes in
+     * it what was removed from them during the merge.
+     *
+     * @param job
+     *            the finished merge
+     */
+    private synchronized void installCompaction(Compaction job) {
+        Run merged = job.output;
+        for (int r = 0; r < job.inputs.size(); r++) {
+            BitSet removed = (BitSet)job.inputs.get(r).deleted.clone();
+            removed.andNot(job.deleted[r]);
+            for (int i = removed.nextSetBit(0); i >= 0; i = removed
+                .nextSetBit(i + 1)) {
+                merged.deleted.set(job.moved[r][i]);
+                merged.live--;
+            }
+        }
+        // Runs frozen during the merge were added in front of the inputs
+        int first = runs.indexOf(job.inputs.get(0));
+        for (int r = 0; r < job.inputs.size(); r++) {
+            runs.remove(first);
+        }
+        if (merged.live > 0) {
+            runs.add(first, merged);
+        }
+        mergedEntries += merged.keys.length;
+        compactions++;
+        compacting = false;
+        notifyAll();
+    }
+
+
+    /**
+     * A frozen run: entries in order, newest first among equal keys, and
+     * the set of positions removed since.
+     */
+    private class Run {
+        private Object[] keys;
+        private Object[] pairs;
+        private BitSet deleted;
+        private int live; // entries not deleted
+
+        /**
+         * Creates a run of the given length, to be filled in order.
+         *
+         * @param length
+         *            the number of entries
+         */
+        Run(int length) {
+            keys = new Object[length];
+            pairs = new Object[length];
+            deleted = new BitSet(length);
+        }
+
+
+        /**
+         * Returns the key in a position.
+         *
+         * @param i
+         *            the position
+         * @return the key
+         */
+        @SuppressWarnings("unchecked")
+        private K key(int i) {
+            return (K)keys[i];
+        }
+
+
+        /**
+         * Returns the entry in a position.
+         *
+         * @param i
+         *            the position
+         * @return the entry
+         */
+        @SuppressWarnings("unchecked")
+        private KVPair<K, V> pair(int i) {
+            return (KVPair<K, V>)pairs[i];
+        }
+
+
+        /**
+         * Finds the first position whose key is not less than key.
+         *
+         * @param key
+         *            the key to look for
+         * @return the position, the length if every key is less
+         */
+        private int first(K key) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (key(mid).compareTo(key) < 0) {
+                    low = mid + 1;
+                }
+                else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+
+    /**
+     * One merge of runs: its inputs with their deleted sets as they were at
+     * the start, the merged run and where each input entry went in it.
+     */
+    private class Compaction {
+        private java.util.ArrayList<Run> inputs; // newest first
+        private BitSet[] deleted; // deleted sets when the merge began
+        private int[][] moved; // position in output per input entry
+        private Run output;
+
+        /**
+         * Starts a merge. Called with the lock of the index held.
+         *
+         * @param inputs
+         *            the runs to merge, newest first
+         */
+        Compaction(java.util.ArrayList<Run> inputs) {
+            this.inputs = inputs;
+            deleted = new BitSet[inputs.size()];
+            moved = new int[inputs.size()][];
+            int total = 0;
+            for (int r = 0; r < inputs.size(); r++) {
+                deleted[r] = (BitSet)inputs.get(r).deleted.clone();
+                moved[r] = new int[inputs.get(r).keys.length];
+                total += inputs.get(r).live;
+            }
+            output = new Run(total);
+        }
+
+
+        /**
+         * Merges the inputs. Reads only the arrays of the inputs, which
+         * never change, and the copied deleted sets, so it needs no lock.
+         */
+        private void merge() {
+            int[] next = new int[inputs.size()];
+            for (int r = 0; r < next.length; r++) {
+                next[r] = deleted[r].nextClearBit(0);
+            }
+            for (int out = 0; out < output.keys.length; out++) {
+                // On equal keys the newer run wins, keeping newest first
+                int best = -1;
+                for (int r = 0; r < next.length; r++) {
+                    Run run = inputs.get(r);
+                    if (next[r] < run.keys.length && (best < 0 || run.key(
+                        next[r]).compareTo(inputs.get(best).key(
+                            next[best])) < 0)) {
+                        best = r;
+                    }
+                }
+                Run from = inputs.get(best);
+                output.keys[out] = from.keys[next[best]];
+                output.pairs[out] = from.pairs[next[best]];
+                moved[best][next[best]] = out;
+                next[best] = deleted[best].nextClearBit(next[best] + 1);
+            }
+            output.live = output.keys.length;
+        }
+    }
+
+
+    /**
+     * Iterates over the memtable and the runs at once, in key order and
+     * newest first among equal keys.
+     */
+    private class MergeIterator implements Iterator<KVPair<K, V>> {
+        private Iterator<KVPair<K, V>> fresh = memtable.iterator();
+        private KVPair<K, V> freshHead; // next memtable entry, null if none
+        private Run[] sources; // index 0 stands for the memtable
+        private int[] next; // next live position in each run
+        private int source; // source of the entry next() returned last
+        private int position; // its position in that run
+
+        /**
+         * Creates an iterator at the first entry.
+         */
+        @SuppressWarnings("unchecked")
+        MergeIterator() {
+            freshHead = fresh.hasNext() ? fresh.next() : null;
+            sources = (Run[])Array.newInstance(LsmNameIndex.Run.class, runs
+                .size() + 1);
+            next = new int[sources.length];
+            for (int r = 1; r < sources.length; r++) {
+                sources[r] = runs.get(r - 1);
+                next[r] = sources[r].deleted.nextClearBit(0);
+            }
+        }
+
+
+        /**
+         * Picks the source with the smallest next key.
+         *
+         * @return the source, or -1 if all are used up
+         */
+        private int pick() {
+            int best = freshHead != null ? 0 : -1;
+            K bestKey = freshHead != null ? freshHead.getKey() : null;
+            for (int r = 1; r < sources.length; r++) {
+                if (next[r] < sources[r].keys.length && (best < 0
+                    || sources[r].key(next[r]).compareTo(bestKey) < 0)) {
+                    best = r;
+                    bestKey = sources[r].key(next[r]);
+                }
+            }
+            return best;
+        }
+
+
+        @Override
+        public boolean hasNext() {
+            return pick() >= 0;
+        }
+
+
+        @Override
+        public KVPair<K, V> next() {
+            source = pick();
+            if (source < 0) {
+                throw new NoSuchElementException();
+            }
+            if (source == 0) {
+                KVPair<K, V> pair = freshHead;
+                freshHead = fresh.hasNext() ? fresh.next() : null;
+                return pair;
+            }
+            Run run = sources[source];
+            position = next[source];
+            next[source] = run.deleted.nextClearBit(position + 1);
+            return run.pair(position);
+        }
+    }
+
+    /**
+     * Returns an iterator over the entries in key order. The index must not
+     * be modified while it is in use.
+     *
+     * @return An iterator over key-value pairs.
+     */
+    @Override
+    public synchronized Iterator<KVPair<K, V>> iterator() {
+        return new MergeIterator();
+    }
+}
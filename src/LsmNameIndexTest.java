@@ -0,0 +1,236 @@
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * The test class for LsmNameIndex
+ *
+ * @author Rushil, Kush
+ * @version 1.0
+ */
+public class LsmNameIndexTest extends NameIndexTestCase {
+    private LsmNameIndex<Integer, String> index;
+
+    /**
+     * Sets up the variables for use in this class
+     */
+    public void setUp() {
+        index = new LsmNameIndex<>(8, 3);
+    }
+
+
+    /**
+     * Tests bad arguments
+     */
+    public void testIllegalArguments() {
+        try {
+            new LsmNameIndex<Integer, String>(0, 3);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+        try {
+            new LsmNameIndex<Integer, String>(8, 0);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+        try {
+            index.insert(new KVPair<Integer, String>(null, "A"));
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+        assertTrue(index.search(null).isEmpty());
+        assertNull(index.remove(null));
+        assertNull(index.remove(1));
+        assertNull(index.removeByValue("A"));
+        assertFalse(index.compact());
+    }
+
+
+    /**
+     * Tests that the memtable freezes into runs and runs get merged
+     */
+    public void testFlushAndCompact() {
+        for (int i = 0; i < 8; i++) {
+            index.insert(new KVPair<>(i, "V" + i));
+        }
+        assertEquals(0, index.getMemtableSize());
+        assertEquals(1, index.getRunCount());
+        for (int i = 8; i < 32; i++) {
+            index.insert(new KVPair<>(i % 4, "V" + i));
+        }
+        // The fourth run went over the limit and all four were merged
+        assertEquals(1, index.getRunCount());
+        assertEquals(1, index.getCompactionCount());
+        assertEquals(32, index.size());
+
+        MyArrayList<KVPair<Integer, String>> ones = index.search(1);
+        assertEquals(7, ones.size());
+        assertEquals("V29", ones.get(0).getValue());
+        assertEquals("V1", ones.get(6).getValue());
+
+        index.insert(new KVPair<>(1, "fresh"));
+        assertEquals("fresh", index.remove(1).getValue());
+        assertEquals("V29", index.remove(1).getValue());
+        assertEquals("V1", index.removeByValue("V1").getValue());
+        assertEquals(5, index.search(1).size());
+        assertEquals(30, index.size());
+    }
+
+
+    /**
+     * Tests that merges only take runs of one size tier, so each entry is
+     * copied about once per tier and not once per merge
+     */
+    public void testMergeWorkIsBounded() {
+        final int entries = 20000;
+        Random random = new Random(25);
+        for (int i = 0; i < entries; i++) {
+            index.insert(new KVPair<>(random.nextInt(), "V" + i));
+        }
+        assertEquals(entries, index.size());
+        assertRunsBounded();
+        // 2500 memtables of 8 need 7 tiers that grow by a factor of 4
+        assertTrue(index.getMergedEntryCount() <= 7L * entries);
+        assertTrue(index.getMergedEntryCount() >= 4L * entries);
+
+        // The runs stay sorted and every entry is still found
+        int count = 0;
+        Integer previous = null;
+        for (KVPair<Integer, String> pair : index) {
+            assertTrue(previous == null || previous <= pair.getKey());
+            previous = pair.getKey();
+            count++;
+        }
+        assertEquals(entries, count);
+        assertTrue(index.compact());
+        assertEquals(1, index.getRunCount());
+        assertEquals(entries, index.size());
+    }
+
+
+    /**
+     * Tests that random inserts and removes give the same entries in the
+     * same order as a SkipList
+     */
+    public void testMatchesSkipList() {
+        assertMatchesSkipList(index, intKeys(300), step -> "V" + step, 20000,
+            24);
+        assertRunsBounded();
+        assertTrue(index.getCompactionCount() > 100);
+    }
+
+
+    /**
+     * Tests that a background compactor merges while another thread keeps
+     * inserting and removing
+     *
+     * @throws InterruptedException
+     *             if interrupted while waiting for the threads
+     */
+    public void testBackgroundCompactor() throws InterruptedException {
+        index.startCompactor();
+        index.startCompactor();
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 20000; i++) {
+                index.insert(new KVPair<>(i % 500, "V" + i));
+                if (i % 3 == 0) {
+                    index.remove((i * 7) % 500);
+                }
+            }
+        });
+        writer.start();
+        writer.join();
+        index.awaitCompaction();
+        assertRunsBounded();
+        assertTrue(index.getCompactionCount() > 0);
+        index.stopCompactor();
+
+        int count = 0;
+        Integer previous = null;
+        for (KVPair<Integer, String> pair : index) {
+            assertTrue(previous == null || previous <= pair.getKey());
+            previous = pair.getKey();
+            count++;
+        }
+        assertEquals(index.size(), count);
+        SkipList<Integer, String> reference = new SkipList<>();
+        for (int i = 0; i < 20000; i++) {
+            reference.insert(new KVPair<>(i % 500, "V" + i));
+            if (i % 3 == 0) {
+                reference.remove((i * 7) % 500);
+            }
+        }
+        assertEquals(reference.size(), count);
+
+        // Merges happen inline again
+        int compactions = index.getCompactionCount();
+        for (int i = 0; i < 40; i++) {
+            index.insert(new KVPair<>(i, "W"));
+        }
+        assertTrue(index.getCompactionCount() > compactions);
+        assertRunsBounded();
+    }
+
+
+    /**
+     * Tests the iterator, the dump and using the index in a Database
+     */
+    public void testIteratorDumpAndDatabase() {
+        Iterator<KVPair<Integer, String>> iterator = index.iterator();
+        assertFalse(iterator.hasNext());
+        try {
+            iterator.next();
+            fail("Expected NoSuchElementException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof java.util.NoSuchElementException);
+        }
+        SkipList<Integer, String> reference = new SkipList<>();
+        assertDumpMatchesSkipList(index, reference);
+        for (int i = 0; i < 10; i++) {
+            KVPair<Integer, String> pair = new KVPair<>(i % 5, "V" + i);
+            index.insert(pair);
+            reference.insert(pair);
+        }
+        index.remove(0);
+        reference.remove(0);
+        assertDumpMatchesSkipList(index, reference);
+        systemOut().clearHistory();
+        index.dumpRuns();
+        assertFuzzyEquals("LsmNameIndex dump:\nMemtable has 2 entries\n"
+            + "Entry value V8\nEntry value V9\nRun has 7 entries\n"
+            + "Entry value V0\nEntry value V6\nEntry value V1\n"
+            + "Entry value V7\nEntry value V2\nEntry value V3\n"
+            + "Entry value V4\nLsmNameIndex size is: 9", systemOut()
+                .getHistory());
+
+        Database db = new Database(new LsmNameIndex<String, Point>(2, 2));
+        for (int i = 0; i < 10; i++) {
+            db.insert("apple", i, i);
+        }
+        db.insert("pear", 300, 300);
+        db.remove("pear");
+        db.remove(0, 0);
+        assertEquals(9, db.getNameIndex().size());
+        assertEquals(new Point("apple", 9, 9), db.getNameIndex().search(
+            "apple").get(0).getValue());
+    }
+
+
+    /**
+     * Checks that no size tier holds more than three runs. The tiers of the
+     * index start at 8 entries and grow by a factor of 4.
+     */
+    private void assertRunsBounded() {
+        int tiers = 1;
+        for (long limit = 8; limit < index.size(); limit *= 4) {
+            tiers++;
+        }
+        assertTrue(index.getRunCount() <= 3 * tiers);
+    }
+}
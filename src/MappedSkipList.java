@@ -0,0 +1,752 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import student.TestableRandom;
+
+/**
+ * A SkipList whose nodes live in a memory-mapped file instead of on the
+ * heap. A node is a run of bytes in the file: its level, the lengths of
+ * its key and value, one 8 byte file offset per level for its forward
+ * links, then the UTF-8 bytes of the key and the value as written by a
+ * Codec. Links are offsets, so the garbage collector never sees the nodes,
+ * and the operating system pages them in and out as needed.
+ *
+ * The file is mapped in chunks of CHUNK_SIZE bytes and a node never spans
+ * two chunks. A header at the start of the file holds the size, the head
+ * level and the end of the used space, and is updated with every change,
+ * so opening the same file again finds the list as it was without reading
+ * the nodes. Removed nodes leave garbage behind; once it takes more of the
+ * file than the live nodes do, compact moves the live nodes down over it,
+ * so the file does not grow without bound under inserts and removes.
+ *
+ * Keys are ordered by their UTF-8 bytes, which is the order of
+ * String.compareTo for the names Database accepts. Like SkipList the
+ * newest duplicate comes first and is the one remove takes. Pairs are
+ * decoded from the file on every read, so they are equal to, but not the
+ * same objects as, the pairs that were inserted.
+ *
+ * @author Rushil, Kush
+ *
+ * @version 1.0
+ * @param <V>
+ *            Value
+ */
+public class MappedSkipList<V> implements NameIndex<String, V>, Closeable {
+
+    /**
+     * The number of bytes mapped at a time, and the largest a node can be
+     */
+    public static final int CHUNK_SIZE = 1 << 24;
+
+    /**
+     * The most levels a node can have
+     */
+    public static final int MAX_LEVEL = 32;
+
+    private static final int MAGIC = 0x534B4C31; // "SKL1"
+    private static final int HEADER_SIZE = 64; // bytes before the head node
+    private static final long HEAD = HEADER_SIZE; // offset of the head node
+    private static final long NIL = 0; // offset of no node
+
+    // Header fields
+    private static final int MAGIC_AT = 0;
+    private static final int LEVEL_AT = 4;
+    private static final int SIZE_AT = 8;
+    private static final int END_AT = 16;
+    private static final int GARBAGE_AT = 24;
+
+    // Node fields, from the start of the node
+    private static final int NODE_LEVEL = 0;
+    private static final int NODE_KEY_LENGTH = 4;
+    private static final int NODE_VALUE_LENGTH = 8;
+    private static final int NODE_FORWARD = 12;
+
+    private FileChannel channel;
+    private java.util.ArrayList<MappedByteBuffer> chunks;
+    private final Codec<V> codec;
+    private Random rng; // Random number generator for determining node levels
+    private int level; // highest level in use, the head has MAX_LEVEL
+    private int size; // number of entries in the Skip List
+    private long end; // offset of the first unused byte
+    private long garbage; // bytes of removed nodes
+    private long[] update = new long[MAX_LEVEL + 1]; // path of a change
+
+    /**
+     * Opens the list stored in a file, or creates an empty one if the file
+     * does not exist or is empty.
+     *
+     * @param file
+     *            the file to keep the list in
+     * @param codec
+     *            turns the values into bytes and back
+     * @throws IOException
+     *             if the file cannot be opened or mapped, or holds
+     *             something other than a MappedSkipList
+     * @throws IllegalArgumentException
+     *             if file or codec is null
+     */
+    public MappedSkipList(Path file, Codec<V> codec) throws IOException {
+        if (file == null || codec == null) {
+            throw new IllegalArgumentException("File or codec is null");
+        }
+        this.codec = codec;
+        this.rng = new TestableRandom();
+        chunks = new java.util.ArrayList<>();
+        channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                map(0);
+                ByteBuffer header = chunks.get(0);
+                header.putInt(MAGIC_AT, MAGIC);
+                level = 1;
+                size = 0;
+                garbage = 0;
+                end = HEAD + nodeSize(MAX_LEVEL, 0, 0);
+                header.putInt((int)HEAD + NODE_LEVEL, MAX_LEVEL);
+                writeHeader();
+            }
+            else {
+                map(0);
+                ByteBuffer header = chunks.get(0);
+                if (header.getInt(MAGIC_AT) != MAGIC) {
+                    throw new IOException("Not a MappedSkipList file: "
+                        + file);
+                }
+                level = header.getInt(LEVEL_AT);
+                size = header.getInt(SIZE_AT);
+                end = header.getLong(END_AT);
+                garbage = header.getLong(GARBAGE_AT);
+                map(end);
+            }
+        }
+        catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+
+    /**
+     * Returns the number of elements in the MappedSkipList.
+     *
+     * @return The size of the MappedSkipList.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Returns the number of file bytes in use, counting removed nodes.
+     *
+     * @return the used length of the file
+     */
+    public long getFileLength() {
+        return end;
+    }
+
+
+    /**
+     * Returns the number of file bytes taken by removed nodes.
+     *
+     * @return the bytes no node uses any more
+     */
+    public long getGarbage() {
+        return garbage;
+    }
+
+
+    /**
+     * Moves the live nodes down over the space of removed nodes, keeping
+     * them in file order. The new offset of every node is worked out first
+     * and the links are rewritten to it before any node moves. A node
+     * never moves to a higher offset, so moving them in file order never
+     * overwrites one that has not moved yet. Iterators made before this
+     * must not be used afterwards.
+     */
+    public void compact() {
+        long[] from = new long[size];
+        int n = 0;
+        for (long node = forward(HEAD, 1); node != NIL; node = forward(node,
+            1)) {
+            from[n++] = node;
+        }
+        Arrays.sort(from);
+
+        long[] to = new long[size];
+        long at = HEAD + nodeSize(MAX_LEVEL, 0, 0);
+        for (int k = 0; k < size; k++) {
+            long length = sizeOf(from[k]);
+            if (offsetIn(at) + length > CHUNK_SIZE) {
+                at = (at / CHUNK_SIZE + 1) * CHUNK_SIZE;
+            }
+            to[k] = at;
+            at += length;
+        }
+
+        for (int i = 1; i <= level; i++) {
+            setForward(HEAD, i, moved(forward(HEAD, i), from, to));
+        }
+        for (int k = 0; k < size; k++) {
+            int nodeLevel = levelOf(from[k]);
+            for (int i = 1; i <= nodeLevel; i++) {
+                setForward(from[k], i, moved(forward(from[k], i), from, to));
+            }
+        }
+
+        byte[] bytes = new byte[0];
+        for (int k = 0; k < size; k++) {
+            if (to[k] == from[k]) {
+                continue;
+            }
+            int length = (int)sizeOf(from[k]);
+            if (bytes.length < length) {
+                bytes = new byte[length];
+            }
+            ByteBuffer in = chunkOf(from[k]).duplicate();
+            in.position(offsetIn(from[k]));
+            in.get(bytes, 0, length);
+            ByteBuffer out = chunkOf(to[k]).duplicate();
+            out.position(offsetIn(to[k]));
+            out.put(bytes, 0, length);
+        }
+        end = at;
+        garbage = 0;
+        writeHeader();
+    }
+
+
+    /**
+     * Searches for a key in the list and returns all associated values.
+     *
+     * @param key
+     *            The key to search for.
+     * @return A list of key-value pairs with the specified key.
+     */
+    @Override
+    public MyArrayList<KVPair<String, V>> search(String key) {
+        MyArrayList<KVPair<String, V>> result = new MyArrayList<>();
+        if (key == null) {
+            return result;
+        }
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        long node = forward(findPath(bytes), 1);
+        while (node != NIL && compareKey(node, bytes) == 0) {
+            result.add(pairAt(node));
+            node = forward(node, 1);
+        }
+        return result;
+    }
+
+
+    /**
+     * Inserts the KVPair in front of any entries with the same key.
+     *
+     * @param it
+     *            The key-value pair to insert.
+     * @throws IllegalArgumentException
+     *             if KV Pair, its key or its value is null, or the node
+     *             would be larger than CHUNK_SIZE.
+     */
+    @Override
+    public void insert(KVPair<String, V> it) {
+        if (it == null || it.getKey() == null || it.getValue() == null) {
+            throw new IllegalArgumentException("KV pair is null");
+        }
+        byte[] key = it.getKey().getBytes(StandardCharsets.UTF_8);
+        int valueLength = codec.size(it.getValue());
+        int newLevel = Math.min(1 + Long.numberOfTrailingZeros(rng
+            .nextLong()), MAX_LEVEL);
+        long nodeSize = nodeSize(newLevel, key.length, valueLength);
+        if (nodeSize > CHUNK_SIZE) {
+            throw new IllegalArgumentException("Entry too large: "
+                + nodeSize);
+        }
+
+        findPath(key);
+        long node = allocate((int)nodeSize);
+        ByteBuffer chunk = chunkOf(node);
+        int at = offsetIn(node);
+        chunk.putInt(at + NODE_LEVEL, newLevel);
+        chunk.putInt(at + NODE_KEY_LENGTH, key.length);
+        chunk.putInt(at + NODE_VALUE_LENGTH, valueLength);
+        ByteBuffer out = chunk.duplicate();
+        out.position(at + NODE_FORWARD + 8 * newLevel);
+        out.put(key);
+        out.limit(out.position() + valueLength);
+        codec.write(it.getValue(), out);
+
+        for (int i = level + 1; i <= newLevel; i++) {
+            update[i] = HEAD;
+        }
+        for (int i = 1; i <= newLevel; i++) {
+            setForward(node, i, forward(update[i], i));
+            setForward(update[i], i, node);
+        }
+        level = Math.max(level, newLevel);
+        size++;
+        writeHeader();
+    }
+
+
+    /**
+     * Removes the first occurrence of a key.
+     *
+     * @param key
+     *            The key to remove.
+     * @return The removed key-value pair, or null if not found.
+     */
+    @Override
+    public KVPair<String, V> remove(String key) {
+        if (key == null) {
+            return null;
+        }
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        long node = forward(findPath(bytes), 1);
+        if (node == NIL || compareKey(node, bytes) != 0) {
+            return null;
+        }
+        KVPair<String, V> removed = pairAt(node);
+        unlink(node);
+        return removed;
+    }
+
+
+    /**
+     * Removes a KVPair with the specified value.
+     *
+     * @param val
+     *            the value of the KVPair to be removed
+     * @return the removed KVPair, or null if not found
+     */
+    @Override
+    public KVPair<String, V> removeByValue(V val) {
+        for (long node = forward(HEAD, 1); node != NIL; node = forward(node,
+            1)) {
+            V value = valueAt(node);
+            if (value.equals(val)) {
+                KVPair<String, V> removed = new KVPair<>(keyAt(node), value);
+                pathTo(node);
+                unlink(node);
+                return removed;
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Writes every mapped page that changed back to the file.
+     */
+    public void flush() {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+
+
+    /**
+     * Flushes the list and closes the file. The list cannot be used
+     * afterwards; open the file again to get it back.
+     *
+     * @throws IOException
+     *             if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            flush();
+            chunks.clear();
+            channel.close();
+            channel = null;
+        }
+    }
+
+
+    /**
+     * Prints out the SkipList in a human readable format to the console.
+     */
+    @Override
+    public void dump() {
+        System.out.println("SkipList dump:");
+        if (size == 0) {
+            System.out.println("Node has depth 1, Value (null)");
+            System.out.println("SkipList size is: 0");
+            return;
+        }
+        System.out.println("Node has depth " + level + ", value null");
+        for (long node = forward(HEAD, 1); node != NIL; node = forward(node,
+            1)) {
+            System.out.println("Node has depth " + levelOf(node) + ", value "
+                + pairAt(node).toString());
+        }
+        System.out.println("SkipList size is: " + size);
+    }
+
+
+    /**
+     * Walks down to the last node whose key is less than key and records
+     * the last node before it on each level in update.
+     *
+     * @param key
+     *            the UTF-8 bytes of the key
+     * @return the last node whose key is less than key, or the head
+     */
+    private long findPath(byte[] key) {
+        long current = HEAD;
+        for (int i = level; i >= 1; i--) {
+            long next = forward(current, i);
+            while (next != NIL && compareKey(next, key) < 0) {
+                current = next;
+                next = forward(current, i);
+            }
+            update[i] = current;
+        }
+        return current;
+    }
+
+
+    /**
+     * Records in update the last node before a given node on each level.
+     *
+     * @param target
+     *            a node in the list
+     */
+    private void pathTo(long target) {
+        byte[] key = keyBytes(target);
+        findPath(key);
+        // Equal keys in front of the target may stand on any level
+        for (long node = forward(update[1], 1); node != target;
+            node = forward(node, 1)) {
+            int nodeLevel = levelOf(node);
+            for (int i = 1; i <= nodeLevel; i++) {
+                update[i] = node;
+            }
+        }
+    }
+
+
+    /**
+     * Unlinks a node whose path is in update and lowers the level in use
+     * past levels that are left empty.
+     *
+     * @param node
+     *            the node to unlink
+     */
+    private void unlink(long node) {
+        int nodeLevel = levelOf(node);
+        for (int i = 1; i <= nodeLevel; i++) {
+            setForward(update[i], i, forward(node, i));
+        }
+        while (level > 1 && forward(HEAD, level) == NIL) {
+            level--;
+        }
+        size--;
+        garbage += sizeOf(node);
+        if (garbage > end - garbage) {
+            compact();
+        }
+        else {
+            writeHeader();
+        }
+    }
+
+
+    /**
+     * Looks up where compact moves a node.
+     *
+     * @param node
+     *            a live node, or NIL
+     * @param from
+     *            the offsets of the live nodes, sorted
+     * @param to
+     *            the new offset of each of them
+     * @return the new offset of the node, NIL for NIL
+     */
+    private static long moved(long node, long[] from, long[] to) {
+        return node == NIL ? NIL : to[Arrays.binarySearch(from, node)];
+    }
+
+
+    /**
+     * Returns the number of bytes a node in the file takes.
+     *
+     * @param node
+     *            the node
+     * @return its size in bytes
+     */
+    private long sizeOf(long node) {
+        ByteBuffer chunk = chunkOf(node);
+        int at = offsetIn(node);
+        return nodeSize(chunk.getInt(at + NODE_LEVEL), chunk.getInt(at
+            + NODE_KEY_LENGTH), chunk.getInt(at + NODE_VALUE_LENGTH));
+    }
+
+
+    /**
+     * Compares the key of a node with a key.
+     *
+     * @param node
+     *            the node
+     * @param key
+     *            the UTF-8 bytes of the key
+     * @return a negative number, zero or a positive number as the node's
+     *         key is less than, equal to or greater than key
+     */
+    private int compareKey(long node, byte[] key) {
+        ByteBuffer chunk = chunkOf(node);
+        int at = offsetIn(node);
+        int nodeLevel = chunk.getInt(at + NODE_LEVEL);
+        int length = chunk.getInt(at + NODE_KEY_LENGTH);
+        int start = at + NODE_FORWARD + 8 * nodeLevel;
+        int shared = Math.min(length, key.length);
+        for (int i = 0; i < shared; i++) {
+            int cmp = (chunk.get(start + i) & 0xFF) - (key[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return length - key.length;
+    }
+
+
+    /**
+     * Reads the key bytes of a node.
+     *
+     * @param node
+     *            the node
+     * @return the UTF-8 bytes of its key
+     */
+    private byte[] keyBytes(long node) {
+        ByteBuffer in = chunkOf(node).duplicate();
+        int at = offsetIn(node);
+        byte[] key = new byte[in.getInt(at + NODE_KEY_LENGTH)];
+        in.position(at + NODE_FORWARD + 8 * in.getInt(at + NODE_LEVEL));
+        in.get(key);
+        return key;
+    }
+
+
+    /**
+     * Reads the key of a node.
+     *
+     * @param node
+     *            the node
+     * @return its key
+     */
+    private String keyAt(long node) {
+        return new String(keyBytes(node), StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * Decodes the value of a node.
+     *
+     * @param node
+     *            the node
+     * @return its value
+     */
+    private V valueAt(long node) {
+        ByteBuffer in = chunkOf(node).duplicate();
+        int at = offsetIn(node);
+        int start = at + NODE_FORWARD + 8 * in.getInt(at + NODE_LEVEL) + in
+            .getInt(at + NODE_KEY_LENGTH);
+        in.limit(start + in.getInt(at + NODE_VALUE_LENGTH));
+        in.position(start);
+        return codec.read(in);
+    }
+
+
+    /**
+     * Decodes the entry of a node.
+     *
+     * @param node
+     *            the node
+     * @return a new key-value pair equal to the one inserted
+     */
+    private KVPair<String, V> pairAt(long node) {
+        return new KVPair<>(keyAt(node), valueAt(node));
+    }
+
+
+    /**
+     * Returns the level of a node.
+     *
+     * @param node
+     *            the node
+     * @return its number of forward links
+     */
+    private int levelOf(long node) {
+        return chunkOf(node).getInt(offsetIn(node) + NODE_LEVEL);
+    }
+
+
+    /**
+     * Returns a forward link of a node.
+     *
+     * @param node
+     *            the node
+     * @param i
+     *            the level, from 1
+     * @return the offset of the next node on that level, NIL at the end
+     */
+    private long forward(long node, int i) {
+        return chunkOf(node).getLong(offsetIn(node) + NODE_FORWARD + 8 * (i
+            - 1));
+    }
+
+
+    /**
+     * Sets a forward link of a node.
+     *
+     * @param node
+     *            the node
+     * @param i
+     *            the level, from 1
+     * @param next
+     *            the offset of the next node on that level, NIL at the end
+     */
+    private void setForward(long node, int i, long next) {
+        chunkOf(node).putLong(offsetIn(node) + NODE_FORWARD + 8 * (i - 1),
+            next);
+    }
+
+
+    /**
+     * Returns the number of bytes a node takes.
+     *
+     * @param nodeLevel
+     *            its number of forward links
+     * @param keyLength
+     *            the length of its key in bytes
+     * @param valueLength
+     *            the length of its value in bytes
+     * @return its size in bytes
+     */
+    private static long nodeSize(int nodeLevel, int keyLength,
+        int valueLength) {
+        return NODE_FORWARD + 8L * nodeLevel + keyLength + valueLength;
+    }
+
+
+    /**
+     * Takes space for a node at the end of the used space, starting a new
+     * chunk if the node does not fit in the current one.
+     *
+     * @param length
+     *            the size of the node, at most CHUNK_SIZE
+     * @return the offset of the space
+     */
+    private long allocate(int length) {
+        long node = end;
+        if (offsetIn(node) + (long)length > CHUNK_SIZE) {
+            node = (node / CHUNK_SIZE + 1) * CHUNK_SIZE;
+        }
+        try {
+            map(node + length - 1);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        end = node + length;
+        return node;
+    }
+
+
+    /**
+     * Maps every chunk up to the one holding an offset.
+     *
+     * @param offset
+     *            the offset that must be mapped
+     * @throws IOException
+     *             if the file cannot be mapped
+     */
+    private void map(long offset) throws IOException {
+        while (chunks.size() <= offset / CHUNK_SIZE) {
+            chunks.add(channel.map(FileChannel.MapMode.READ_WRITE,
+                (long)chunks.size() * CHUNK_SIZE, CHUNK_SIZE));
+        }
+    }
+
+
+    /**
+     * Returns the chunk holding an offset.
+     *
+     * @param offset
+     *            the offset
+     * @return its chunk
+     */
+    private ByteBuffer chunkOf(long offset) {
+        return chunks.get((int)(offset / CHUNK_SIZE));
+    }
+
+
+    /**
+     * Returns where an offset is inside its chunk.
+     *
+     * @param offset
+     *            the offset
+     * @return the position in the chunk
+     */
+    private static int offsetIn(long offset) {
+        return (int)(offset & (CHUNK_SIZE - 1));
+    }
+
+
+    /**
+     * Stores the level, size, end and garbage in the file header.
+     */
+    private void writeHeader() {
+        ByteBuffer header = chunks.get(0);
+        header.putInt(LEVEL_AT, level);
+        header.putInt(SIZE_AT, size);
+        header.putLong(END_AT, end);
+        header.putLong(GARBAGE_AT, garbage);
+    }
+
+
+    /**
+     * Iterates over the entries, decoding each one from the file.
+     */
+    private class MappedIterator implements Iterator<KVPair<String, V>> {
+        private long current = forward(HEAD, 1);
+
+        @Override
+        public boolean hasNext() {
+            return current != NIL;
+        }
+
+
+        @Override
+        public KVPair<String, V> next() {
+            if (current == NIL) {
+                throw new NoSuchElementException();
+            }
+            KVPair<String, V> elem = pairAt(current);
+            current = forward(current, 1);
+            return elem;
+        }
+    }
+
+    /**
+     * Returns an iterator over elements of the MappedSkipList.
+     *
+     * @return An iterator over key-value pairs.
+     */
+    @Override
+    public Iterator<KVPair<String, V>> iterator() {
+        return new MappedIterator();
+    }
+}
@@ -0,0 +1,261 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * The test class for MappedSkipList
+ *
+ * @author Rushil, Kush
+ * @version 1.0
+ */
+public class MappedSkipListTest extends NameIndexTestCase {
+    private Path file;
+    private MappedSkipList<Point> list;
+
+    /**
+     * Sets up a list in a new temporary file
+     *
+     * @throws IOException
+     *             if the file cannot be made
+     */
+    public void setUp() throws IOException {
+        file = File.createTempFile("mapped", ".skl").toPath();
+        Files.delete(file);
+        list = new MappedSkipList<>(file, new PointCodec());
+    }
+
+
+    /**
+     * Closes the list and removes its file
+     *
+     * @throws IOException
+     *             if the file cannot be removed
+     */
+    public void tearDown() throws IOException {
+        list.close();
+        Files.deleteIfExists(file);
+    }
+
+
+    /**
+     * Tests bad arguments and a file of another kind
+     *
+     * @throws IOException
+     *             if the temporary file cannot be written
+     */
+    public void testIllegalArguments() throws IOException {
+        try {
+            new MappedSkipList<Point>(null, new PointCodec());
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+        try {
+            list.insert(new KVPair<String, Point>("a", null));
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+        Path other = File.createTempFile("other", ".txt").toPath();
+        Files.write(other, "not a list".getBytes());
+        try {
+            new MappedSkipList<Point>(other, new PointCodec());
+            fail("Expected IOException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IOException);
+        }
+        Files.delete(other);
+        assertTrue(list.search(null).isEmpty());
+        assertNull(list.remove(null));
+        assertNull(list.remove("a"));
+        assertNull(list.removeByValue(new Point("a", 1, 1)));
+    }
+
+
+    /**
+     * Tests that random inserts and removes give the same entries in the
+     * same order as a SkipList
+     */
+    public void testMatchesSkipList() {
+        String[] keys = new String[300];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = "p" + i;
+        }
+        assertMatchesSkipList(list, keys, step -> new Point("p", step % 1024,
+            step / 1024), 10000, 25);
+        // Garbage never takes more than half of the file
+        assertTrue(list.getGarbage() * 2 <= list.getFileLength());
+    }
+
+
+    /**
+     * Tests that closing and opening the file gives back the same list
+     *
+     * @throws IOException
+     *             if the file cannot be reopened
+     */
+    public void testReopen() throws IOException {
+        SkipList<String, Point> reference = new SkipList<>();
+        for (int i = 0; i < 2000; i++) {
+            String name = "n" + (i * 37 % 1000);
+            KVPair<String, Point> pair = new KVPair<>(name, new Point(name, i
+                % 1024, 0));
+            list.insert(pair);
+            reference.insert(pair);
+        }
+        for (int i = 0; i < 500; i++) {
+            assertSamePair(reference.remove("n" + i), list.remove("n" + i));
+        }
+        long length = list.getFileLength();
+        list.close();
+        list.close();
+
+        list = new MappedSkipList<>(file, new PointCodec());
+        assertEquals(length, list.getFileLength());
+        assertSameEntries(list, reference);
+        KVPair<String, Point> pair = new KVPair<>("a", new Point("a", 5, 5));
+        list.insert(pair);
+        reference.insert(pair);
+        assertSameEntries(list, reference);
+    }
+
+
+    /**
+     * Tests that the space of removed nodes is reused, so the file stays
+     * the same size under steady inserts and removes, and that a compacted
+     * file opens again
+     *
+     * @throws IOException
+     *             if the file cannot be reopened
+     */
+    public void testCompaction() throws IOException {
+        SkipList<String, Point> reference = new SkipList<>();
+        for (int i = 0; i < 1000; i++) {
+            KVPair<String, Point> pair = new KVPair<>("n" + i, new Point("n"
+                + i, i, i));
+            list.insert(pair);
+            reference.insert(pair);
+        }
+        long loaded = list.getFileLength();
+        Random random = new Random(250);
+        for (int step = 0; step < 20000; step++) {
+            String name = "n" + random.nextInt(1000);
+            assertSamePair(reference.remove(name), list.remove(name));
+            KVPair<String, Point> pair = new KVPair<>(name, new Point(name,
+                step % 1024, step / 1024));
+            list.insert(pair);
+            reference.insert(pair);
+        }
+        // Twenty times the entries went through, but the file is at most
+        // twice what they take
+        assertTrue(list.getFileLength() <= 2 * loaded + 1024);
+        assertSameEntries(list, reference);
+
+        list.remove("n1");
+        reference.remove("n1");
+        long garbage = list.getGarbage();
+        assertTrue(garbage > 0);
+        long length = list.getFileLength() - garbage;
+        list.compact();
+        assertEquals(0, list.getGarbage());
+        assertEquals(length, list.getFileLength());
+        list.close();
+        list = new MappedSkipList<>(file, new PointCodec());
+        assertEquals(length, list.getFileLength());
+        assertSameEntries(list, reference);
+        for (int i = 0; i < 1000; i++) {
+            assertSamePair(reference.remove("n" + i), list.remove("n" + i));
+        }
+        assertEquals(0, list.size());
+        assertFalse(list.iterator().hasNext());
+    }
+
+
+    /**
+     * Tests that entries keep going into a new chunk once the first one is
+     * full
+     */
+    public void testChunks() {
+        StringBuilder longName = new StringBuilder("x");
+        for (int i = 0; i < 100000; i++) {
+            longName.append('y');
+        }
+        String name = longName.toString();
+        for (int i = 0; i < 200; i++) {
+            list.insert(new KVPair<>(name + i, new Point(name, i, i)));
+        }
+        assertTrue(list.getFileLength() > MappedSkipList.CHUNK_SIZE);
+        assertEquals(200, list.size());
+        assertEquals(new Point(name, 150, 150), list.search(name + 150).get(0)
+            .getValue());
+        assertEquals(199, list.removeByValue(new Point(name, 199, 199))
+            .getValue().getX());
+        assertEquals(199, list.size());
+    }
+
+
+    /**
+     * Tests the iterator, the dump and using the list in a Database
+     */
+    public void testIteratorDumpAndDatabase() {
+        Iterator<KVPair<String, Point>> iterator = list.iterator();
+        assertFalse(iterator.hasNext());
+        try {
+            iterator.next();
+            fail("Expected NoSuchElementException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof java.util.NoSuchElementException);
+        }
+        systemOut().clearHistory();
+        list.dump();
+        assertTrue(systemOut().getHistory().contains("SkipList size is: 0"));
+
+        Database db = new Database(list);
+        db.insert("apple", 100, 100);
+        db.insert("apple", 200, 200);
+        db.insert("pear", 300, 300);
+        db.remove("pear");
+        db.remove(100, 100);
+        assertEquals(1, list.size());
+        systemOut().clearHistory();
+        db.search("apple");
+        list.dump();
+        String history = systemOut().getHistory();
+        assertTrue(history.contains("Found (apple, 200, 200)"));
+        assertTrue(history.contains(", value (apple, 200, 200)"));
+        assertTrue(history.contains("SkipList size is: 1"));
+    }
+
+
+    /**
+     * Checks that two pairs hold equal keys and values, or are both null,
+     * since the list reads a new copy of a pair on every call
+     *
+     * @param <K>
+     *            Key
+     * @param <V>
+     *            Value
+     * @param expected
+     *            the pair from the reference
+     * @param actual
+     *            the pair read from the file
+     */
+    @Override
+    protected <K extends Comparable<K>, V> void assertSamePair(
+        KVPair<K, V> expected, KVPair<K, V> actual) {
+        if (expected == null) {
+            assertNull(actual);
+            return;
+        }
+        assertEquals(expected.getKey(), actual.getKey());
+        assertEquals(expected.getValue().toString(), actual.getValue()
+            .toString());
+    }
+}
@@ -98,6 +98,30 @@ public class MyArrayList<E> {
     }
 
 
+    /**
+     * Removes the element at the specified position in this list and shifts
+     * any later elements one position to the left.
+     *
+     * @param index
+     *            index of the element to remove
+     * @return the element that was removed from the list
+     * @throws IndexOutOfBoundsException
+     *             if the index is out of range
+     */
+    @SuppressWarnings("unchecked")
+    public E remove(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+                + size);
+        }
+        E oldValue = (E)elements[index];
+        System.arraycopy(elements, index + 1, elements, index, size - index
+            - 1);
+        elements[--size] = null;
+        return oldValue;
+    }
+
+
     /**
      * Returns the number of elements in this list.
      *
@@ -150,4 +150,27 @@ public class MyArrayListTest extends TestCase {
         assertEquals(-1, list.indexOf(5));
         assertEquals(2, list.indexOf(null));
     }
+
+
+    /**
+     * Tests the remove method
+     */
+    public void testRemove() {
+        list.add(1);
+        list.add(2);
+        list.add(3);
+        assertEquals(2, list.remove(1), 0.01);
+        assertEquals(2, list.size());
+        assertEquals(3, list.get(1), 0.01);
+        assertEquals(3, list.remove(1), 0.01);
+        assertEquals(1, list.remove(0), 0.01);
+        assertTrue(list.isEmpty());
+        try {
+            list.remove(0);
+            fail("Expected IndexOutOfBoundsException");
+        }
+        catch (Exception e) {
+            assertTrue(e instanceof IndexOutOfBoundsException);
+        }
+    }
 }
@@ -0,0 +1,68 @@
+/**
+ * The operations the Database needs from the index that maps point names to
+ * points. SkipList is the default implementation; other implementations can
+ * be passed to the Database constructor instead.
+ *
+ * @author Rushil, Kush
+ *
+ * @version 1.0
+ * @param <K>
+ *            Key
+ * @param <V>
+ *            Value
+ */
+public interface NameIndex<K extends Comparable<K>, V>
+    extends Iterable<KVPair<K, V>> {
+
+    /**
+     * Inserts the KVPair into the index. Duplicate keys are allowed.
+     *
+     * @param it
+     *            The key-value pair to insert.
+     */
+    void insert(KVPair<K, V> it);
+
+
+    /**
+     * Searches for a key and returns all associated values.
+     *
+     * @param key
+     *            The key to search for.
+     * @return A list of key-value pairs with the specified key.
+     */
+    MyArrayList<KVPair<K, V>> search(K key);
+
+
+    /**
+     * Removes the first occurrence of a key.
+     *
+     * @param key
+     *            The key to remove.
+     * @return The removed key-value pair, or null if not found.
+     */
+    KVPair<K, V> remove(K key);
+
+
+    /**
+     * Removes a KVPair with the specified value.
+     *
+     * @param val
+     *            the value of the KVPair to be removed
+     * @return the removed KVPair, or null if not found
+     */
+    KVPair<K, V> removeByValue(V val);
+
+
+    /**
+     * Returns the number of entries in the index.
+     *
+     * @return The size of the index.
+     */
+    int size();
+
+
+    /**
+     * Prints out the index in a human readable format to the console.
+     */
+    void dump();
+}
@@ -0,0 +1,161 @@
+import java.util.Iterator;
+import java.util.Random;
+import java.util.function.IntFunction;
+import student.TestCase;
+
+/**
+ * Base class for the tests of NameIndex implementations. It checks an index
+ * against SkipList, the reference implementation: after the same random
+ * inserts and removes, both must hold the same entries in the same order
+ * and return the same entries from every call. Tests of an index extend
+ * this class and keep their own tests for what is special about it.
+ *
+ * @author Rushil, Kush
+ * @version 1.0
+ */
+public abstract class NameIndexTestCase extends TestCase {
+
+    /**
+     * Runs random inserts, removes by key and removes by value on an index
+     * and on a SkipList, and checks that they agree along the way and at
+     * the end. The value inserted at step i is values.apply(i), so removes
+     * by value ask for the value of a random earlier step.
+     *
+     * @param <K>
+     *            Key
+     * @param <V>
+     *            Value
+     * @param subject
+     *            the empty index to test
+     * @param keys
+     *            the keys to draw from
+     * @param values
+     *            makes the value inserted at a step
+     * @param steps
+     *            the number of random operations
+     * @param seed
+     *            the seed of the random operations
+     * @return the SkipList holding what the index should hold now
+     */
+    protected <K extends Comparable<K>, V> SkipList<K, V> assertMatchesSkipList(
+        NameIndex<K, V> subject, K[] keys, IntFunction<V> values, int steps,
+        long seed) {
+        SkipList<K, V> reference = new SkipList<>();
+        Random random = new Random(seed);
+        for (int step = 0; step < steps; step++) {
+            K key = keys[random.nextInt(keys.length)];
+            int action = random.nextInt(10);
+            if (action < 6) {
+                KVPair<K, V> pair = new KVPair<>(key, values.apply(step));
+                subject.insert(pair);
+                reference.insert(pair);
+            }
+            else if (action < 9) {
+                assertSamePair(reference.remove(key), subject.remove(key));
+            }
+            else {
+                V value = values.apply(random.nextInt(step + 1));
+                assertSamePair(reference.removeByValue(value), subject
+                    .removeByValue(value));
+            }
+            if (step % 1000 == 0) {
+                assertSameEntries(subject, reference);
+            }
+        }
+        assertSameEntries(subject, reference);
+        for (K key : keys) {
+            MyArrayList<KVPair<K, V>> expected = reference.search(key);
+            MyArrayList<KVPair<K, V>> actual = subject.search(key);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertSamePair(expected.get(i), actual.get(i));
+            }
+        }
+        return reference;
+    }
+
+
+    /**
+     * Checks that an index iterates the same pairs as the reference.
+     *
+     * @param <K>
+     *            Key
+     * @param <V>
+     *            Value
+     * @param subject
+     *            the index to check
+     * @param reference
+     *            the SkipList to compare with
+     */
+    protected <K extends Comparable<K>, V> void assertSameEntries(
+        NameIndex<K, V> subject, SkipList<K, V> reference) {
+        assertEquals(reference.size(), subject.size());
+        Iterator<KVPair<K, V>> iterator = subject.iterator();
+        for (KVPair<K, V> pair : reference) {
+            assertSamePair(pair, iterator.next());
+        }
+        assertFalse(iterator.hasNext());
+    }
+
+
+    /**
+     * Checks that an index dumps the same lines as the reference. Only the
+     * depths may differ, since they depend on how the index is built.
+     *
+     * @param <K>
+     *            Key
+     * @param <V>
+     *            Value
+     * @param subject
+     *            the index to check
+     * @param reference
+     *            the SkipList holding the same entries
+     */
+    protected <K extends Comparable<K>, V> void assertDumpMatchesSkipList(
+        NameIndex<K, V> subject, SkipList<K, V> reference) {
+        systemOut().clearHistory();
+        reference.dump();
+        String expected = systemOut().getHistory().replaceAll("depth \\d+",
+            "depth");
+        systemOut().clearHistory();
+        subject.dump();
+        assertEquals(expected, systemOut().getHistory().replaceAll(
+            "depth \\d+", "depth"));
+    }
+
+
+    /**
+     * Checks that the index returned the pair the reference returned. The
+     * default wants the same object; indexes that store copies override
+     * this.
+     *
+     * @param <K>
+     *            Key
+     * @param <V>
+     *            Value
+     * @param expected
+     *            the pair from the reference, may be null
+     * @param actual
+     *            the pair from the index
+     */
+    protected <K extends Comparable<K>, V> void assertSamePair(
+        KVPair<K, V> expected, KVPair<K, V> actual) {
+        assertSame(expected, actual);
+    }
+
+
+    /**
+     * Returns the keys 0 to count - 1.
+     *
+     * @param count
+     *            the number of keys
+     * @return the keys
+     */
+    protected static Integer[] intKeys(int count) {
+        Integer[] keys = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = i;
+        }
+        return keys;
+    }
+}
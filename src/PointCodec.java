@@ -0,0 +1,58 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Stores a Point as its x and y coordinates followed by the UTF-8 bytes of
+ * its name.
+ *
+ * @author Rushil, Kush
+ *
+ * @version 1.0
+ */
+public class PointCodec implements Codec<Point> {
+
+    /**
+     * Returns the number of bytes a point takes.
+     *
+     * @param value
+     *            the point
+     * @return its size in bytes
+     */
+    @Override
+    public int size(Point value) {
+        return 8 + value.getName().getBytes(StandardCharsets.UTF_8).length;
+    }
+
+
+    /**
+     * Writes a point.
+     *
+     * @param value
+     *            the point
+     * @param out
+     *            the buffer to write to
+     */
+    @Override
+    public void write(Point value, ByteBuffer out) {
+        out.putInt(value.getX());
+        out.putInt(value.getY());
+        out.put(value.getName().getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    /**
+     * Reads a point back.
+     *
+     * @param in
+     *            the buffer holding the point
+     * @return the point
+     */
+    @Override
+    public Point read(ByteBuffer in) {
+        int x = in.getInt();
+        int y = in.getInt();
+        byte[] name = new byte[in.remaining()];
+        in.get(name);
+        return new Point(new String(name, StandardCharsets.UTF_8), x, y);
+    }
+}
@@ -0,0 +1,28 @@
+import java.nio.ByteBuffer;
+import student.TestCase;
+
+/**
+ * The test class for PointCodec
+ *
+ * @author Rushil, Kush
+ * @version 1.0
+ */
+public class PointCodecTest extends TestCase {
+
+    /**
+     * Tests that a point reads back as it was written
+     */
+    public void testRoundTrip() {
+        PointCodec codec = new PointCodec();
+        Point point = new Point("p_1", 1023, 7);
+        assertEquals(11, codec.size(point));
+        ByteBuffer buffer = ByteBuffer.allocate(codec.size(point));
+        codec.write(point, buffer);
+        assertEquals(0, buffer.remaining());
+        buffer.flip();
+        Point read = codec.read(buffer);
+        assertEquals(point, read);
+        assertEquals("p_1", read.getName());
+        assertEquals(point.toString(), read.toString());
+    }
+}
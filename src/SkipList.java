@@ -1,5 +1,15 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Random;
 import student.TestableRandom;
 
@@ -16,291 +26,1417 @@ import student.TestableRandom;
  *            Value
  */
 public class SkipList<K extends Comparable<K>, V>
-    implements Iterable<KVPair<K, V>> {
+    implements NameIndex<K, V> {
+
+    // The died value of a node that has not been removed
+    private static final long LIVE = Long.MAX_VALUE;
 
     private SkipNode head; // First element (Sentinel Node)
+    private SkipNode tail; // last node of level 1, null if there is none
+
+    private int size; // number of entries in the Skip List
+    private Random rng; // Random number generator for determining node levels
+    private int maxLevel; // highest level a node may get, 0 if unbounded
+    private double probability; // promotion probability, 0 for coin flips
+    private int levelShift; // k when probability is 2^-k, otherwise 0
+    private int[] levelCounts; // number of nodes of each level
+    private SkipNode[] update; // search path reused by insert and remove
+    private int[] rank; // rank of each node in update
+    private boolean fingerSearch; // start searches from the last path
+    private boolean fingerValid; // update still holds a usable path
+    private K fingerKey; // the key update was last filled in for
+    private long modCount; // number of inserts and removes so far
+    private int removesSinceRebalance; // removes since the last full pass
+    private Rebalance rebalance; // state of an unfinished rebalance pass
+    private HashSet<Reference<?>> snapshots; // one per open snapshot
+    private ReferenceQueue<Object> lostSnapshots; // dropped unclosed ones
+    private int deadCount; // removed nodes still linked (tombstones)
+    private double tombstoneRatio; // purge past this share, 0 if not lazy
+
+    /**
+     * Constructs an empty SkipList.
+     */
+    public SkipList() {
+        head = new SkipNode(null, 1); // Initialize with level 1 instead of 0
+        size = 0;
+        this.rng = new TestableRandom();
+        update = newPath(head.level);
+        rank = new int[head.level + 1];
+        head.span[1] = 1;
+        levelCounts = new int[2];
+        snapshots = new HashSet<>();
+        lostSnapshots = new ReferenceQueue<>();
+    }
+
+
+    /**
+     * Constructs an empty SkipList whose levels never exceed maxLevel. The
+     * head is allocated at full height up front and the search path is
+     * reused, so once warmed up insert only allocates the new node and
+     * remove allocates nothing. Unlike the unbounded list, the head level
+     * also shrinks again when removes empty the top levels.
+     * 
+     * @param maxLevel
+     *            the highest level a node may have
+     * @throws IllegalArgumentException
+     *             if maxLevel is less than 1
+     */
+    public SkipList(int maxLevel) {
+        this(0.5, maxLevel);
+    }
+
+
+    /**
+     * Constructs an empty bounded SkipList where a node reaches each next
+     * level with the given probability. A smaller probability means fewer
+     * links per node (1 / (1 - p) on average) but longer walks at each
+     * level; 1/2, 1/4 and 1/e are the usual choices.
+     * 
+     * @param probability
+     *            the chance that a node is promoted to the next level
+     * @param maxLevel
+     *            the highest level a node may have
+     * @throws IllegalArgumentException
+     *             if probability is not between 0 and 1 or maxLevel is less
+     *             than 1
+     */
+    public SkipList(double probability, int maxLevel) {
+        if (!(probability > 0 && probability < 1)) {
+            throw new IllegalArgumentException("Illegal probability: "
+                + probability);
+        }
+        if (maxLevel < 1) {
+            throw new IllegalArgumentException("Illegal max level: "
+                + maxLevel);
+        }
+        this.maxLevel = maxLevel;
+        this.probability = probability;
+        // Powers of 1/2 can be read straight off the bits of a random word
+        int shift = Math.getExponent(probability);
+        if (probability == Math.scalb(1.0, shift)) {
+            levelShift = -shift;
+        }
+        head = new SkipNode(null, maxLevel);
+        head.level = 1;
+        size = 0;
+        this.rng = new TestableRandom();
+        update = newPath(maxLevel);
+        rank = new int[maxLevel + 1];
+        head.span[1] = 1;
+        levelCounts = new int[maxLevel + 1];
+        snapshots = new HashSet<>();
+        lostSnapshots = new ReferenceQueue<>();
+    }
+
+
+    /**
+     * Constructs a SkipList from entries that are already sorted by key, in
+     * one linear pass. Instead of flipping coins, the i-th entry (counting
+     * from 1) gets level 1 + the number of trailing zero bits of i, so every
+     * second node reaches level 2, every fourth level 3, and so on.
+     * 
+     * @param sorted
+     *            the entries in ascending key order
+     * @throws IllegalArgumentException
+     *             if sorted or one of its entries is null, or the entries
+     *             are not in ascending key order
+     */
+    public SkipList(Iterable<KVPair<K, V>> sorted) {
+        this();
+        if (sorted == null) {
+            throw new IllegalArgumentException("Sorted entries are null");
+        }
+
+        // Last node linked at each level, null while that is the head
+        SkipNode[] last = newPath(head.level);
+        int[] lastRank = new int[head.level + 1];
+        K previous = null;
+        for (KVPair<K, V> it : sorted) {
+            if (it == null) {
+                throw new IllegalArgumentException("KV pair is null");
+            }
+            if (previous != null && previous.compareTo(it.getKey()) > 0) {
+                throw new IllegalArgumentException("Entries are not sorted: "
+                    + it.getKey() + " after " + previous);
+            }
+            previous = it.getKey();
+
+            int newLevel = 1 + Integer.numberOfTrailingZeros(size + 1);
+            if (newLevel > head.level) {
+                adjustHead(newLevel);
+                last = Arrays.copyOf(last, newLevel + 1);
+                lastRank = Arrays.copyOf(lastRank, newLevel + 1);
+            }
+            SkipNode newNode = new SkipNode(it, newLevel);
+            countLevel(newLevel, 1);
+            size++;
+            for (int i = 1; i <= newLevel; i++) {
+                SkipNode pred = last[i] == null ? head : last[i];
+                pred.forward[i] = newNode;
+                pred.span[i] = size - lastRank[i];
+                last[i] = newNode;
+                lastRank[i] = size;
+            }
+        }
+
+        // The last node of each level spans to the end of the list
+        for (int i = 1; i < last.length; i++) {
+            SkipNode pred = last[i] == null ? head : last[i];
+            pred.span[i] = size + 1 - lastRank[i];
+        }
+        tail = last[1];
+    }
+
+
+    /**
+     * Generates a random level for a new node. A list built with a
+     * probability draws one random word per node: for a probability of
+     * 2^-k the level is 1 + (trailing zero bits / k), otherwise the word is
+     * turned into a uniform number and the geometric level is computed
+     * directly. The default list flips one coin per level.
+     * 
+     * @return The randomly generated level.
+     */
+    public int randomLevel() {
+        if (probability > 0) {
+            long word = rng.nextLong();
+            int level;
+            if (levelShift > 0) {
+                level = 1 + Long.numberOfTrailingZeros(word) / levelShift;
+            }
+            else {
+                // A uniform number in (0, 1] from the top 53 bits
+                double u = ((word >>> 11) + 1) * 0x1.0p-53;
+                level = 1 + (int)Math.min(maxLevel, Math.log(u) / Math.log(
+                    probability));
+            }
+            return Math.min(level, maxLevel);
+        }
+        int level = 1; // Start at level 1
+        while ((maxLevel == 0 || level < maxLevel) && rng.nextBoolean())
+            level++;
+        return level;
+    }
+
+
+    /**
+     * Returns the probability that a node is promoted to the next level.
+     * 
+     * @return the promotion probability
+     */
+    public double getProbability() {
+        return probability > 0 ? probability : 0.5;
+    }
+
+
+    /**
+     * Returns how many nodes there are of each level. Entry i of the array
+     * is the number of nodes whose level is exactly i; entry 0 is always 0.
+     * 
+     * @return a copy of the level histogram
+     */
+    public int[] levelHistogram() {
+        int top = levelCounts.length - 1;
+        while (top > 1 && levelCounts[top] == 0) {
+            top--;
+        }
+        return Arrays.copyOf(levelCounts, top + 1);
+    }
+
+
+    /**
+     * Adds to the count of nodes of a level.
+     * 
+     * @param level
+     *            the level of the node
+     * @param delta
+     *            1 for a new node, -1 for a removed one
+     */
+    private void countLevel(int level, int delta) {
+        if (level >= levelCounts.length) {
+            levelCounts = Arrays.copyOf(levelCounts, Math.max(level + 1,
+                levelCounts.length * 2));
+        }
+        levelCounts[level] += delta;
+    }
+
+
+    /**
+     * Returns the highest level a node may have.
+     * 
+     * @return the max level, or 0 if levels are unbounded
+     */
+    public int getMaxLevel() {
+        return maxLevel;
+    }
+
+
+    /**
+     * Returns First element (Sentinel Node)
+     * 
+     * @return head SkipNode
+     */
+    public SkipNode getHead() {
+        return head;
+    }
+
+
+    /**
+     * Searches for a key in the SkipList and returns all associated values.
+     * 
+     * @param key
+     *            The key to search for.
+     * @return A list of key-value pairs with the specified key.
+     * @throws IllegalArgumentException
+     *             if key is null.
+     */
+    public MyArrayList<KVPair<K, V>> search(K key) {
+        MyArrayList<KVPair<K, V>> result = new MyArrayList<>();
+
+        // Move to the first node of level 1 that is not less than key
+        SkipNode current = fingerSearch
+            ? findPath(key).forward[1]
+            : predecessor(key).forward[1];
+
+        while (current != null && current.element() != null && current.element()
+            .getKey().compareTo(key) == 0) {
+            if (current.isLive()) {
+                result.add(current.element());
+            }
+            current = current.forward[1];
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Searches for many keys at once. The keys are sorted and then found in
+     * one left to right pass: each search climbs the path of the previous
+     * key only as far as it has to, instead of starting again from the top
+     * of the head. For m keys that costs about O(m log(n / m)) steps rather
+     * than O(m log n).
+     * 
+     * @param keys
+     *            the keys to search for, in any order and with repeats
+     * @return the entries of every distinct key, grouped by key in key order
+     * @throws IllegalArgumentException
+     *             if keys is null or holds a null key
+     */
+    @SuppressWarnings("unchecked")
+    public BatchResult<K, V> searchAll(Collection<K> keys) {
+        if (keys == null) {
+            throw new IllegalArgumentException("Keys are null");
+        }
+        Object[] sorted = keys.toArray();
+        for (Object key : sorted) {
+            if (key == null) {
+                throw new IllegalArgumentException("Key is null");
+            }
+        }
+        Arrays.sort(sorted);
+
+        int distinct = 0;
+        for (int k = 0; k < sorted.length; k++) {
+            if (distinct == 0 || ((K)sorted[distinct - 1]).compareTo(
+                (K)sorted[k]) != 0) {
+                sorted[distinct++] = sorted[k];
+            }
+        }
+
+        int[] offsets = new int[distinct + 1];
+        Object[] pairs = new Object[distinct];
+        int found = 0;
+        // A local path, so the shared one and the finger stay untouched
+        SkipNode[] path = newPath(head.level);
+        Arrays.fill(path, head);
+
+        for (int k = 0; k < distinct; k++) {
+            K key = (K)sorted[k];
+
+            // Keys only grow, so the path is still before key at every
+            // level; climb until the next node is not
+            int top = 1;
+            while (top < head.level && path[top].forward[top] != null
+                && path[top].forward[top].element().getKey().compareTo(
+                    key) < 0) {
+                top++;
+            }
+            SkipNode current = path[top];
+            for (int i = top; i >= 1; i--) {
+                while (current.forward[i] != null && current.forward[i]
+                    .element().getKey().compareTo(key) < 0) {
+                    current = current.forward[i];
+                }
+                path[i] = current;
+            }
+
+            for (current = current.forward[1]; current != null && current
+                .element().getKey().compareTo(key) == 0;
+                current = current.forward[1]) {
+                if (current.isLive()) {
+                    if (found == pairs.length) {
+                        pairs = Arrays.copyOf(pairs, pairs.length * 2 + 1);
+                    }
+                    pairs[found++] = current.element();
+                }
+            }
+            offsets[k + 1] = found;
+        }
+        return new BatchResult<K, V>(sorted, offsets, pairs, distinct);
+    }
+
+
+    /**
+     * Returns the entries with from <= key < to in key order. The list is
+     * descended once to find the start and the iterator then walks level 1
+     * lazily, so nothing is buffered.
+     * 
+     * @param from
+     *            the smallest key to include, or null to start at the first
+     *            entry
+     * @param to
+     *            the key to stop before, or null to run to the last entry
+     * @return An iterator over the key-value pairs in the range.
+     */
+    public Iterator<KVPair<K, V>> range(K from, K to) {
+        return range(from, to, Integer.MAX_VALUE);
+    }
+
+
+    /**
+     * Returns at most limit entries with from <= key < to in key order.
+     * 
+     * @param from
+     *            the smallest key to include, or null to start at the first
+     *            entry
+     * @param to
+     *            the key to stop before, or null to run to the last entry
+     * @param limit
+     *            the most entries the iterator will return
+     * @return An iterator over the key-value pairs in the range.
+     * @throws IllegalArgumentException
+     *             if limit is negative
+     */
+    public Iterator<KVPair<K, V>> range(K from, K to, int limit) {
+        SkipNode start = from == null ? head : predecessor(from);
+        return new RangeIterator(start.forward[1], to, null, limit);
+    }
+
+
+    /**
+     * Returns the entries whose key starts with prefix in key order. This
+     * needs the keys to be Strings.
+     * 
+     * @param prefix
+     *            the prefix every returned key starts with
+     * @return An iterator over the key-value pairs with the prefix.
+     * @throws ClassCastException
+     *             if the keys are not Strings
+     */
+    public Iterator<KVPair<K, V>> prefix(String prefix) {
+        return prefix(prefix, Integer.MAX_VALUE);
+    }
+
+
+    /**
+     * Returns at most limit entries whose key starts with prefix in key
+     * order. This needs the keys to be Strings.
+     * 
+     * @param prefix
+     *            the prefix every returned key starts with
+     * @param limit
+     *            the most entries the iterator will return
+     * @return An iterator over the key-value pairs with the prefix.
+     * @throws IllegalArgumentException
+     *             if prefix is null or limit is negative
+     * @throws ClassCastException
+     *             if the keys are not Strings
+     */
+    @SuppressWarnings("unchecked")
+    public Iterator<KVPair<K, V>> prefix(String prefix, int limit) {
+        if (prefix == null) {
+            throw new IllegalArgumentException("Prefix is null");
+        }
+        // Every key with the prefix sorts at or after the prefix itself
+        SkipNode start = predecessor((K)prefix);
+        return new RangeIterator(start.forward[1], null, prefix, limit);
+    }
+
+
+    /**
+     * Returns the first entry in key order.
+     * 
+     * @return the first key-value pair, or null if the list is empty
+     */
+    public KVPair<K, V> first() {
+        SkipNode node = nextLive(head.forward[1]);
+        return node != null ? node.element() : null;
+    }
+
+
+    /**
+     * Returns the last entry in key order. The list keeps a pointer to its
+     * last node, so this is O(1) unless that node is a tombstone.
+     * 
+     * @return the last key-value pair, or null if the list is empty
+     */
+    public KVPair<K, V> last() {
+        if (size == 0) {
+            return null;
+        }
+        return tail.isLive() ? tail.element() : nodeAt(size).element();
+    }
+
+
+    /**
+     * Returns the first entry whose key is greater than or equal to key.
+     * 
+     * @param key
+     *            the key to look for
+     * @return the key-value pair, or null if there is none
+     */
+    public KVPair<K, V> ceiling(K key) {
+        SkipNode node = nextLive(predecessor(key).forward[1]);
+        return node != null ? node.element() : null;
+    }
+
+
+    /**
+     * Returns the first entry whose key is greater than key.
+     * 
+     * @param key
+     *            the key to look for
+     * @return the key-value pair, or null if there is none
+     */
+    public KVPair<K, V> higher(K key) {
+        SkipNode node = nextLive(lastBefore(key, true).forward[1]);
+        return node != null ? node.element() : null;
+    }
+
+
+    /**
+     * Returns the last entry whose key is less than or equal to key. With
+     * duplicates this is the oldest entry of the key.
+     * 
+     * @param key
+     *            the key to look for
+     * @return the key-value pair, or null if there is none
+     */
+    public KVPair<K, V> floor(K key) {
+        return liveAtOrBefore(key, true);
+    }
+
+
+    /**
+     * Returns the last entry whose key is less than key.
+     * 
+     * @param key
+     *            the key to look for
+     * @return the key-value pair, or null if there is none
+     */
+    public KVPair<K, V> lower(K key) {
+        return liveAtOrBefore(key, false);
+    }
+
+
+    /**
+     * Walks down from the head to the last node whose key is less than key,
+     * or not greater than key if inclusive.
+     * 
+     * @param key
+     *            the key to look for
+     * @param inclusive
+     *            true to also step over nodes equal to key
+     * @return the last such node, or the head
+     */
+    private SkipNode lastBefore(K key, boolean inclusive) {
+        int bound = inclusive ? 0 : -1;
+        SkipNode current = head;
+        for (int i = head.level; i >= 1; i--) {
+            while (current.forward[i] != null && current.forward[i]
+                .element().getKey().compareTo(key) <= bound) {
+                current = current.forward[i];
+            }
+        }
+        return current;
+    }
+
+
+    /**
+     * Finds the last live entry whose key is less than key, or not greater
+     * than key if inclusive, in one descent.
+     * 
+     * @param key
+     *            the key to look for
+     * @param inclusive
+     *            true to also accept entries equal to key
+     * @return the key-value pair, or null if there is none
+     */
+    private KVPair<K, V> liveAtOrBefore(K key, boolean inclusive) {
+        int bound = inclusive ? 0 : -1;
+        SkipNode current = head;
+        int traversed = 0;
+        for (int i = head.level; i >= 1; i--) {
+            while (current.forward[i] != null && current.forward[i]
+                .element().getKey().compareTo(key) <= bound) {
+                traversed += current.span[i];
+                current = current.forward[i];
+            }
+        }
+        if (traversed == 0) {
+            return null;
+        }
+        // A tombstone has the rank of the live node in front of it
+        return current.isLive()
+            ? current.element()
+            : nodeAt(traversed).element();
+    }
+
+
+    /**
+     * Walks down from the head to the last node whose key is less than the
+     * given key.
+     * 
+     * @param key
+     *            the key to look for
+     * @return the last node at level 1 before key, or the head
+     */
+    private SkipNode predecessor(K key) {
+        SkipNode current = head;
+
+        // Start from the highest level and move down to level 1
+        for (int i = head.level; i >= 1; i--) {
+            while (current.forward[i] != null && current.forward[i]
+                .element() != null && current.forward[i].element().getKey()
+                    .compareTo(key) < 0) {
+                current = current.forward[i];
+            }
+        }
+        return current;
+    }
+
+
+    /**
+     * Returns the number of elements in the SkipList.
+     * 
+     * @return The size of the SkipList.
+     */
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Inserts the KVPair in the SkipList at its appropriate spot as designated
+     * by its lexicoragraphical order.
+     * 
+     * @param it
+     *            The key-value pair to insert.
+     ** @throws IllegalArgumentException
+     *             if KV Pair is null or Key of the KV Pair is null or empty.
+     */
+    public void insert(KVPair<K, V> it) {
+        if (it == null) {
+            throw new IllegalArgumentException("KV pair is null");
+        }
+
+        int newLevel = randomLevel();
+
+        if (newLevel > head.level) {
+            adjustHead(newLevel);
+        }
+
+        findPath(it.getKey());
+
+        SkipNode newNode = new SkipNode(it, newLevel);
+
+        // Insert the node at each level, starting from 1
+        for (int i = 1; i <= newLevel; i++) {
+            newNode.forward[i] = update[i].forward[i];
+            update[i].forward[i] = newNode;
+            // Split the span of the link the new node was placed in
+            newNode.span[i] = update[i].span[i] - (rank[1] - rank[i]);
+            update[i].span[i] = rank[1] - rank[i] + 1;
+        }
+        // Links above the new node now jump over one more entry
+        for (int i = newLevel + 1; i <= head.level; i++) {
+            update[i].span[i]++;
+        }
+        if (newNode.forward[1] == null) {
+            tail = newNode;
+        }
+
+        countLevel(newLevel, 1);
+        size++;
+        modCount++;
+        newNode.born = modCount;
+        // System.out.println("Point inserted: " + newNode.pair.toString());
+    }
+
+
+    /**
+     * Turns finger search on or off. With finger search on, insert, remove
+     * and search remember the search path of the last key and start the next
+     * search from the lowest level of that path that still brackets the new
+     * key, rather than from the top of the head. For keys that arrive in or
+     * near sorted order this costs O(log d), where d is the distance from
+     * the previous key, instead of O(log n).
+     * 
+     * @param enabled
+     *            true to start searches from the last search path
+     */
+    public void setFingerSearch(boolean enabled) {
+        fingerSearch = enabled;
+        fingerValid = false;
+    }
+
+
+    /**
+     * Returns whether finger search is turned on.
+     * 
+     * @return true if searches start from the last search path
+     */
+    public boolean isFingerSearch() {
+        return fingerSearch;
+    }
+
+
+    /**
+     * Increases the number of levels in head so that no element has more
+     * indices than the head.
+     * 
+     * @param newLevel
+     *            The new maximum level.
+     */
+    public void adjustHead(int newLevel) {
+        fingerValid = false;
+        if (newLevel < head.forward.length) {
+            // The head already has room, only the levels in use grow
+            for (int i = head.level + 1; i <= newLevel; i++) {
+                head.forward[i] = null;
+                head.span[i] = size + 1;
+            }
+            head.level = newLevel;
+            return;
+        }
+        SkipNode newHead = new SkipNode(null, newLevel);
+        // Copy existing forward references, starting from level 1
+        for (int i = 1; i <= head.level; i++) {
+            newHead.forward[i] = head.forward[i];
+            newHead.span[i] = head.span[i];
+        }
+        // Set remaining forward references to null
+        for (int i = head.level + 1; i <= newLevel; i++) {
+            newHead.forward[i] = null;
+            newHead.span[i] = size + 1;
+        }
+        head = newHead;
+        update = newPath(newLevel);
+        rank = new int[newLevel + 1];
+    }
+
+
+    /**
+     * Creates a search path array with room for the given number of levels.
+     * 
+     * @param levels
+     *            the number of levels the path must hold
+     * @return the new path array
+     */
+    @SuppressWarnings("unchecked")
+    private SkipNode[] newPath(int levels) {
+        return (SkipNode[])Array.newInstance(SkipList.SkipNode.class, levels
+            + 1);
+    }
+
+
+    /**
+     * Fills update with the last node before key at each level and rank with
+     * the rank of those nodes (the head has rank 0, the first entry rank 1).
+     * 
+     * @param key
+     *            the key to look for
+     * @return the last node at level 1 before key, or the head
+     */
+    private SkipNode findPath(K key) {
+        SkipNode current = head;
+        int traversed = 0;
+        int top = head.level;
+
+        if (fingerValid) {
+            // Climb the old path until it brackets key; levels above that
+            // bracket key as well and can be kept as they are. Moving
+            // forward only the right side can fail, moving back only the
+            // left side.
+            boolean forward = key.compareTo(fingerKey) >= 0;
+            int i = 1;
+            while (i <= head.level && !brackets(i, key, forward)) {
+                i++;
+            }
+            if (i <= head.level) {
+                current = update[i];
+                traversed = rank[i];
+                top = i;
+            }
+        }
+        fingerValid = fingerSearch;
+        fingerKey = key;
+
+        for (int i = top; i >= 1; i--) {
+            while (current.forward[i] != null && current.forward[i]
+                .element() != null && current.forward[i].element().getKey()
+                    .compareTo(key) < 0) {
+                traversed += current.span[i];
+                current = current.forward[i];
+            }
+            update[i] = current;
+            rank[i] = traversed;
+        }
+        return current;
+    }
+
+
+    /**
+     * Checks whether the remembered path at a level still brackets key, that
+     * is, the node there is before key and its successor is not.
+     * 
+     * @param level
+     *            the level to check
+     * @param key
+     *            the key being searched for
+     * @param forward
+     *            true if key is not less than the key the path was made for
+     * @return true if the search for key may start there
+     */
+    private boolean brackets(int level, K key, boolean forward) {
+        SkipNode node = update[level];
+        if (forward) {
+            SkipNode next = node.forward[level];
+            return next == null || next.element().getKey().compareTo(
+                key) >= 0;
+        }
+        return node == head || node.element().getKey().compareTo(key) < 0;
+    }
+
+
+    /**
+     * Returns the entry at the given position in key order, in O(log n).
+     * 
+     * @param index
+     *            the position of the entry, starting at 0
+     * @return the key-value pair at that position
+     * @throws IndexOutOfBoundsException
+     *             if the index is out of range
+     */
+    public KVPair<K, V> get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+                + size);
+        }
+        return nodeAt(index + 1).element();
+    }
+
+
+    /**
+     * Returns the position in key order of the first entry with the given
+     * key, in O(log n).
+     * 
+     * @param key
+     *            The key to look for.
+     * @return the position of the key starting at 0, or -1 if not found
+     */
+    public int rankOf(K key) {
+        SkipNode current = head;
+        int traversed = 0;
+
+        for (int i = head.level; i >= 1; i--) {
+            while (current.forward[i] != null && current.forward[i]
+                .element().getKey().compareTo(key) < 0) {
+                traversed += current.span[i];
+                current = current.forward[i];
+            }
+        }
+
+        // Removed nodes take no rank, so the first live one has this rank
+        current = current.forward[1];
+        while (current != null && current.element().getKey().compareTo(
+            key) == 0) {
+            if (current.isLive()) {
+                return traversed;
+            }
+            current = current.forward[1];
+        }
+        return -1;
+    }
+
+
+    /**
+     * Returns up to limit entries starting at the given position in key
+     * order. Finding the first entry takes O(log n), so a page costs
+     * O(log n + limit) no matter how deep it is.
+     * 
+     * @param offset
+     *            the position of the first entry, starting at 0
+     * @param limit
+     *            the most entries to return
+     * @return A list of at most limit key-value pairs.
+     * @throws IndexOutOfBoundsException
+     *             if the offset is negative or past the end of the list
+     * @throws IllegalArgumentException
+     *             if limit is negative
+     */
+    public MyArrayList<KVPair<K, V>> subList(int offset, int limit) {
+        if (offset < 0 || offset > size) {
+            throw new IndexOutOfBoundsException("Offset: " + offset
+                + ", Size: " + size);
+        }
+        if (limit < 0) {
+            throw new IllegalArgumentException("Illegal limit: " + limit);
+        }
+
+        int count = Math.min(limit, size - offset);
+        MyArrayList<KVPair<K, V>> result = new MyArrayList<>(count);
+        if (count == 0) {
+            return result;
+        }
+        SkipNode current = nodeAt(offset + 1);
+        for (int i = 0; i < count; i++) {
+            current = nextLive(current);
+            result.add(current.element());
+            current = current.forward[1];
+        }
+        return result;
+    }
+
+
+    /**
+     * Walks down the spans to the node with the given rank.
+     * 
+     * @param target
+     *            the rank of the node, from 1 to size
+     * @return the node with that rank
+     */
+    private SkipNode nodeAt(int target) {
+        SkipNode current = head;
+        int traversed = 0;
+
+        // Stop just before the target: a removed node kept for a snapshot
+        // has the same rank as the live node in front of it
+        for (int i = head.level; i >= 1; i--) {
+            while (current.forward[i] != null && traversed + current.span[
+                i] < target) {
+                traversed += current.span[i];
+                current = current.forward[i];
+            }
+        }
+        return current.forward[1];
+    }
+
+
+    /**
+     * Returns the first live node at or after the given node.
+     * 
+     * @param node
+     *            the node to start at, may be null
+     * @return the first live node, or null
+     */
+    private SkipNode nextLive(SkipNode node) {
+        while (node != null && !node.isLive()) {
+            node = node.forward[1];
+        }
+        return node;
+    }
+
+
+    /**
+     * Removes the first occurrence of a key from the SkipList.
+     * 
+     * @param key
+     *            The key to remove.
+     * @return The removed key-value pair, or null if not found.
+     */
+    public KVPair<K, V> remove(K key) {
+        SkipNode first = findPath(key).forward[1];
+        SkipNode current = first;
+        while (current != null && !current.isLive() && current.element()
+            .getKey().compareTo(key) == 0) {
+            current = current.forward[1];
+        }
+
+        if (current != null && current.element() != null && current.element()
+            .getKey().compareTo(key) == 0) {
+            if (current != first) {
+                pathTo(current);
+            }
+            delete(current);
+            return current.element();
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Removes a KVPair with the specified value.
+     * 
+     * @param val
+     *            the value of the KVPair to be removed
+     * @return returns the removed KVPair, or null if not found
+     */
+    public KVPair<K, V> removeByValue(V val) {
+
+        // Find the first node with matching value
+        for (SkipNode current = head.forward[1]; current != null;
+            current = current.forward[1]) {
+            if (current.isLive() && current.pair.getValue().equals(val)) {
+                // Remove this exact node, not just the first with its key
+                findPath(current.element().getKey());
+                pathTo(current);
+                delete(current);
+                return current.element();
+            }
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Moves the path filled in by findPath for a node's key forward over the
+     * equal keys in front of that exact node.
+     * 
+     * @param node
+     *            the node the path must lead to
+     */
+    private void pathTo(SkipNode node) {
+        SkipNode current = update[1];
+        int traversed = rank[1];
+        while (current.forward[1] != node) {
+            traversed += current.span[1];
+            current = current.forward[1];
+            for (int i = 1; i <= current.level; i++) {
+                update[i] = current;
+                rank[i] = traversed;
+            }
+        }
+        // The path no longer ends before every equal key
+        fingerValid = false;
+    }
+
+
+    /**
+     * Removes a node that update holds the path to. While snapshot iterators
+     * are open, or in lazy-delete mode, the node is only marked removed: it
+     * stays linked as a tombstone with a span of zero, so snapshots can
+     * still walk over it and nothing has to be relinked.
+     * 
+     * @param node
+     *            the node to remove
+     */
+    private void delete(SkipNode node) {
+        size--;
+        modCount++;
+        removesSinceRebalance++;
+        node.died = modCount;
+
+        if (snapshotsOpen() || tombstoneRatio > 0) {
+            // Every link across the node now jumps over one entry less
+            for (int i = 1; i <= head.level; i++) {
+                update[i].span[i]--;
+            }
+            deadCount++;
+            purgeIfNeeded();
+            return;
+        }
+
+        for (int i = 1; i <= head.level; i++) {
+            // Only update if this is the node we're removing
+            if (update[i].forward[i] == node) {
+                update[i].forward[i] = node.forward[i];
+                update[i].span[i] += node.span[i] - 1;
+            }
+            else {
+                update[i].span[i]--;
+            }
+        }
+        if (node == tail) {
+            tail = update[1] == head ? null : update[1];
+        }
+        countLevel(node.level, -1);
+        dropEmptyLevels();
+        // A snapshot dropped without being closed may have left tombstones
+        purgeIfNeeded();
+    }
+
+
+    /**
+     * In bounded mode, lowers the head past top levels that no node uses any
+     * more so searches do not walk them.
+     */
+    private void dropEmptyLevels() {
+        if (maxLevel > 0) {
+            while (head.level > 1 && head.forward[head.level] == null) {
+                head.level--;
+            }
+        }
+    }
+
+
+    /**
+     * Turns lazy-delete mode on or off. In lazy-delete mode remove only
+     * marks the node as a tombstone, which searches and iterators skip.
+     * Once tombstones make up more than the given share of the linked
+     * nodes, they are all unlinked in one pass over level 1.
+     * 
+     * @param ratio
+     *            the share of tombstones that starts a purge, or 0 to turn
+     *            lazy delete off and purge right away
+     * @throws IllegalArgumentException
+     *             if ratio is not at least 0 and less than 1
+     */
+    public void setTombstoneRatio(double ratio) {
+        if (!(ratio >= 0 && ratio < 1)) {
+            throw new IllegalArgumentException("Illegal ratio: " + ratio);
+        }
+        tombstoneRatio = ratio;
+        purgeIfNeeded();
+    }
+
+
+    /**
+     * Returns the share of tombstones that starts a purge.
+     * 
+     * @return the ratio, 0 if lazy delete is off
+     */
+    public double getTombstoneRatio() {
+        return tombstoneRatio;
+    }
+
+
+    /**
+     * Unlinks all tombstones now. While snapshot iterators are open this
+     * waits until the last one is closed.
+     */
+    public void purgeTombstones() {
+        if (deadCount > 0 && !snapshotsOpen()) {
+            purge();
+        }
+    }
+
+
+    /**
+     * Purges when no snapshot needs the tombstones and there are more of
+     * them than the ratio allows.
+     */
+    private void purgeIfNeeded() {
+        if (deadCount > 0 && deadCount > tombstoneRatio * (size + deadCount)
+            && !snapshotsOpen()) {
+            purge();
+        }
+    }
+
+
+    /**
+     * Tells whether any snapshot iterator is still open. The list only holds
+     * weak references to its snapshots, so one that was dropped without
+     * being closed or run out stops counting once the garbage collector has
+     * cleared it, and cannot keep tombstones linked forever.
+     * 
+     * @return true if a snapshot may still walk the list
+     */
+    private boolean snapshotsOpen() {
+        if (snapshots.isEmpty()) {
+            return false;
+        }
+        Reference<?> lost = lostSnapshots.poll();
+        while (lost != null) {
+            snapshots.remove(lost);
+            lost = lostSnapshots.poll();
+        }
+        return !snapshots.isEmpty();
+    }
+
+
+    /**
+     * Unlinks every tombstone in one pass over level 1.
+     */
+    private void purge() {
+        // update is free to use here; it holds the last live node per level
+        for (int i = 1; i <= head.level; i++) {
+            update[i] = head;
+        }
+        for (SkipNode node = head.forward[1]; node != null;
+            node = node.forward[1]) {
+            if (node.isLive()) {
+                for (int i = 1; i <= node.level; i++) {
+                    update[i] = node;
+                }
+            }
+            else {
+                for (int i = 1; i <= node.level; i++) {
+                    update[i].forward[i] = node.forward[i];
+                    update[i].span[i] += node.span[i];
+                }
+                countLevel(node.level, -1);
+            }
+        }
+        tail = update[1] == head ? null : update[1];
+        deadCount = 0;
+        fingerValid = false;
+        rebalance = null;
+        dropEmptyLevels();
+    }
 
-    private int size; // number of entries in the Skip List
-    private Random rng; // Random number generator for determining node levels
 
     /**
-     * Constructs an empty SkipList.
+     * Returns an iterator over the entries as they were when it was created.
+     * Inserts and removes may go on while it is open: new entries are not
+     * returned and removed ones still are. Removed nodes stay linked until
+     * the last open snapshot is closed, so close the iterator when done with
+     * it. It closes itself once it runs out, and one that is dropped without
+     * either is treated as closed after it has been garbage collected. When
+     * writers run on other threads, every call on the list and on the
+     * iterator must synchronize on the list, as with SkipListRebalancer;
+     * the lock is only held per call and never for the whole walk.
+     * 
+     * @return An iterator over the key-value pairs at this moment.
      */
-    public SkipList() {
-        head = new SkipNode(null, 1); // Initialize with level 1 instead of 0
-        size = 0;
-        this.rng = new TestableRandom();
+    public SnapshotIterator snapshotIterator() {
+        return new SnapshotIterator();
     }
 
 
     /**
-     * Generates a random level for a new node.
+     * Returns the number of snapshot iterators that are still open, not
+     * counting ones already garbage collected.
      * 
-     * @return The randomly generated level.
+     * @return the number of open snapshots
      */
-    public int randomLevel() {
-        int level = 1; // Start at level 1
-        while (rng.nextBoolean())
-            level++;
-        return level;
+    public int getSnapshotCount() {
+        snapshotsOpen();
+        return snapshots.size();
     }
 
 
     /**
-     * Returns First element (Sentinel Node)
+     * Returns the number of removed nodes that are still linked, because
+     * snapshot iterators are open or lazy delete is on.
      * 
-     * @return head SkipNode
+     * @return the number of tombstones
      */
-    public SkipNode getHead() {
-        return head;
+    public int getDeadCount() {
+        return deadCount;
     }
 
 
     /**
-     * Searches for a key in the SkipList and returns all associated values.
+     * Tells whether enough entries have been removed since the last full
+     * rebalance that the tower heights are likely far from ideal, that is,
+     * more entries were removed than are left.
      * 
-     * @param key
-     *            The key to search for.
-     * @return A list of key-value pairs with the specified key.
-     * @throws IllegalArgumentException
-     *             if key is null.
+     * @return true if a rebalance pass is worthwhile
      */
-    public MyArrayList<KVPair<K, V>> search(K key) {
-        MyArrayList<KVPair<K, V>> result = new MyArrayList<>();
-        SkipNode current = head;
-
-        // Start from the highest level and move down to level 1
-        for (int i = head.level; i >= 1; i--) {
-            while (current.forward[i] != null && current.forward[i]
-                .element() != null && current.forward[i].element().getKey()
-                    .compareTo(key) < 0) {
-                current = current.forward[i];
-            }
-        }
-
-        // Move to the first node of level 1
-        current = current.forward[1];
-
-        while (current != null && current.element() != null && current.element()
-            .getKey().compareTo(key) == 0) {
-            result.add(current.element());
-            current = current.forward[1];
-        }
-
-        return result;
+    public boolean needsRebalance() {
+        return removesSinceRebalance > size;
     }
 
 
     /**
-     * Returns the number of elements in the SkipList.
-     * 
-     * @return The size of the SkipList.
+     * Runs a whole rebalance pass at once.
      */
-    public int size() {
-        return size;
+    public void rebalance() {
+        rebalance(Integer.MAX_VALUE);
     }
 
 
     /**
-     * Inserts the KVPair in the SkipList at its appropriate spot as designated
-     * by its lexicoragraphical order.
+     * Does the next slice of an incremental rebalance pass. A pass walks
+     * level 1 from the front and gives the i-th node the ideal height
+     * 1 + numberOfTrailingZeros(i), the same shape the bulk-load constructor
+     * builds. Between slices the list stays a valid SkipList: the part
+     * already walked has its new towers and is stitched onto the old towers
+     * of the rest. When the pass ends the head drops to the tallest new
+     * tower. If the list is changed between two slices, the next slice
+     * finds the end of the rebuilt part again by the last key it processed
+     * and goes on from there, so steady writes cannot keep a pass from
+     * finishing. Only a change of the height of the list starts it over.
      * 
-     * @param it
-     *            The key-value pair to insert.
-     ** @throws IllegalArgumentException
-     *             if KV Pair is null or Key of the KV Pair is null or empty.
+     * @param budget
+     *            the most nodes to process in this slice
+     * @return true if this slice finished a pass
+     * @throws IllegalArgumentException
+     *             if budget is less than 1
      */
-    @SuppressWarnings("unchecked")
-    public void insert(KVPair<K, V> it) {
-        if (it == null) {
-            throw new IllegalArgumentException("KV pair is null");
+    public boolean rebalance(int budget) {
+        if (budget < 1) {
+            throw new IllegalArgumentException("Illegal budget: " + budget);
         }
-
-        int newLevel = randomLevel();
-
-        if (newLevel > head.level) {
-            adjustHead(newLevel);
+        if (rebalance == null || rebalance.top != head.level
+            || (rebalance.lastKey == null
+                && rebalance.expectedModCount != modCount)) {
+            rebalance = new Rebalance();
+        }
+        else if (rebalance.expectedModCount != modCount) {
+            rebalance.resume();
         }
+        fingerValid = false;
+        Rebalance pass = rebalance;
 
-        SkipNode[] update = (SkipNode[])Array.newInstance(
-            SkipList.SkipNode.class, head.level + 1);
-        SkipNode current = head;
+        for (int n = 0; n < budget && pass.cursor != null; n++) {
+            SkipNode node = pass.cursor;
+            // Removed nodes kept for snapshots take no rank and no height
+            int r = node.isLive() ? ++pass.processed : pass.processed;
 
-        for (int i = head.level; i >= 1; i--) {
-            while (current.forward[i] != null && current.forward[i]
-                .element() != null && current.forward[i].element().getKey()
-                    .compareTo(it.getKey()) < 0) {
-                current = current.forward[i];
+            // Remember where the old towers of this node led
+            for (int i = 1; i <= node.level; i++) {
+                pass.pending[i] = node.forward[i];
+                pass.pendingRank[i] = r + node.span[i];
             }
-            update[i] = current;
-        }
-
-        SkipNode newNode = new SkipNode(it, newLevel);
-        newNode.pair = it;
+            pass.cursor = node.forward[1];
+            pass.lastKey = node.element().getKey();
 
-        // Insert the node at each level, starting from 1
-        for (int i = 1; i <= newLevel; i++) {
-            newNode.forward[i] = update[i].forward[i];
-            update[i].forward[i] = newNode;
+            int newLevel = node.isLive()
+                ? Math.min(1 + Integer.numberOfTrailingZeros(r), pass.top)
+                : 1;
+            if (newLevel != node.level) {
+                countLevel(node.level, -1);
+                countLevel(newLevel, 1);
+                node.resize(newLevel);
+            }
+            for (int i = 1; i <= newLevel; i++) {
+                pass.last[i].forward[i] = node;
+                pass.last[i].span[i] = r - pass.lastRank[i];
+                pass.last[i] = node;
+                pass.lastRank[i] = r;
+            }
+            pass.newTop = Math.max(pass.newTop, newLevel);
         }
 
-        size++;
-        // System.out.println("Point inserted: " + newNode.pair.toString());
-    }
-
+        // Stitch the rebuilt front onto the old towers of the rest
+        for (int i = 1; i <= pass.top; i++) {
+            pass.last[i].forward[i] = pass.pending[i];
+            pass.last[i].span[i] = pass.pendingRank[i] - pass.lastRank[i];
+        }
 
-    /**
-     * Increases the number of levels in head so that no element has more
-     * indices than the head.
-     * 
-     * @param newLevel
-     *            The new maximum level.
-     */
-    public void adjustHead(int newLevel) {
-        SkipNode newHead = new SkipNode(null, newLevel);
-        // Copy existing forward references, starting from level 1
-        for (int i = 1; i <= head.level; i++) {
-            newHead.forward[i] = head.forward[i];
+        if (pass.cursor != null) {
+            return false;
         }
-        // Set remaining forward references to null
-        for (int i = head.level + 1; i <= newLevel; i++) {
-            newHead.forward[i] = null;
+        for (int i = pass.newTop + 1; i <= head.level; i++) {
+            head.forward[i] = null;
         }
-        head = newHead;
+        head.level = pass.newTop;
+        rebalance = null;
+        removesSinceRebalance = 0;
+        return true;
     }
 
 
     /**
-     * Removes the first occurrence of a key from the SkipList.
-     * 
-     * @param key
-     *            The key to remove.
-     * @return The removed key-value pair, or null if not found.
+     * State of an incremental rebalance pass.
      */
-    @SuppressWarnings("unchecked")
-    public KVPair<K, V> remove(K key) {
-
-        SkipNode[] update = (SkipNode[])Array.newInstance(SkipNode.class,
-            head.level + 1);
-        SkipNode current = head;
+    private class Rebalance {
+        private long expectedModCount = modCount;
+        private int top = head.level; // new towers are never taller
+        private int newTop = 1; // tallest new tower so far
+        private int processed; // nodes given their new tower so far
+        private SkipNode cursor = head.forward[1]; // next node to process
+        private K lastKey; // key of the last node processed, null if none
+        private SkipNode[] last = newPath(top); // last rebuilt node per level
+        private int[] lastRank = new int[top + 1];
+        private SkipNode[] pending = newPath(top); // next old node per level
+        private int[] pendingRank = new int[top + 1];
 
-        for (int i = head.level; i >= 1; i--) {
-            while (current.forward[i] != null && current.forward[i]
-                .element() != null && current.forward[i].element().getKey()
-                    .compareTo(key) < 0) {
-                current = current.forward[i];
+        /**
+         * Starts a pass at the head.
+         */
+        Rebalance() {
+            for (int i = 1; i <= top; i++) {
+                last[i] = head;
+                pending[i] = head.forward[i];
+                pendingRank[i] = head.span[i];
             }
-            update[i] = current;
         }
 
-        current = current.forward[1];
 
-        if (current != null && current.element() != null && current.element()
-            .getKey().compareTo(key) == 0) {
-            for (int i = 1; i <= head.level; i++) {
-                // Only update if this is the node we're removing
-                if (update[i].forward[i] == current) {
-                    update[i].forward[i] = current.forward[i];
+        /**
+         * Finds where the pass stopped after the list was changed. The
+         * rebuilt part is taken to be every node with a key up to lastKey,
+         * so nodes inserted into it since keep their random towers, and the
+         * rest of the pass goes on from the first node after it.
+         */
+        private void resume() {
+            SkipNode node = head;
+            int r = 0;
+            for (int i = top; i >= 1; i--) {
+                while (node.forward[i] != null && node.forward[i].element()
+                    .getKey().compareTo(lastKey) <= 0) {
+                    r += node.span[i];
+                    node = node.forward[i];
                 }
+                last[i] = node;
+                lastRank[i] = r;
+                pending[i] = node.forward[i];
+                pendingRank[i] = r + node.span[i];
             }
-
-            size--;
-            return current.element();
+            newTop = 1;
+            while (newTop < top && last[newTop + 1] != head) {
+                newTop++;
+            }
+            processed = lastRank[1];
+            cursor = last[1].forward[1];
+            expectedModCount = modCount;
         }
-
-        return null;
     }
 
 
     /**
-     * Removes a KVPair with the specified value.
-     * 
-     * @param val
-     *            the value of the KVPair to be removed
-     * @return returns the removed KVPair, or null if not found
+     * Prints out the SkipList in a human readable format to the console.
      */
-    public KVPair<K, V> removeByValue(V val) {
-
-        // Find the first node with matching value
-        SkipNode current = head;
-
-        while (current.forward[1] != null) {
-            if (current.forward[1].pair.getValue().equals(val)) {
-                // Get the key to remove
-                K keyToRemove = current.forward[1].element().getKey();
-                // Use the regular remove method to handle the removal
-                return remove(keyToRemove);
-            }
-            current = current.forward[1];
+    public void dump() {
+        try {
+            dump(System.out);
+        }
+        catch (IOException e) {
+            // PrintStream does not throw; it sets its error flag instead
+            throw new UncheckedIOException(e);
         }
-
-        return null;
     }
 
 
     /**
-     * Prints out the SkipList in a human readable format to the console.
+     * Writes the SkipList in the same format as dump() to out, one line per
+     * node as it walks level 1. The depth of a node is its own level, so
+     * this is O(n) and keeps nothing but the current node in memory.
+     * 
+     * @param out
+     *            where to write the lines, for example a Writer
+     * @throws IOException
+     *             if out throws one
      */
-    public void dump() {
-        System.out.println("SkipList dump:");
+    public void dump(Appendable out) throws IOException {
+        String newline = System.lineSeparator();
+        out.append("SkipList dump:").append(newline);
         if (size == 0) {
-            System.out.println("Node has depth 1, Value (null)");
-            System.out.println("SkipList size is: 0");
+            out.append("Node has depth 1, Value (null)").append(newline);
+            out.append("SkipList size is: 0").append(newline);
             return;
         }
 
         // Print the highest level null node if it exists
-        System.out.println("Node has depth " + head.level + ", value null");
-
-        // Collect all nodes and their maximum depths
-        MyArrayList<SkipNode> allNodes = new MyArrayList<>();
-        int[] nodeDepths = new int[size];
-
-        for (int i = 1; i <= head.level; i++) {
-            SkipNode current = head.forward[i];
-            while (current != null) {
-                if (current.pair != null) {
-                    boolean found = false;
-                    for (int j = 0; j < allNodes.size(); j++) {
-                        if (allNodes.get(j) == current) {
-                            found = true;
-                            nodeDepths[j] = Math.max(nodeDepths[j], i);
-                            break;
-                        }
-                    }
-                    if (!found) {
-                        allNodes.add(current);
-                        nodeDepths[allNodes.size() - 1] = i;
-                    }
-                }
-                current = current.forward[i];
-            }
-        }
-
-// // Sort nodes by key
-// for (int i = 0; i < allNodes.size() - 1; i++) {
-// for (int j = i + 1; j < allNodes.size(); j++) {
-// if (allNodes.get(i).element().getKey().compareTo(allNodes.get(j)
-// .element().getKey()) > 0) {
-// // Swap nodes
-// SkipNode tempNode = allNodes.get(i);
-// allNodes.set(i, allNodes.get(j));
-// allNodes.set(j, tempNode);
-// // Swap depths
-// int tempDepth = nodeDepths[i];
-// nodeDepths[i] = nodeDepths[j];
-// nodeDepths[j] = tempDepth;
-// }
-// }
-// }
+        out.append("Node has depth ").append(Integer.toString(head.level))
+            .append(", value null").append(newline);
 
         // Print nodes in lexicographical order
-        for (int i = 0; i < allNodes.size(); i++) {
-            System.out.println("Node has depth " + nodeDepths[i] + ", value "
-                + allNodes.get(i).element().toString());
+        for (SkipNode n = nextLive(head.forward[1]); n != null; n = nextLive(
+            n.forward[1])) {
+            out.append("Node has depth ").append(Integer.toString(n.level))
+                .append(", value ").append(n.element().toString()).append(
+                    newline);
         }
 
-        System.out.println("SkipList size is: " + size);
+        out.append("SkipList size is: ").append(Integer.toString(size))
+            .append(newline);
     }
 
     /**
@@ -315,8 +1451,14 @@ public class SkipList<K extends Comparable<K>, V>
         private KVPair<K, V> pair;
         // An array of pointers to subsequent nodes
         private SkipNode[] forward;
+        // How many level 1 steps each forward pointer jumps
+        private int[] span;
         // the level of the node
         private int level;
+        // modCount when the node was inserted, 0 for bulk-loaded nodes
+        private long born;
+        // modCount when the node was removed, LIVE while it is not
+        private long died = LIVE;
 
         /**
          * Initializes the fields with the required KVPair and the number of
@@ -333,6 +1475,7 @@ public class SkipList<K extends Comparable<K>, V>
             // Add 1 to array size since we're starting at level 1
             forward = (SkipNode[])Array.newInstance(SkipList.SkipNode.class,
                 level + 1);
+            span = new int[level + 1];
             this.level = level;
 
             for (int i = 1; i <= level; i++) {
@@ -341,6 +1484,51 @@ public class SkipList<K extends Comparable<K>, V>
         }
 
 
+        /**
+         * Gives the node a new height, keeping the array when it is big
+         * enough. The links of the new height are set by the caller.
+         * 
+         * @param newLevel
+         *            the new number of levels
+         */
+        @SuppressWarnings("unchecked")
+        private void resize(int newLevel) {
+            if (newLevel + 1 > forward.length) {
+                forward = (SkipNode[])Array.newInstance(
+                    SkipList.SkipNode.class, newLevel + 1);
+                span = new int[newLevel + 1];
+            }
+            else {
+                for (int i = newLevel + 1; i <= level; i++) {
+                    forward[i] = null;
+                }
+            }
+            level = newLevel;
+        }
+
+
+        /**
+         * Tells whether the node has not been removed.
+         * 
+         * @return true if the node holds a current entry
+         */
+        private boolean isLive() {
+            return died == LIVE;
+        }
+
+
+        /**
+         * Tells whether the node belongs to the list as it was at a version.
+         * 
+         * @param version
+         *            the modCount of the snapshot
+         * @return true if the node was inserted by then and not yet removed
+         */
+        private boolean visibleAt(long version) {
+            return born <= version && died > version;
+        }
+
+
         /**
          * this return the level of the Skipnode
          * 
@@ -367,22 +1555,181 @@ public class SkipList<K extends Comparable<K>, V>
      */
     private class SkipListIterator implements Iterator<KVPair<K, V>> {
         private SkipNode current;
+        private long expectedModCount;
 
         public SkipListIterator() {
             current = head;
+            expectedModCount = modCount;
         }
 
 
         @Override
         public boolean hasNext() {
-            return current.forward[1] != null;
+            return nextLive(current.forward[1]) != null;
         }
 
 
         @Override
         public KVPair<K, V> next() {
-            KVPair<K, V> elem = current.forward[1].element();
-            current = current.forward[1];
+            checkForComodification();
+            SkipNode node = nextLive(current.forward[1]);
+            if (node == null) {
+                throw new NoSuchElementException();
+            }
+            current = node;
+            return current.element();
+        }
+
+
+        /**
+         * Fails fast if the list was changed since the iterator was made.
+         */
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+
+    /**
+     * Iterator over the list as it was at one version. It only returns nodes
+     * inserted by then and not removed by then, and it keeps removed nodes
+     * linked until it is closed.
+     */
+    public class SnapshotIterator
+        implements Iterator<KVPair<K, V>>, AutoCloseable {
+        private final long version;
+        private SkipNode next;
+        private Reference<SnapshotIterator> ticket; // null once closed
+
+        /**
+         * Opens a snapshot of the list as it is now.
+         */
+        SnapshotIterator() {
+            version = modCount;
+            ticket = new WeakReference<>(this, lostSnapshots);
+            snapshots.add(ticket);
+            next = visible(head.forward[1]);
+            if (next == null) {
+                close();
+            }
+        }
+
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+
+        @Override
+        public KVPair<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            KVPair<K, V> elem = next.element();
+            next = visible(next.forward[1]);
+            if (next == null) {
+                close();
+            }
+            return elem;
+        }
+
+
+        /**
+         * Closes the snapshot. Once no snapshot is open, the nodes removed
+         * in the meantime are unlinked, unless lazy delete keeps them as
+         * tombstones for now. Closing twice does nothing.
+         */
+        @Override
+        public void close() {
+            if (ticket == null) {
+                return;
+            }
+            snapshots.remove(ticket);
+            ticket.clear();
+            ticket = null;
+            next = null;
+            purgeIfNeeded();
+        }
+
+
+        /**
+         * Returns the first node at or after the given one that belongs to
+         * this snapshot.
+         * 
+         * @param node
+         *            the node to start at, may be null
+         * @return the first visible node, or null
+         */
+        private SkipNode visible(SkipNode node) {
+            while (node != null && !node.visibleAt(version)) {
+                node = node.forward[1];
+            }
+            return node;
+        }
+    }
+
+    /**
+     * Iterator that walks level 1 from a start node and stops at an upper
+     * key bound, at the end of a key prefix or after a number of entries.
+     */
+    private class RangeIterator implements Iterator<KVPair<K, V>> {
+        private SkipNode next;
+        private K to;
+        private String prefix;
+        private int remaining;
+
+        /**
+         * Creates the iterator.
+         * 
+         * @param start
+         *            the first candidate node, may be null
+         * @param to
+         *            the key to stop before, or null
+         * @param prefix
+         *            the prefix every key must have, or null
+         * @param limit
+         *            the most entries to return
+         */
+        RangeIterator(SkipNode start, K to, String prefix, int limit) {
+            if (limit < 0) {
+                throw new IllegalArgumentException("Illegal limit: "
+                    + limit);
+            }
+            this.next = start;
+            this.to = to;
+            this.prefix = prefix;
+            this.remaining = limit;
+        }
+
+
+        @Override
+        public boolean hasNext() {
+            next = nextLive(next);
+            if (next == null || remaining == 0) {
+                return false;
+            }
+            K key = next.element().getKey();
+            if (to != null && key.compareTo(to) >= 0) {
+                next = null;
+            }
+            else if (prefix != null && !((String)key).startsWith(prefix)) {
+                next = null;
+            }
+            return next != null;
+        }
+
+
+        @Override
+        public KVPair<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            KVPair<K, V> elem = next.element();
+            next = next.forward[1];
+            remaining--;
             return elem;
         }
     }
@@ -0,0 +1,413 @@
+import java.lang.reflect.Array;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import student.TestableRandom;
+
+/**
+ * A SkipList that keeps one node per distinct key. All entries with the same
+ * key share that node and are kept in a bucket in insertion order, so
+ * duplicates neither add towers nor make searches walk a long chain at
+ * level 1. Levels are only drawn for new distinct keys. Buckets are read
+ * from the back, so duplicates come out newest first, as with SkipList.
+ *
+ * @author Rushil, Kush
+ *
+ * @version 1.0
+ * @param <K>
+ *            Key
+ * @param <V>
+ *            Value
+ */
+public class SkipListMultimap<K extends Comparable<K>, V>
+    implements NameIndex<K, V> {
+
+    private KeyNode head; // First element (Sentinel Node)
+
+    private int size; // number of entries (values) in the Skip List
+    private int keyCount; // number of distinct keys (nodes)
+    private Random rng; // Random number generator for determining node levels
+    private KeyNode[] update; // search path reused by insert and remove
+
+    /**
+     * Constructs an empty SkipListMultimap.
+     */
+    public SkipListMultimap() {
+        head = new KeyNode(null, 1);
+        size = 0;
+        keyCount = 0;
+        rng = new TestableRandom();
+        update = newPath(1);
+    }
+
+
+    /**
+     * Generates a random level for a new node.
+     *
+     * @return The randomly generated level.
+     */
+    public int randomLevel() {
+        int level = 1; // Start at level 1
+        while (rng.nextBoolean()) {
+            level++;
+        }
+        return level;
+    }
+
+
+    /**
+     * Returns the number of entries in the SkipListMultimap.
+     *
+     * @return The number of values over all keys.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Returns the number of distinct keys, which is the number of nodes.
+     *
+     * @return The number of distinct keys.
+     */
+    public int keyCount() {
+        return keyCount;
+    }
+
+
+    /**
+     * Returns the level of the head.
+     *
+     * @return the head level
+     */
+    public int getHeadLevel() {
+        return head.level;
+    }
+
+
+    /**
+     * Searches for a key and returns all associated values.
+     *
+     * @param key
+     *            The key to search for.
+     * @return A new list of the entries with the key, newest first, or an
+     *         empty list.
+     */
+    @Override
+    public MyArrayList<KVPair<K, V>> search(K key) {
+        KeyNode node = find(key);
+        if (node == null) {
+            return new MyArrayList<KVPair<K, V>>();
+        }
+        MyArrayList<KVPair<K, V>> result = new MyArrayList<>(node.bucket
+            .size());
+        for (int i = node.bucket.size() - 1; i >= 0; i--) {
+            result.add(node.bucket.get(i));
+        }
+        return result;
+    }
+
+
+    /**
+     * Inserts the KVPair. If its key is already present the pair is added to
+     * the existing bucket, otherwise a new node is linked in.
+     *
+     * @param it
+     *            The key-value pair to insert.
+     * @throws IllegalArgumentException
+     *             if KV Pair is null.
+     */
+    @Override
+    public void insert(KVPair<K, V> it) {
+        if (it == null) {
+            throw new IllegalArgumentException("KV pair is null");
+        }
+
+        KeyNode next = findPath(it.getKey()).forward[1];
+        if (next != null && next.key.compareTo(it.getKey()) == 0) {
+            next.bucket.add(it);
+            size++;
+            return;
+        }
+
+        int newLevel = randomLevel();
+        if (newLevel > head.level) {
+            adjustHead(newLevel);
+        }
+        KeyNode newNode = new KeyNode(it.getKey(), newLevel);
+        newNode.bucket.add(it);
+        for (int i = 1; i <= newLevel; i++) {
+            newNode.forward[i] = update[i].forward[i];
+            update[i].forward[i] = newNode;
+        }
+        keyCount++;
+        size++;
+    }
+
+
+    /**
+     * Removes the most recently inserted entry with the key, the same entry
+     * SkipList.remove would pick.
+     *
+     * @param key
+     *            The key to remove.
+     * @return The removed key-value pair, or null if not found.
+     */
+    @Override
+    public KVPair<K, V> remove(K key) {
+        KeyNode node = findPath(key).forward[1];
+        if (node == null || node.key.compareTo(key) != 0) {
+            return null;
+        }
+        return removeAt(node, node.bucket.size() - 1);
+    }
+
+
+    /**
+     * Removes the newest entry with a specific value stored under a key.
+     *
+     * @param key
+     *            The key the value is stored under.
+     * @param val
+     *            The value to remove.
+     * @return The removed key-value pair, or null if not found.
+     */
+    public KVPair<K, V> remove(K key, V val) {
+        KeyNode node = findPath(key).forward[1];
+        if (node == null || node.key.compareTo(key) != 0) {
+            return null;
+        }
+        for (int i = node.bucket.size() - 1; i >= 0; i--) {
+            if (node.bucket.get(i).getValue().equals(val)) {
+                return removeAt(node, i);
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Removes the first KVPair with the specified value in iteration order,
+     * the one SkipList.removeByValue removes.
+     *
+     * @param val
+     *            the value of the KVPair to be removed
+     * @return returns the removed KVPair, or null if not found
+     */
+    @Override
+    public KVPair<K, V> removeByValue(V val) {
+        for (KeyNode node = head.forward[1]; node != null; node =
+            node.forward[1]) {
+            for (int i = node.bucket.size() - 1; i >= 0; i--) {
+                if (node.bucket.get(i).getValue().equals(val)) {
+                    findPath(node.key);
+                    return removeAt(node, i);
+                }
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Prints out the SkipListMultimap in the same format as SkipList.dump(),
+     * one line per entry with the depth of the node holding it, newest
+     * first among equal keys.
+     */
+    @Override
+    public void dump() {
+        System.out.println("SkipList dump:");
+        if (size == 0) {
+            System.out.println("Node has depth 1, Value (null)");
+            System.out.println("SkipList size is: 0");
+            return;
+        }
+
+        System.out.println("Node has depth " + head.level + ", value null");
+        for (KeyNode node = head.forward[1]; node != null; node =
+            node.forward[1]) {
+            for (int i = node.bucket.size() - 1; i >= 0; i--) {
+                System.out.println("Node has depth " + node.level + ", value "
+                    + node.bucket.get(i).toString());
+            }
+        }
+        System.out.println("SkipList size is: " + size);
+    }
+
+
+    /**
+     * Removes one entry from a node's bucket and unlinks the node once the
+     * bucket is empty. update must hold the path to the node.
+     *
+     * @param node
+     *            the node holding the entry
+     * @param index
+     *            the position of the entry in the bucket
+     * @return the removed key-value pair
+     */
+    private KVPair<K, V> removeAt(KeyNode node, int index) {
+        KVPair<K, V> removed = node.bucket.remove(index);
+        size--;
+        if (node.bucket.isEmpty()) {
+            for (int i = 1; i <= node.level; i++) {
+                update[i].forward[i] = node.forward[i];
+            }
+            keyCount--;
+        }
+        return removed;
+    }
+
+
+    /**
+     * Finds the node for a key without recording the path.
+     *
+     * @param key
+     *            the key to look for
+     * @return the node with the key, or null
+     */
+    private KeyNode find(K key) {
+        KeyNode current = head;
+        for (int i = head.level; i >= 1; i--) {
+            while (current.forward[i] != null && current.forward[i].key
+                .compareTo(key) < 0) {
+                current = current.forward[i];
+            }
+        }
+        current = current.forward[1];
+        if (current != null && current.key.compareTo(key) == 0) {
+            return current;
+        }
+        return null;
+    }
+
+
+    /**
+     * Fills update with the last node before key at each level.
+     *
+     * @param key
+     *            the key to look for
+     * @return the last node at level 1 before key, or the head
+     */
+    private KeyNode findPath(K key) {
+        KeyNode current = head;
+        for (int i = head.level; i >= 1; i--) {
+            while (current.forward[i] != null && current.forward[i].key
+                .compareTo(key) < 0) {
+                current = current.forward[i];
+            }
+            update[i] = current;
+        }
+        return current;
+    }
+
+
+    /**
+     * Increases the number of levels in head so that no node has more
+     * indices than the head.
+     *
+     * @param newLevel
+     *            The new maximum level.
+     */
+    private void adjustHead(int newLevel) {
+        KeyNode newHead = new KeyNode(null, newLevel);
+        for (int i = 1; i <= head.level; i++) {
+            newHead.forward[i] = head.forward[i];
+        }
+        // The path of the pending insert now starts at the new head
+        for (int i = 1; i <= head.level; i++) {
+            if (update[i] == head) {
+                update[i] = newHead;
+            }
+        }
+        KeyNode[] newUpdate = newPath(newLevel);
+        System.arraycopy(update, 0, newUpdate, 0, update.length);
+        for (int i = head.level + 1; i <= newLevel; i++) {
+            newUpdate[i] = newHead;
+        }
+        head = newHead;
+        update = newUpdate;
+    }
+
+
+    /**
+     * Creates a search path array with room for the given number of levels.
+     *
+     * @param levels
+     *            the number of levels the path must hold
+     * @return the new path array
+     */
+    @SuppressWarnings("unchecked")
+    private KeyNode[] newPath(int levels) {
+        return (KeyNode[])Array.newInstance(SkipListMultimap.KeyNode.class,
+            levels + 1);
+    }
+
+
+    /**
+     * A node holding one distinct key and the bucket of its entries.
+     */
+    private class KeyNode {
+        private K key;
+        private MyArrayList<KVPair<K, V>> bucket;
+        private KeyNode[] forward;
+        private int level;
+
+        /**
+         * Creates a node with an empty bucket.
+         *
+         * @param key
+         *            the key of the node, null for the head
+         * @param level
+         *            the number of levels that the node should have
+         */
+        @SuppressWarnings("unchecked")
+        KeyNode(K key, int level) {
+            this.key = key;
+            this.level = level;
+            // Buckets usually hold one or two entries
+            this.bucket = key == null ? null : new MyArrayList<>(2);
+            forward = (KeyNode[])Array.newInstance(
+                SkipListMultimap.KeyNode.class, level + 1);
+        }
+    }
+
+
+    /**
+     * Iterator over every entry, key by key and newest first within a
+     * bucket.
+     */
+    private class MultimapIterator implements Iterator<KVPair<K, V>> {
+        private KeyNode node = head.forward[1];
+        private int index = node == null ? 0 : node.bucket.size() - 1;
+
+        @Override
+        public boolean hasNext() {
+            return node != null;
+        }
+
+
+        @Override
+        public KVPair<K, V> next() {
+            if (node == null) {
+                throw new NoSuchElementException();
+            }
+            KVPair<K, V> elem = node.bucket.get(index--);
+            if (index < 0) {
+                node = node.forward[1];
+                index = node == null ? 0 : node.bucket.size() - 1;
+            }
+            return elem;
+        }
+    }
+
+    /**
+     * Returns an iterator over elements of the SkipListMultimap.
+     *
+     * @return An iterator over key-value pairs.
+     */
+    @Override
+    public Iterator<KVPair<K, V>> iterator() {
+        return new MultimapIterator();
+    }
+}
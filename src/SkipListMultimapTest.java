@@ -0,0 +1,178 @@
+import java.util.Iterator;
+import student.TestCase;
+
+/**
+ * The test class for SkipListMultimap
+ *
+ * @author Rushil, Kush
+ * @version 1.0
+ */
+public class SkipListMultimapTest extends TestCase {
+    private SkipListMultimap<String, Integer> map;
+
+    /**
+     * Sets up the variables for use in this class
+     */
+    public void setUp() {
+        map = new SkipListMultimap<>();
+    }
+
+
+    /**
+     * Tests for null inserts
+     */
+    public void testInsertNullKVPair() {
+        try {
+            map.insert(null);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+    }
+
+
+    /**
+     * Tests that duplicates share one node and one bucket
+     */
+    public void testDuplicatesShareNode() {
+        for (int i = 0; i < 100; i++) {
+            map.insert(new KVPair<>("truck", i));
+        }
+        map.insert(new KVPair<>("car", 1));
+        assertEquals(101, map.size());
+        assertEquals(2, map.keyCount());
+
+        MyArrayList<KVPair<String, Integer>> bucket = map.search("truck");
+        assertEquals(100, bucket.size());
+        assertEquals(99, bucket.get(0).getValue(), 0.01);
+        assertEquals(0, bucket.get(99).getValue(), 0.01);
+        // The result is a copy, so changing it leaves the index alone
+        bucket.remove(0);
+        assertEquals(100, map.search("truck").size());
+        assertEquals(101, map.size());
+        assertTrue(map.search("bike").isEmpty());
+        assertTrue(map.search("a").isEmpty());
+        assertTrue(map.search("z").isEmpty());
+    }
+
+
+    /**
+     * Tests the three ways of removing
+     */
+    public void testRemove() {
+        map.insert(new KVPair<>("a", 1));
+        map.insert(new KVPair<>("a", 2));
+        map.insert(new KVPair<>("a", 3));
+        map.insert(new KVPair<>("b", 4));
+
+        // remove(key) takes the newest entry, like SkipList.remove
+        assertEquals(3, map.remove("a").getValue(), 0.01);
+        assertEquals(1, map.remove("a", 1).getValue(), 0.01);
+        map.insert(new KVPair<>("a", 2));
+        assertSame(map.search("a").get(0), map.remove("a", 2));
+        assertNull(map.remove("a", 1));
+        assertNull(map.remove("c", 1));
+        assertNull(map.remove("c"));
+        assertEquals(2, map.keyCount());
+
+        assertEquals(4, map.removeByValue(4).getValue(), 0.01);
+        assertNull(map.removeByValue(4));
+        assertEquals(1, map.keyCount());
+        assertEquals(2, map.remove("a").getValue(), 0.01);
+        assertEquals(0, map.keyCount());
+        assertEquals(0, map.size());
+        assertFalse(map.iterator().hasNext());
+    }
+
+
+    /**
+     * Tests that levels are drawn per distinct key only
+     */
+    public void testLevelsFollowDistinctKeys() {
+        SkipListMultimap<Integer, Integer> numbers = new SkipListMultimap<>();
+        for (int i = 0; i < 10000; i++) {
+            numbers.insert(new KVPair<>(i % 4, i));
+        }
+        assertEquals(4, numbers.keyCount());
+        // Four coin flip towers are very unlikely to reach level 25
+        assertTrue(numbers.getHeadLevel() < 25);
+    }
+
+
+    /**
+     * Tests the iterator methods
+     */
+    public void testIterator() {
+        map.insert(new KVPair<>("b", 3));
+        map.insert(new KVPair<>("a", 1));
+        map.insert(new KVPair<>("a", 2));
+
+        Iterator<KVPair<String, Integer>> iterator = map.iterator();
+        assertEquals(2, iterator.next().getValue(), 0.01);
+        assertEquals(1, iterator.next().getValue(), 0.01);
+        assertEquals(3, iterator.next().getValue(), 0.01);
+        assertFalse(iterator.hasNext());
+        try {
+            iterator.next();
+            fail("Expected NoSuchElementException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof java.util.NoSuchElementException);
+        }
+    }
+
+
+    /**
+     * Tests the dump method
+     */
+    public void testDump() {
+        systemOut().clearHistory();
+        map.dump();
+        assertTrue(systemOut().getHistory().contains("SkipList size is: 0"));
+        map.insert(new KVPair<>("a", 5));
+        map.insert(new KVPair<>("a", 6));
+        map.dump();
+        assertTrue(systemOut().getHistory().contains("value 5"));
+        assertTrue(systemOut().getHistory().contains("value 6"));
+        assertTrue(systemOut().getHistory().contains("SkipList size is: 2"));
+    }
+
+
+    /**
+     * Tests that duplicates come back in the same order as from SkipList
+     */
+    public void testDuplicateOrderMatchesSkipList() {
+        SkipList<String, Integer> reference = new SkipList<>();
+        for (int i = 0; i < 30; i++) {
+            KVPair<String, Integer> pair = new KVPair<>("k" + (i % 3), i);
+            map.insert(pair);
+            reference.insert(pair);
+        }
+        for (int k = 0; k < 3; k++) {
+            MyArrayList<KVPair<String, Integer>> expected = reference.search(
+                "k" + k);
+            MyArrayList<KVPair<String, Integer>> actual = map.search("k" + k);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertSame(expected.get(i), actual.get(i));
+            }
+        }
+        Iterator<KVPair<String, Integer>> iterator = map.iterator();
+        for (KVPair<String, Integer> pair : reference) {
+            assertSame(pair, iterator.next());
+        }
+        assertFalse(iterator.hasNext());
+        assertSame(reference.removeByValue(4), map.removeByValue(4));
+        assertSame(reference.remove("k2"), map.remove("k2"));
+
+        systemOut().clearHistory();
+        reference.dump();
+        String expectedDump = systemOut().getHistory().replaceAll(
+            "depth \\d+", "depth");
+        systemOut().clearHistory();
+        map.dump();
+        assertEquals(expectedDump, systemOut().getHistory().replaceAll(
+            "depth \\d+", "depth"));
+    }
+}
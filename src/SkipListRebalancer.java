@@ -0,0 +1,141 @@
+/**
+ * Runs SkipList.rebalance in small slices, either when the caller asks for
+ * the next step or on a background thread. Every slice holds the lock of the
+ * list, so while a background thread is running, other threads that modify
+ * or search the list must also synchronize on it. They then only wait for
+ * one slice instead of a full rebuild.
+ *
+ * @author Rushil, Kush
+ *
+ * @version 1.0
+ * @param <K>
+ *            Key
+ * @param <V>
+ *            Value
+ */
+public class SkipListRebalancer<K extends Comparable<K>, V>
+    implements Runnable {
+
+    private final SkipList<K, V> list;
+    private final int slice;
+    private final long pauseMillis;
+    private volatile boolean running;
+    private Thread thread;
+
+    /**
+     * Creates a rebalancer for a list.
+     *
+     * @param list
+     *            the list to rebalance
+     * @param slice
+     *            the number of nodes to process per step
+     * @param pauseMillis
+     *            how long the background thread waits between steps
+     * @throws IllegalArgumentException
+     *             if list is null, slice is less than 1 or pauseMillis is
+     *             negative
+     */
+    public SkipListRebalancer(SkipList<K, V> list, int slice,
+        long pauseMillis) {
+        if (list == null) {
+            throw new IllegalArgumentException("List is null");
+        }
+        if (slice < 1 || pauseMillis < 0) {
+            throw new IllegalArgumentException("Illegal slice or pause: "
+                + slice + ", " + pauseMillis);
+        }
+        this.list = list;
+        this.slice = slice;
+        this.pauseMillis = pauseMillis;
+    }
+
+
+    /**
+     * Processes the next slice of the current pass.
+     *
+     * @return true if the step finished a pass
+     */
+    public boolean step() {
+        synchronized (list) {
+            return list.rebalance(slice);
+        }
+    }
+
+
+    /**
+     * Steps until a pass is finished or stop() is called.
+     */
+    @Override
+    public void run() {
+        while (running && !step()) {
+            if (pauseMillis > 0) {
+                try {
+                    Thread.sleep(pauseMillis);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        running = false;
+    }
+
+
+    /**
+     * Starts a daemon thread that runs one pass in the background. Does
+     * nothing if a pass is already running.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this, "SkipListRebalancer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+
+    /**
+     * Asks the background thread to stop after its current step and waits
+     * for it.
+     *
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    public synchronized void stop() throws InterruptedException {
+        running = false;
+        if (thread != null) {
+            thread.join();
+            thread = null;
+        }
+    }
+
+
+    /**
+     * Waits until the background thread has finished its pass.
+     *
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    public void await() throws InterruptedException {
+        Thread t;
+        synchronized (this) {
+            t = thread;
+        }
+        if (t != null) {
+            t.join();
+        }
+    }
+
+
+    /**
+     * Tells whether the background thread is still working on a pass.
+     *
+     * @return true while a pass is running in the background
+     */
+    public boolean isRunning() {
+        return running;
+    }
+}
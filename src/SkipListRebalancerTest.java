@@ -0,0 +1,185 @@
+import student.TestCase;
+
+/**
+ * The test class for SkipListRebalancer and SkipList.rebalance
+ *
+ * @author Rushil, Kush
+ * @version 1.0
+ */
+public class SkipListRebalancerTest extends TestCase {
+    private SkipList<Integer, String> list;
+
+    /**
+     * Sets up a list that has lost most of its entries
+     */
+    public void setUp() {
+        list = new SkipList<>();
+        list.adjustHead(16);
+        for (int i = 0; i < 4000; i++) {
+            list.insert(new KVPair<>(i, "V" + i));
+        }
+        for (int i = 0; i < 4000; i++) {
+            if (i % 40 != 0) {
+                list.remove(i);
+            }
+        }
+    }
+
+
+    /**
+     * Tests bad arguments
+     */
+    public void testIllegalArguments() {
+        try {
+            new SkipListRebalancer<Integer, String>(null, 1, 0);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+        try {
+            new SkipListRebalancer<Integer, String>(list, 0, 0);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+        try {
+            list.rebalance(0);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+    }
+
+
+    /**
+     * Tests that slices leave a valid list behind and the head shrinks at
+     * the end
+     */
+    public void testInlineSlices() {
+        assertTrue(list.needsRebalance());
+        assertTrue(list.getHead().getNodeLevel() >= 16);
+        SkipListRebalancer<Integer, String> rebalancer =
+            new SkipListRebalancer<>(list, 7, 0);
+
+        int steps = 1;
+        while (!rebalancer.step()) {
+            steps++;
+            assertListIsValid();
+        }
+        assertTrue(steps > 10);
+        assertListIsValid();
+        assertFalse(list.needsRebalance());
+
+        // 100 entries give towers of at most 1 + log2(64) = 7 levels
+        assertEquals(7, list.getHead().getNodeLevel());
+        int[] histogram = list.levelHistogram();
+        assertEquals(50, histogram[1]);
+        assertEquals(25, histogram[2]);
+    }
+
+
+    /**
+     * Tests that changes between slices leave a valid list and do not
+     * keep the pass from finishing
+     */
+    public void testWritesBetweenSlices() {
+        boolean done = false;
+        for (int round = 0; round < 50; round++) {
+            done = list.rebalance(5);
+            list.insert(new KVPair<>(5000 + round, "new"));
+            list.remove(round * 40);
+            assertListIsValid();
+        }
+        assertTrue(done);
+        assertFalse(list.needsRebalance());
+        assertEquals(100, list.size());
+    }
+
+
+    /**
+     * Tests that a sliced pass finishes under steady writes all over the
+     * list, in front of and behind the point it has reached
+     */
+    public void testPassFinishesUnderSteadyWrites() {
+        java.util.Random random = new java.util.Random(11);
+        int slices = 0;
+        boolean done = false;
+        while (!done) {
+            done = list.rebalance(4);
+            slices++;
+            assertTrue(slices < 100);
+            for (int i = 0; i < 2; i++) {
+                int key = random.nextInt(4000);
+                if (list.remove(key) == null) {
+                    list.insert(new KVPair<>(key, "new"));
+                }
+            }
+            assertListIsValid();
+        }
+        assertTrue(slices > 20);
+        assertFalse(list.needsRebalance());
+        assertTrue(list.getHead().getNodeLevel() < 16);
+        assertListIsValid();
+    }
+
+
+    /**
+     * Tests running a pass on a background thread
+     *
+     * @throws InterruptedException
+     */
+    public void testBackgroundThread() throws InterruptedException {
+        SkipListRebalancer<Integer, String> rebalancer =
+            new SkipListRebalancer<>(list, 3, 1);
+        rebalancer.start();
+        rebalancer.start();
+        for (int i = 0; i < 20; i++) {
+            synchronized (list) {
+                assertEquals(1, list.search(i * 40).size());
+            }
+        }
+        rebalancer.await();
+        assertFalse(rebalancer.isRunning());
+        assertEquals(7, list.getHead().getNodeLevel());
+        assertListIsValid();
+
+        rebalancer.start();
+        rebalancer.stop();
+        assertFalse(rebalancer.isRunning());
+    }
+
+
+    /**
+     * Tests rebalancing an empty list
+     */
+    public void testEmptyList() {
+        SkipList<Integer, String> empty = new SkipList<>();
+        empty.adjustHead(5);
+        assertTrue(empty.rebalance(1));
+        assertEquals(1, empty.getHead().getNodeLevel());
+        empty.insert(new KVPair<>(1, "A"));
+        assertEquals(1, empty.search(1).size());
+    }
+
+
+    /**
+     * Checks order, search, and rank answers of the list
+     */
+    private void assertListIsValid() {
+        int index = 0;
+        Integer previous = null;
+        for (KVPair<Integer, String> pair : list) {
+            if (previous != null) {
+                assertTrue(previous <= pair.getKey());
+            }
+            assertSame(pair, list.get(index));
+            assertEquals(1, list.search(pair.getKey()).size());
+            previous = pair.getKey();
+            index++;
+        }
+        assertEquals(list.size(), index);
+    }
+}
@@ -1,4 +1,7 @@
+import java.lang.management.ManagementFactory;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 import student.TestCase;
 
 /**
@@ -181,4 +184,997 @@ public class SkipListTest extends TestCase {
         skipList.dump();
         assertEquals(1, skipList.size());
     }
+
+
+    /**
+     * Tests the bounded constructor and that the head shrinks after removes
+     */
+    public void testBoundedLevels() {
+        try {
+            new SkipList<Integer, String>(0);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+
+        skipList = new SkipList<>(4);
+        assertEquals(4, skipList.getMaxLevel());
+        for (int i = 0; i < 200; i++) {
+            assertTrue(skipList.randomLevel() <= 4);
+            skipList.insert(new KVPair<>(i, "V" + i));
+        }
+        assertTrue(skipList.getHead().getNodeLevel() <= 4);
+        for (int i = 0; i < 200; i++) {
+            assertNotNull(skipList.remove(i));
+        }
+        assertEquals(1, skipList.getHead().getNodeLevel());
+        assertEquals(0, new SkipList<Integer, String>().getMaxLevel());
+    }
+
+
+    /**
+     * Tests that a warmed up bounded list allocates only the new nodes on
+     * insert and nothing on remove
+     */
+    public void testBoundedAllocation() {
+        if (!(ManagementFactory
+            .getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+            return;
+        }
+        com.sun.management.ThreadMXBean bean =
+            (com.sun.management.ThreadMXBean)ManagementFactory
+                .getThreadMXBean();
+        if (!bean.isThreadAllocatedMemorySupported()) {
+            return;
+        }
+        bean.setThreadAllocatedMemoryEnabled(true);
+        long thread = Thread.currentThread().getId();
+
+        int n = 1000;
+        skipList = new SkipList<>(16);
+        Integer[] keys = new Integer[n];
+        MyArrayList<KVPair<Integer, String>> pairs = new MyArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            keys[i] = i * 7 % n;
+            pairs.add(new KVPair<>(keys[i], "V"));
+        }
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < n; i++) {
+                skipList.insert(pairs.get(i));
+            }
+            for (int i = 0; i < n; i++) {
+                skipList.remove(keys[i]);
+            }
+        }
+
+        long before = bean.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < n; i++) {
+            skipList.insert(pairs.get(i));
+        }
+        long afterInsert = bean.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < n; i++) {
+            skipList.remove(keys[i]);
+        }
+        long afterRemove = bean.getThreadAllocatedBytes(thread);
+
+        // A node is a SkipNode plus its forward and span arrays, ~90 bytes
+        assertTrue((afterInsert - before) / n < 128);
+        assertTrue(afterRemove - afterInsert < 1024);
+    }
+
+
+    /**
+     * Tests building a list from sorted entries in one pass
+     */
+    public void testBulkLoad() {
+        java.util.ArrayList<KVPair<Integer, String>> entries =
+            new java.util.ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            entries.add(new KVPair<>(i / 2, "V" + i));
+        }
+        skipList = new SkipList<>(entries);
+        assertEquals(1000, skipList.size());
+        // 1000 < 2^10, so the tallest tower belongs to entry 512
+        assertEquals(10, skipList.getHead().getNodeLevel());
+        assertEquals(2, skipList.search(7).size());
+        assertEquals("V14", skipList.search(7).get(0).getValue());
+
+        int count = 0;
+        for (KVPair<Integer, String> pair : skipList) {
+            assertEquals(count / 2, pair.getKey(), 0.01);
+            count++;
+        }
+        assertEquals(1000, count);
+
+        // The result is an ordinary list afterwards
+        skipList.insert(new KVPair<>(-1, "first"));
+        assertEquals("first", skipList.iterator().next().getValue());
+        assertNotNull(skipList.remove(250));
+        assertEquals(1, skipList.search(250).size());
+        assertEquals(1000, skipList.size());
+        entries.clear();
+        assertEquals(0, new SkipList<>(entries).size());
+    }
+
+
+    /**
+     * Tests that bulk loading rejects bad input
+     */
+    public void testBulkLoadRejectsBadInput() {
+        java.util.ArrayList<KVPair<Integer, String>> entries =
+            new java.util.ArrayList<>();
+        entries.add(new KVPair<>(2, "B"));
+        entries.add(new KVPair<>(1, "A"));
+        try {
+            new SkipList<>(entries);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+        entries.set(1, null);
+        try {
+            new SkipList<>(entries);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+        try {
+            new SkipList<Integer, String>(
+                (Iterable<KVPair<Integer, String>>)null);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+    }
+
+
+    /**
+     * Tests range queries with and without bounds and limits
+     */
+    public void testRange() {
+        for (int i = 20; i >= 1; i--) {
+            skipList.insert(new KVPair<>(i, "V" + i));
+        }
+        Iterator<KVPair<Integer, String>> it = skipList.range(5, 9);
+        for (int i = 5; i < 9; i++) {
+            assertTrue(it.hasNext());
+            assertEquals(i, it.next().getKey(), 0.01);
+        }
+        assertFalse(it.hasNext());
+
+        it = skipList.range(null, 3);
+        assertEquals(1, it.next().getKey(), 0.01);
+        assertEquals(2, it.next().getKey(), 0.01);
+        assertFalse(it.hasNext());
+
+        it = skipList.range(18, null);
+        assertEquals(18, it.next().getKey(), 0.01);
+        assertEquals(19, it.next().getKey(), 0.01);
+        assertEquals(20, it.next().getKey(), 0.01);
+        assertFalse(it.hasNext());
+
+        it = skipList.range(10, null, 2);
+        it.next();
+        it.next();
+        assertFalse(it.hasNext());
+        assertFalse(skipList.range(30, 40).hasNext());
+        assertFalse(skipList.range(5, 9, 0).hasNext());
+        try {
+            skipList.range(5, 9).next();
+            skipList.range(9, 9).next();
+            fail("Expected NoSuchElementException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof java.util.NoSuchElementException);
+        }
+        try {
+            skipList.range(5, 9, -1);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+    }
+
+
+    /**
+     * Tests prefix queries on String keys
+     */
+    public void testPrefix() {
+        SkipList<String, String> names = new SkipList<>();
+        names.insert(new KVPair<>("truck_2", "b"));
+        names.insert(new KVPair<>("car", "c"));
+        names.insert(new KVPair<>("truck_1", "a"));
+        names.insert(new KVPair<>("truck", "t"));
+        names.insert(new KVPair<>("truckload", "l"));
+        names.insert(new KVPair<>("tree", "e"));
+
+        Iterator<KVPair<String, String>> it = names.prefix("truck_");
+        assertEquals("truck_1", it.next().getKey());
+        assertEquals("truck_2", it.next().getKey());
+        assertFalse(it.hasNext());
+
+        it = names.prefix("truck", 2);
+        assertEquals("truck", it.next().getKey());
+        assertEquals("truck_1", it.next().getKey());
+        assertFalse(it.hasNext());
+        assertFalse(names.prefix("zebra").hasNext());
+        assertFalse(names.prefix("a").hasNext());
+        try {
+            names.prefix(null);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+    }
+
+
+    /**
+     * Tests get, rankOf and subList against a plain walk of the list
+     */
+    public void testRankAndSelect() {
+        java.util.Random random = new java.util.Random(42);
+        for (int i = 0; i < 500; i++) {
+            skipList.insert(new KVPair<>(random.nextInt(200), "V" + i));
+            if (i % 3 == 0) {
+                skipList.remove(random.nextInt(200));
+            }
+        }
+        assertSpansMatchIteration(skipList);
+
+        SkipList<Integer, String> bulk = new SkipList<>(skipList);
+        assertSpansMatchIteration(bulk);
+
+        SkipList<Integer, String> bounded = new SkipList<>(3);
+        for (int i = 0; i < 300; i++) {
+            bounded.insert(new KVPair<>(random.nextInt(100), "V" + i));
+            if (i % 2 == 0) {
+                bounded.remove(random.nextInt(100));
+            }
+        }
+        assertSpansMatchIteration(bounded);
+    }
+
+
+    /**
+     * Tests the edge cases of get, rankOf and subList
+     */
+    public void testRankAndSelectBounds() {
+        skipList.insert(new KVPair<>(1, "A"));
+        skipList.insert(new KVPair<>(3, "C"));
+        assertEquals(-1, skipList.rankOf(2));
+        assertEquals(1, skipList.rankOf(3));
+        assertEquals(-1, skipList.rankOf(4));
+        assertEquals(0, skipList.subList(2, 5).size());
+        assertEquals(1, skipList.subList(1, 5).size());
+        assertEquals(0, skipList.subList(0, 0).size());
+        try {
+            skipList.get(2);
+            fail("Expected IndexOutOfBoundsException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IndexOutOfBoundsException);
+        }
+        try {
+            skipList.subList(3, 1);
+            fail("Expected IndexOutOfBoundsException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IndexOutOfBoundsException);
+        }
+        try {
+            skipList.subList(0, -1);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+    }
+
+
+    /**
+     * Checks that every rank answers agree with walking level 1
+     * 
+     * @param list
+     *            the list to check
+     */
+    private void assertSpansMatchIteration(SkipList<Integer, String> list) {
+        int index = 0;
+        Integer previous = null;
+        for (KVPair<Integer, String> pair : list) {
+            assertSame(pair, list.get(index));
+            if (!pair.getKey().equals(previous)) {
+                assertEquals(index, list.rankOf(pair.getKey()));
+            }
+            previous = pair.getKey();
+            index++;
+        }
+        assertEquals(list.size(), index);
+
+        MyArrayList<KVPair<Integer, String>> page = list.subList(index / 2,
+            10);
+        for (int i = 0; i < page.size(); i++) {
+            assertSame(list.get(index / 2 + i), page.get(i));
+        }
+    }
+
+
+    /**
+     * Tests that finger search gives the same results as a normal search
+     */
+    public void testFingerSearch() {
+        SkipList<Integer, String> reference = new SkipList<>();
+        skipList.setFingerSearch(true);
+        assertTrue(skipList.isFingerSearch());
+        assertFalse(reference.isFingerSearch());
+
+        java.util.Random random = new java.util.Random(7);
+        int key = 0;
+        for (int i = 0; i < 2000; i++) {
+            // Mostly ascending keys with some jumps backwards
+            key += random.nextInt(5) - 1;
+            if (i % 100 == 0) {
+                key = random.nextInt(1000);
+            }
+            KVPair<Integer, String> pair = new KVPair<>(key, "V" + i);
+            skipList.insert(pair);
+            reference.insert(pair);
+            if (i % 4 == 0) {
+                int victim = key - random.nextInt(10);
+                assertSame(reference.remove(victim), skipList.remove(victim));
+            }
+            int probe = key + random.nextInt(20) - 10;
+            assertEquals(reference.search(probe).size(), skipList.search(
+                probe).size());
+        }
+
+        Iterator<KVPair<Integer, String>> expected = reference.iterator();
+        for (KVPair<Integer, String> pair : skipList) {
+            assertSame(expected.next(), pair);
+        }
+        assertFalse(expected.hasNext());
+        assertSpansMatchIteration(skipList);
+
+        skipList.setFingerSearch(false);
+        assertFalse(skipList.isFingerSearch());
+        assertEquals(reference.search(key).size(), skipList.search(key)
+            .size());
+    }
+
+
+    /**
+     * Tests that finger search needs far fewer key comparisons for an
+     * ascending stream of inserts into the middle of a large list
+     */
+    public void testFingerSearchComparisons() {
+        java.util.ArrayList<KVPair<CountingKey, String>> evens =
+            new java.util.ArrayList<>();
+        for (int i = 0; i < 100000; i += 2) {
+            evens.add(new KVPair<>(new CountingKey(i), "V"));
+        }
+        SkipList<CountingKey, String> plain = new SkipList<>(evens);
+        SkipList<CountingKey, String> finger = new SkipList<>(evens);
+        finger.setFingerSearch(true);
+
+        CountingKey.count = 0;
+        for (int i = 40001; i < 50000; i += 2) {
+            plain.insert(new KVPair<>(new CountingKey(i), "V"));
+        }
+        long plainCount = CountingKey.count;
+
+        CountingKey.count = 0;
+        for (int i = 40001; i < 50000; i += 2) {
+            finger.insert(new KVPair<>(new CountingKey(i), "V"));
+        }
+        long fingerCount = CountingKey.count;
+
+        assertEquals(55000, finger.size());
+        assertTrue(fingerCount * 2 < plainCount);
+    }
+
+
+    /**
+     * An Integer wrapper that counts how often it is compared
+     */
+    private static class CountingKey implements Comparable<CountingKey> {
+        private static long count;
+        private final int value;
+
+        /**
+         * Creates the key
+         * 
+         * @param value
+         *            the wrapped value
+         */
+        CountingKey(int value) {
+            this.value = value;
+        }
+
+
+        @Override
+        public int compareTo(CountingKey other) {
+            count++;
+            return Integer.compare(value, other.value);
+        }
+    }
+
+
+    /**
+     * Tests that the configured probability shapes the level histogram
+     */
+    public void testGeometry() {
+        double[] probabilities = { 0.5, 0.25, 1 / Math.E };
+        for (double p : probabilities) {
+            SkipList<Integer, String> list = new SkipList<>(p, 20);
+            assertEquals(p, list.getProbability(), 0.0);
+            int n = 20000;
+            for (int i = 0; i < n; i++) {
+                list.insert(new KVPair<>(i, "V"));
+            }
+            int[] histogram = list.levelHistogram();
+            assertEquals(0, histogram[0]);
+            assertTrue(histogram.length <= 21);
+            int total = 0;
+            for (int count : histogram) {
+                total += count;
+            }
+            assertEquals(n, total);
+            // About (1 - p) of the nodes stop at level 1
+            assertEquals(1 - p, histogram[1] / (double)n, 0.02);
+            assertEquals(p * (1 - p), histogram[2] / (double)n, 0.02);
+            for (int i = 0; i < n; i += 2) {
+                list.remove(i);
+            }
+            total = 0;
+            for (int count : list.levelHistogram()) {
+                total += count;
+            }
+            assertEquals(n / 2, total);
+        }
+        assertEquals(0.5, skipList.getProbability(), 0.0);
+    }
+
+
+    /**
+     * Tests that bad geometry is rejected and the max level is respected
+     */
+    public void testGeometryBounds() {
+        double[] bad = { 0, 1, -0.5, Double.NaN };
+        for (double p : bad) {
+            try {
+                new SkipList<Integer, String>(p, 8);
+                fail("Expected IllegalArgumentException");
+            }
+            catch (Exception error) {
+                assertTrue(error instanceof IllegalArgumentException);
+            }
+        }
+        try {
+            new SkipList<Integer, String>(0.5, 0);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+
+        SkipList<Integer, String> tall = new SkipList<>(0.9, 3);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(tall.randomLevel() <= 3);
+        }
+        skipList.insert(new KVPair<>(1, "A"));
+        int[] histogram = skipList.levelHistogram();
+        assertEquals(skipList.getHead().getNodeLevel() + 1, histogram.length);
+        assertEquals(1, histogram[histogram.length - 1]);
+    }
+
+
+    /**
+     * Tests that a snapshot sees the list as it was when it was opened
+     */
+    public void testSnapshotIterator() {
+        for (int i = 0; i < 100; i++) {
+            skipList.insert(new KVPair<>(i, "V" + i));
+        }
+        SkipList<Integer, String>.SnapshotIterator snapshot = skipList
+            .snapshotIterator();
+
+        int expected = 0;
+        while (snapshot.hasNext()) {
+            KVPair<Integer, String> pair = snapshot.next();
+            assertEquals(expected, (int)pair.getKey());
+            // Writers keep going around the export
+            assertSame(pair, skipList.remove(expected));
+            skipList.insert(new KVPair<>(expected, "new"));
+            skipList.insert(new KVPair<>(-1 - expected, "new"));
+            expected++;
+            assertSpansMatchIteration(skipList);
+        }
+        assertEquals(100, expected);
+
+        // The snapshot closed itself at the end and the removed nodes went
+        assertEquals(0, skipList.getDeadCount());
+        assertEquals(200, skipList.size());
+        for (KVPair<Integer, String> pair : skipList) {
+            assertEquals("new", pair.getValue());
+        }
+        assertSpansMatchIteration(skipList);
+        try {
+            snapshot.next();
+            fail("Expected NoSuchElementException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof NoSuchElementException);
+        }
+    }
+
+
+    /**
+     * Tests that removed nodes stay until the last snapshot is closed
+     */
+    public void testSnapshotsKeepRemovedNodes() {
+        for (int i = 0; i < 10; i++) {
+            skipList.insert(new KVPair<>(i % 5, "V" + i));
+        }
+        SkipList<Integer, String>.SnapshotIterator first = skipList
+            .snapshotIterator();
+        assertNotNull(skipList.remove(3));
+        SkipList<Integer, String>.SnapshotIterator second = skipList
+            .snapshotIterator();
+        assertNotNull(skipList.removeByValue("V1"));
+        assertEquals(2, skipList.getDeadCount());
+
+        // Removed entries are gone for everyone but the older snapshots
+        assertEquals(1, skipList.search(3).size());
+        assertEquals(1, skipList.search(1).size());
+        assertEquals("V6", skipList.search(1).get(0).getValue());
+        assertEquals(8, skipList.size());
+        assertEquals(3, skipList.rankOf(2));
+        assertSpansMatchIteration(skipList);
+        assertEquals(9, count(second));
+        second.close();
+        assertEquals(2, skipList.getDeadCount());
+        first.next();
+        first.close();
+        first.close();
+        assertEquals(0, skipList.getDeadCount());
+        assertFalse(first.hasNext());
+        assertSpansMatchIteration(skipList);
+
+        SkipList<Integer, String>.SnapshotIterator empty =
+            new SkipList<Integer, String>().snapshotIterator();
+        assertFalse(empty.hasNext());
+    }
+
+
+    /**
+     * Tests that a snapshot dropped without being closed or run out stops
+     * holding removed nodes once it has been garbage collected
+     */
+    public void testDroppedSnapshot() {
+        for (int i = 0; i < 10; i++) {
+            skipList.insert(new KVPair<>(i, "V" + i));
+        }
+        SkipList<Integer, String>.SnapshotIterator snapshot = skipList
+            .snapshotIterator();
+        snapshot.next();
+        skipList.remove(0);
+        assertEquals(1, skipList.getSnapshotCount());
+        assertEquals(1, skipList.getDeadCount());
+
+        snapshot = null;
+        for (int i = 0; i < 50 && skipList.getSnapshotCount() > 0; i++) {
+            System.gc();
+        }
+        assertEquals(0, skipList.getSnapshotCount());
+        // The next remove unlinks what the lost snapshot left behind
+        skipList.remove(1);
+        assertEquals(0, skipList.getDeadCount());
+        assertEquals(8, skipList.size());
+        assertSpansMatchIteration(skipList);
+    }
+
+
+    /**
+     * Tests snapshots once the change counter has gone past the int range
+     *
+     * @throws Exception
+     *             if the counter cannot be set
+     */
+    public void testVersionsPastIntRange() throws Exception {
+        java.lang.reflect.Field modCount = SkipList.class.getDeclaredField(
+            "modCount");
+        modCount.setAccessible(true);
+        modCount.setLong(skipList, Integer.MAX_VALUE - 7L);
+        for (int i = 1; i <= 4; i++) {
+            skipList.insert(new KVPair<>(i, "V" + i));
+        }
+        modCount.setLong(skipList, Integer.MAX_VALUE - 1L);
+        SkipList<Integer, String>.SnapshotIterator snapshot = skipList
+            .snapshotIterator();
+        // Removed at version Integer.MAX_VALUE, then inserted past it
+        skipList.remove(1);
+        skipList.insert(new KVPair<>(5, "V5"));
+        assertTrue(skipList.search(1).isEmpty());
+        assertEquals(1, skipList.getDeadCount());
+        assertEquals(4, count(snapshot));
+        assertEquals(0, skipList.getDeadCount());
+        assertEquals(4, skipList.size());
+        assertSpansMatchIteration(skipList);
+    }
+
+
+    /**
+     * Tests that a rebalance pass keeps ranks right around removed nodes
+     */
+    public void testSnapshotWithRebalance() {
+        for (int i = 0; i < 500; i++) {
+            skipList.insert(new KVPair<>(i, "V" + i));
+        }
+        SkipList<Integer, String>.SnapshotIterator snapshot = skipList
+            .snapshotIterator();
+        for (int i = 0; i < 500; i += 3) {
+            skipList.remove(i);
+        }
+        while (!skipList.rebalance(17)) {
+            assertSpansMatchIteration(skipList);
+        }
+        assertSpansMatchIteration(skipList);
+        assertEquals(500, count(snapshot));
+        assertEquals(0, skipList.getDeadCount());
+        assertSpansMatchIteration(skipList);
+    }
+
+
+    /**
+     * Tests that the normal iterator fails fast on changes in next, while
+     * hasNext only answers whether there is more
+     */
+    public void testIteratorFailsFast() {
+        skipList.insert(new KVPair<>(1, "A"));
+        skipList.insert(new KVPair<>(2, "B"));
+        skipList.insert(new KVPair<>(3, "C"));
+        Iterator<KVPair<Integer, String>> iterator = skipList.iterator();
+        iterator.next();
+        skipList.remove(2);
+        assertTrue(iterator.hasNext());
+        try {
+            iterator.next();
+            fail("Expected ConcurrentModificationException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof ConcurrentModificationException);
+        }
+    }
+
+
+    /**
+     * Tests that remove by value removes the node with that value, not the
+     * first node with its key
+     */
+    public void testRemoveByValueDuplicate() {
+        skipList.insert(new KVPair<>(1, "A"));
+        skipList.insert(new KVPair<>(1, "B"));
+        skipList.insert(new KVPair<>(1, "C"));
+        assertEquals("A", skipList.removeByValue("A").getValue());
+        MyArrayList<KVPair<Integer, String>> left = skipList.search(1);
+        assertEquals(2, left.size());
+        assertEquals("C", left.get(0).getValue());
+        assertEquals("B", left.get(1).getValue());
+        assertSpansMatchIteration(skipList);
+    }
+
+
+    /**
+     * Counts what is left in an iterator
+     * 
+     * @param iterator
+     *            the iterator to drain
+     * @return the number of entries it returned
+     */
+    private int count(Iterator<KVPair<Integer, String>> iterator) {
+        int n = 0;
+        while (iterator.hasNext()) {
+            iterator.next();
+            n++;
+        }
+        return n;
+    }
+
+
+    /**
+     * Tests that a batch search gives the same entries as single searches
+     */
+    public void testSearchAll() {
+        for (int i = 0; i < 1000; i += 2) {
+            skipList.insert(new KVPair<>(i, "V" + i));
+            if (i % 10 == 0) {
+                skipList.insert(new KVPair<>(i, "W" + i));
+            }
+        }
+        java.util.ArrayList<Integer> probes = new java.util.ArrayList<>();
+        for (int i = 1200; i >= -50; i -= 7) {
+            probes.add(i);
+            probes.add(i / 2 * 2);
+        }
+
+        BatchResult<Integer, String> result = skipList.searchAll(probes);
+        Integer previous = null;
+        for (int k = 0; k < result.size(); k++) {
+            Integer key = result.key(k);
+            if (previous != null) {
+                assertTrue(previous < key);
+            }
+            previous = key;
+            MyArrayList<KVPair<Integer, String>> single = skipList.search(
+                key);
+            assertEquals(single.size(), result.count(k));
+            for (int j = 0; j < single.size(); j++) {
+                assertSame(single.get(j), result.get(k, j));
+            }
+        }
+        assertEquals(2, result.count(result.indexOf(100)));
+        assertEquals(0, result.count(result.indexOf(1200)));
+
+        try {
+            skipList.searchAll(null);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+        probes.add(null);
+        try {
+            skipList.searchAll(probes);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+    }
+
+
+    /**
+     * Tests that a batch search of clustered keys needs fewer comparisons
+     * than searching for them one by one
+     */
+    public void testSearchAllComparisons() {
+        java.util.ArrayList<KVPair<CountingKey, String>> entries =
+            new java.util.ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            entries.add(new KVPair<>(new CountingKey(i), "V"));
+        }
+        SkipList<CountingKey, String> list = new SkipList<>(entries);
+        java.util.ArrayList<CountingKey> probes = new java.util.ArrayList<>();
+        for (int i = 60000; i >= 50000; i -= 4) {
+            probes.add(new CountingKey(i));
+        }
+
+        CountingKey.count = 0;
+        for (CountingKey key : probes) {
+            assertEquals(1, list.search(key).size());
+        }
+        long singleCount = CountingKey.count;
+
+        CountingKey.count = 0;
+        BatchResult<CountingKey, String> result = list.searchAll(probes);
+        long batchCount = CountingKey.count;
+
+        assertEquals(probes.size(), result.size());
+        assertEquals(probes.size(), result.total());
+        assertTrue(batchCount * 3 < singleCount * 2);
+    }
+
+
+    /**
+     * Tests that lazy delete keeps tombstones until the ratio is passed
+     */
+    public void testTombstones() {
+        skipList.setTombstoneRatio(0.25);
+        assertEquals(0.25, skipList.getTombstoneRatio(), 0.001);
+        for (int i = 0; i < 100; i++) {
+            skipList.insert(new KVPair<>(i, "V" + i));
+        }
+        for (int i = 0; i < 25; i++) {
+            assertEquals("V" + (i * 2), skipList.remove(i * 2).getValue());
+        }
+        // 25 of 100 linked nodes is not more than a quarter yet
+        assertEquals(25, skipList.getDeadCount());
+        assertEquals(75, skipList.size());
+        assertTrue(skipList.search(0).isEmpty());
+        assertNull(skipList.remove(0));
+        assertEquals(1, skipList.search(1).size());
+        assertEquals(0, skipList.rankOf(1));
+        assertSpansMatchIteration(skipList);
+
+        // Inserting in front of a tombstone still works
+        skipList.insert(new KVPair<>(2, "again"));
+        assertEquals("again", skipList.search(2).get(0).getValue());
+        assertSpansMatchIteration(skipList);
+
+        // 26 of 101 linked nodes passes the ratio and purges them all
+        assertEquals("again", skipList.removeByValue("again").getValue());
+        assertEquals(0, skipList.getDeadCount());
+        assertEquals(75, skipList.size());
+        assertSpansMatchIteration(skipList);
+
+        skipList.remove(53);
+        assertEquals(1, skipList.getDeadCount());
+        skipList.purgeTombstones();
+        assertEquals(0, skipList.getDeadCount());
+        skipList.remove(55);
+        skipList.setTombstoneRatio(0);
+        assertEquals(0, skipList.getDeadCount());
+        skipList.remove(57);
+        assertEquals(0, skipList.getDeadCount());
+        assertEquals(72, skipList.size());
+        assertSpansMatchIteration(skipList);
+    }
+
+
+    /**
+     * Tests lazy delete together with an open snapshot
+     */
+    public void testTombstonesWithSnapshot() {
+        skipList.setTombstoneRatio(0.1);
+        for (int i = 0; i < 10; i++) {
+            skipList.insert(new KVPair<>(i, "V" + i));
+        }
+        SkipList<Integer, String>.SnapshotIterator snapshot = skipList
+            .snapshotIterator();
+        for (int i = 0; i < 5; i++) {
+            skipList.remove(i);
+        }
+        // The snapshot holds the purge off
+        assertEquals(5, skipList.getDeadCount());
+        skipList.purgeTombstones();
+        assertEquals(5, skipList.getDeadCount());
+        assertEquals(10, count(snapshot));
+        assertEquals(0, skipList.getDeadCount());
+
+        double[] bad = { -0.1, 1, Double.NaN };
+        for (double ratio : bad) {
+            try {
+                skipList.setTombstoneRatio(ratio);
+                fail("Expected IllegalArgumentException");
+            }
+            catch (Exception error) {
+                assertTrue(error instanceof IllegalArgumentException);
+            }
+        }
+    }
+
+
+    /**
+     * Tests that dump to an Appendable writes what dump() prints, and that
+     * it stays fast for a large list
+     * 
+     * @throws java.io.IOException
+     *             never, the targets are in memory
+     */
+    public void testDumpToAppendable() throws java.io.IOException {
+        for (int i = 0; i < 20; i++) {
+            skipList.insert(new KVPair<>(i, "V" + i));
+        }
+        StringBuilder out = new StringBuilder();
+        skipList.dump(out);
+        systemOut().clearHistory();
+        skipList.dump();
+        assertEquals(systemOut().getHistory(), out.toString());
+        assertTrue(out.toString().contains("Node has depth " + skipList
+            .getHead().getNodeLevel() + ", value null"));
+
+        java.util.ArrayList<KVPair<Integer, String>> entries =
+            new java.util.ArrayList<>();
+        for (int i = 0; i < 200000; i++) {
+            entries.add(new KVPair<>(i, "V"));
+        }
+        SkipList<Integer, String> big = new SkipList<>(entries);
+        java.io.StringWriter writer = new java.io.StringWriter();
+        big.dump(writer);
+        String[] lines = writer.toString().split(System.lineSeparator());
+        assertEquals(200003, lines.length);
+        // Bulk-loaded node 4 (rank 4) has 1 + numberOfTrailingZeros(4) levels
+        assertEquals("Node has depth 3, value V", lines[5]);
+        assertEquals("SkipList size is: 200000", lines[200002]);
+    }
+
+
+    /**
+     * Tests first, last, floor, ceiling, lower and higher against a scan of
+     * the entries, with tombstones left by a snapshot and by lazy delete
+     */
+    public void testNavigation() {
+        assertNull(skipList.first());
+        assertNull(skipList.last());
+        assertNull(skipList.floor(5));
+        assertNull(skipList.ceiling(5));
+        java.util.Random random = new java.util.Random(19);
+        for (int i = 0; i < 300; i++) {
+            skipList.insert(new KVPair<>(random.nextInt(200) * 2, "V" + i));
+        }
+        assertNavigation();
+
+        SkipList<Integer, String>.SnapshotIterator snapshot = skipList
+            .snapshotIterator();
+        for (int i = 0; i < 150; i++) {
+            skipList.remove(random.nextInt(200) * 2);
+        }
+        skipList.remove(skipList.last().getKey());
+        skipList.remove(skipList.first().getKey());
+        assertTrue(skipList.getDeadCount() > 0);
+        assertNavigation();
+        snapshot.close();
+        assertNavigation();
+
+        skipList.setTombstoneRatio(0.5);
+        while (skipList.size() > 1) {
+            skipList.remove(skipList.last().getKey());
+            assertNavigation();
+        }
+        skipList.remove(skipList.first().getKey());
+        assertNull(skipList.first());
+        assertNull(skipList.last());
+        assertNull(skipList.higher(-1));
+        assertNull(skipList.lower(1000));
+
+        java.util.ArrayList<KVPair<Integer, String>> entries =
+            new java.util.ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            entries.add(new KVPair<>(i, "V" + i));
+        }
+        SkipList<Integer, String> bulk = new SkipList<>(entries);
+        assertSame(entries.get(99), bulk.last());
+        bulk.insert(new KVPair<>(150, "top"));
+        assertEquals("top", bulk.last().getValue());
+        bulk.remove(150);
+        assertSame(entries.get(99), bulk.last());
+    }
+
+
+    /**
+     * Checks each navigation method against a scan of the entries for every
+     * key around the ones in the list
+     */
+    private void assertNavigation() {
+        java.util.ArrayList<KVPair<Integer, String>> all =
+            new java.util.ArrayList<>();
+        for (KVPair<Integer, String> pair : skipList) {
+            all.add(pair);
+        }
+        if (all.isEmpty()) {
+            return;
+        }
+        assertSame(all.get(0), skipList.first());
+        assertSame(all.get(all.size() - 1), skipList.last());
+        for (int key = -1; key <= 401; key++) {
+            KVPair<Integer, String> floor = null;
+            KVPair<Integer, String> lower = null;
+            KVPair<Integer, String> ceiling = null;
+            KVPair<Integer, String> higher = null;
+            for (KVPair<Integer, String> pair : all) {
+                int compare = pair.getKey().compareTo(key);
+                if (compare <= 0) {
+                    floor = pair;
+                }
+                if (compare < 0) {
+                    lower = pair;
+                }
+                if (compare >= 0 && ceiling == null) {
+                    ceiling = pair;
+                }
+                if (compare > 0 && higher == null) {
+                    higher = pair;
+                }
+            }
+            assertSame(floor, skipList.floor(key));
+            assertSame(lower, skipList.lower(key));
+            assertSame(ceiling, skipList.ceiling(key));
+            assertSame(higher, skipList.higher(key));
+        }
+    }
 }
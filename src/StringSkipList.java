@@ -0,0 +1,373 @@
+import java.lang.reflect.Array;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import student.TestableRandom;
+
+/**
+ * A SkipList specialized for String keys. Each node caches the first
+ * characters of its key packed big-endian into a long, so most steps of a
+ * search are decided by one unsigned long compare. The full String compare
+ * only runs when two prefixes are equal.
+ *
+ * The prefix holds one byte per character for up to 8 characters. A
+ * character of 0xFF or above is stored as 0xFF and ends the prefix, and
+ * short keys are padded with zero bytes. With that encoding a smaller prefix
+ * always means a smaller key, and equal prefixes fall back to compareTo.
+ *
+ * @author Rushil, Kush
+ *
+ * @version 1.0
+ * @param <V>
+ *            Value
+ */
+public class StringSkipList<V> implements NameIndex<String, V> {
+
+    private StringNode head; // First element (Sentinel Node)
+
+    private int size; // number of entries in the Skip List
+    private Random rng; // Random number generator for determining node levels
+    private StringNode[] update; // search path reused by insert and remove
+
+    /**
+     * Constructs an empty StringSkipList.
+     */
+    public StringSkipList() {
+        head = new StringNode(null, 1);
+        size = 0;
+        rng = new TestableRandom();
+        update = newPath(1);
+    }
+
+
+    /**
+     * Packs the first characters of a key into an unsigned long so that
+     * comparing two packed prefixes orders keys the way String.compareTo
+     * does, with ties whenever the prefix cannot tell the keys apart.
+     *
+     * @param key
+     *            the key to pack
+     * @return the packed prefix
+     */
+    public static long keyPrefix(String key) {
+        long prefix = 0;
+        int length = Math.min(key.length(), 8);
+        int i = 0;
+        for (; i < length; i++) {
+            char c = key.charAt(i);
+            if (c >= 0xFF) {
+                // Wider characters all look the same; stop here
+                prefix = (prefix << 8) | 0xFF;
+                i++;
+                break;
+            }
+            prefix = (prefix << 8) | c;
+        }
+        return prefix << (8 * (8 - i));
+    }
+
+
+    /**
+     * Generates a random level for a new node.
+     *
+     * @return The randomly generated level.
+     */
+    public int randomLevel() {
+        int level = 1; // Start at level 1
+        while (rng.nextBoolean()) {
+            level++;
+        }
+        return level;
+    }
+
+
+    /**
+     * Returns the number of elements in the StringSkipList.
+     *
+     * @return The size of the StringSkipList.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Searches for a key in the list and returns all associated values.
+     *
+     * @param key
+     *            The key to search for.
+     * @return A list of key-value pairs with the specified key.
+     */
+    @Override
+    public MyArrayList<KVPair<String, V>> search(String key) {
+        MyArrayList<KVPair<String, V>> result = new MyArrayList<>();
+        if (key == null) {
+            return result;
+        }
+        long prefix = keyPrefix(key);
+        StringNode current = head;
+        for (int i = head.level; i >= 1; i--) {
+            while (current.forward[i] != null && current.forward[i].compareTo(
+                prefix, key) < 0) {
+                current = current.forward[i];
+            }
+        }
+
+        current = current.forward[1];
+        while (current != null && current.compareTo(prefix, key) == 0) {
+            result.add(current.pair);
+            current = current.forward[1];
+        }
+        return result;
+    }
+
+
+    /**
+     * Inserts the KVPair in the list at its appropriate spot as designated by
+     * its lexicographical order.
+     *
+     * @param it
+     *            The key-value pair to insert.
+     * @throws IllegalArgumentException
+     *             if KV Pair or its key is null.
+     */
+    @Override
+    public void insert(KVPair<String, V> it) {
+        if (it == null || it.getKey() == null) {
+            throw new IllegalArgumentException("KV pair is null");
+        }
+
+        int newLevel = randomLevel();
+        if (newLevel > head.level) {
+            adjustHead(newLevel);
+        }
+
+        StringNode newNode = new StringNode(it, newLevel);
+        findPath(newNode.prefix, it.getKey());
+        for (int i = 1; i <= newLevel; i++) {
+            newNode.forward[i] = update[i].forward[i];
+            update[i].forward[i] = newNode;
+        }
+        size++;
+    }
+
+
+    /**
+     * Removes the first occurrence of a key from the list.
+     *
+     * @param key
+     *            The key to remove.
+     * @return The removed key-value pair, or null if not found.
+     */
+    @Override
+    public KVPair<String, V> remove(String key) {
+        if (key == null) {
+            return null;
+        }
+        long prefix = keyPrefix(key);
+        StringNode current = findPath(prefix, key).forward[1];
+        if (current == null || current.compareTo(prefix, key) != 0) {
+            return null;
+        }
+        unlink(current);
+        return current.pair;
+    }
+
+
+    /**
+     * Removes a KVPair with the specified value.
+     *
+     * @param val
+     *            the value of the KVPair to be removed
+     * @return returns the removed KVPair, or null if not found
+     */
+    @Override
+    public KVPair<String, V> removeByValue(V val) {
+        for (StringNode current = head.forward[1]; current != null;
+            current = current.forward[1]) {
+            if (current.pair.getValue().equals(val)) {
+                findPath(current.prefix, current.pair.getKey());
+                // Step over equal keys in front of this exact node
+                for (int i = 1; i <= current.level; i++) {
+                    while (update[i].forward[i] != current) {
+                        update[i] = update[i].forward[i];
+                    }
+                }
+                unlink(current);
+                return current.pair;
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Prints out the StringSkipList in the same format as SkipList.dump().
+     */
+    @Override
+    public void dump() {
+        System.out.println("SkipList dump:");
+        if (size == 0) {
+            System.out.println("Node has depth 1, Value (null)");
+            System.out.println("SkipList size is: 0");
+            return;
+        }
+
+        System.out.println("Node has depth " + head.level + ", value null");
+        for (StringNode n = head.forward[1]; n != null; n = n.forward[1]) {
+            System.out.println("Node has depth " + n.level + ", value "
+                + n.pair.toString());
+        }
+        System.out.println("SkipList size is: " + size);
+    }
+
+
+    /**
+     * Fills update with the last node before the key at each level.
+     *
+     * @param prefix
+     *            the packed prefix of key
+     * @param key
+     *            the key to look for
+     * @return the last node at level 1 before key, or the head
+     */
+    private StringNode findPath(long prefix, String key) {
+        StringNode current = head;
+        for (int i = head.level; i >= 1; i--) {
+            while (current.forward[i] != null && current.forward[i].compareTo(
+                prefix, key) < 0) {
+                current = current.forward[i];
+            }
+            update[i] = current;
+        }
+        return current;
+    }
+
+
+    /**
+     * Unlinks a node from every level. update must hold the last node before
+     * it at each of its levels.
+     *
+     * @param node
+     *            the node to remove
+     */
+    private void unlink(StringNode node) {
+        for (int i = 1; i <= node.level; i++) {
+            update[i].forward[i] = node.forward[i];
+        }
+        size--;
+    }
+
+
+    /**
+     * Increases the number of levels in head so that no element has more
+     * indices than the head.
+     *
+     * @param newLevel
+     *            The new maximum level.
+     */
+    private void adjustHead(int newLevel) {
+        StringNode newHead = new StringNode(null, newLevel);
+        for (int i = 1; i <= head.level; i++) {
+            newHead.forward[i] = head.forward[i];
+        }
+        head = newHead;
+        update = newPath(newLevel);
+    }
+
+
+    /**
+     * Creates a search path array with room for the given number of levels.
+     *
+     * @param levels
+     *            the number of levels the path must hold
+     * @return the new path array
+     */
+    @SuppressWarnings("unchecked")
+    private StringNode[] newPath(int levels) {
+        return (StringNode[])Array.newInstance(StringSkipList.StringNode.class,
+            levels + 1);
+    }
+
+
+    /**
+     * A node that stores the packed prefix of its key next to its links.
+     */
+    private class StringNode {
+        private KVPair<String, V> pair;
+        private long prefix;
+        private StringNode[] forward;
+        private int level;
+
+        /**
+         * Creates a node and packs the prefix of its key.
+         *
+         * @param pair
+         *            the KVPair to hold, null for the head
+         * @param level
+         *            the number of levels that the node should have
+         */
+        @SuppressWarnings("unchecked")
+        StringNode(KVPair<String, V> pair, int level) {
+            this.pair = pair;
+            this.prefix = pair == null ? 0 : keyPrefix(pair.getKey());
+            this.level = level;
+            forward = (StringNode[])Array.newInstance(
+                StringSkipList.StringNode.class, level + 1);
+        }
+
+
+        /**
+         * Compares this node's key with another key, looking at the packed
+         * prefixes first.
+         *
+         * @param otherPrefix
+         *            the packed prefix of the other key
+         * @param otherKey
+         *            the other key
+         * @return standard values for compareTo
+         */
+        int compareTo(long otherPrefix, String otherKey) {
+            int cmp = Long.compareUnsigned(prefix, otherPrefix);
+            if (cmp != 0) {
+                return cmp;
+            }
+            return pair.getKey().compareTo(otherKey);
+        }
+    }
+
+
+    /**
+     * Iterator class for traversing the StringSkipList.
+     */
+    private class StringSkipListIterator
+        implements Iterator<KVPair<String, V>> {
+        private StringNode current = head;
+
+        @Override
+        public boolean hasNext() {
+            return current.forward[1] != null;
+        }
+
+
+        @Override
+        public KVPair<String, V> next() {
+            if (current.forward[1] == null) {
+                throw new NoSuchElementException();
+            }
+            current = current.forward[1];
+            return current.pair;
+        }
+    }
+
+    /**
+     * Returns an iterator over elements of the StringSkipList.
+     *
+     * @return An iterator over key-value pairs.
+     */
+    @Override
+    public Iterator<KVPair<String, V>> iterator() {
+        return new StringSkipListIterator();
+    }
+}
@@ -0,0 +1,154 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+import student.TestCase;
+
+/**
+ * The test class for StringSkipList
+ *
+ * @author Rushil, Kush
+ * @version 1.0
+ */
+public class StringSkipListTest extends TestCase {
+    private StringSkipList<Integer> skipList;
+
+    /**
+     * Sets up the variables for use in this class
+     */
+    public void setUp() {
+        skipList = new StringSkipList<>();
+    }
+
+
+    /**
+     * Tests for null inserts and null keys
+     */
+    public void testNulls() {
+        try {
+            skipList.insert(null);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+        try {
+            skipList.insert(new KVPair<String, Integer>(null, 1));
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+        assertTrue(skipList.search(null).isEmpty());
+        assertNull(skipList.remove(null));
+    }
+
+
+    /**
+     * Tests that a smaller prefix always means a smaller key
+     */
+    public void testKeyPrefixOrder() {
+        String[] keys = { "", "a", "a\u0000", "ab", "abcdefgh", "abcdefghi",
+            "abcdefgz", "b", "\u00FE", "\u00FF", "\u00FFa", "\u0100",
+            "\u4E2D\u6587", "zzzzzzzzzz", "Z" };
+        for (String a : keys) {
+            for (String b : keys) {
+                int byPrefix = Long.compareUnsigned(StringSkipList.keyPrefix(
+                    a), StringSkipList.keyPrefix(b));
+                if (byPrefix != 0) {
+                    assertEquals(Integer.signum(byPrefix), Integer.signum(a
+                        .compareTo(b)));
+                }
+            }
+        }
+        assertEquals(0x6162000000000000L, StringSkipList.keyPrefix("ab"));
+    }
+
+
+    /**
+     * Tests that iteration order matches String order for random keys
+     */
+    public void testOrderMatchesStringOrder() {
+        Random random = new Random(11);
+        String[] keys = new String[2000];
+        for (int i = 0; i < keys.length; i++) {
+            StringBuilder key = new StringBuilder();
+            int length = random.nextInt(12);
+            for (int j = 0; j < length; j++) {
+                // Mostly a small alphabet, so prefixes often tie
+                key.append(random.nextInt(10) == 0
+                    ? (char)random.nextInt(0x3000)
+                    : (char)('a' + random.nextInt(3)));
+            }
+            keys[i] = key.toString();
+            skipList.insert(new KVPair<>(keys[i], i));
+        }
+        Arrays.sort(keys);
+
+        Iterator<KVPair<String, Integer>> iterator = skipList.iterator();
+        for (String key : keys) {
+            assertEquals(key, iterator.next().getKey());
+        }
+        assertFalse(iterator.hasNext());
+        for (int i = 0; i < keys.length; i += 50) {
+            assertFalse(skipList.search(keys[i]).isEmpty());
+        }
+    }
+
+
+    /**
+     * Tests search, duplicates and removal
+     */
+    public void testSearchAndRemove() {
+        skipList.insert(new KVPair<>("truck_1", 1));
+        skipList.insert(new KVPair<>("truck_10", 2));
+        skipList.insert(new KVPair<>("truck_1", 3));
+        assertEquals(2, skipList.search("truck_1").size());
+        assertEquals(1, skipList.search("truck_10").size());
+        assertTrue(skipList.search("truck_").isEmpty());
+
+        assertNotNull(skipList.remove("truck_1"));
+        assertEquals(1, skipList.search("truck_1").size());
+        assertNull(skipList.remove("truck_2"));
+        assertEquals(2, skipList.removeByValue(2).getValue(), 0.01);
+        assertNull(skipList.removeByValue(2));
+        assertEquals(1, skipList.size());
+    }
+
+
+    /**
+     * Tests removing a duplicate by value when it is not the first one
+     */
+    public void testRemoveByValueDuplicate() {
+        skipList.insert(new KVPair<>("a", 1));
+        skipList.insert(new KVPair<>("a", 2));
+        skipList.insert(new KVPair<>("a", 3));
+        assertEquals(1, skipList.removeByValue(1).getValue(), 0.01);
+        MyArrayList<KVPair<String, Integer>> left = skipList.search("a");
+        assertEquals(2, left.size());
+        assertEquals(-1, left.indexOf(null));
+        for (int i = 0; i < left.size(); i++) {
+            assertFalse(left.get(i).getValue() == 1);
+        }
+    }
+
+
+    /**
+     * Tests the iterator on an empty list and the dump method
+     */
+    public void testEmptyAndDump() {
+        assertFalse(skipList.iterator().hasNext());
+        try {
+            skipList.iterator().next();
+            fail("Expected NoSuchElementException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof java.util.NoSuchElementException);
+        }
+        systemOut().clearHistory();
+        skipList.dump();
+        assertTrue(systemOut().getHistory().contains("SkipList size is: 0"));
+        skipList.insert(new KVPair<>("a", 5));
+        skipList.dump();
+        assertTrue(systemOut().getHistory().contains("value 5"));
+    }
+}
@@ -0,0 +1,662 @@
+import java.lang.reflect.Array;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import student.TestableRandom;
+
+/**
+ * An unrolled SkipList. Each node is a block that holds a small sorted run
+ * of entries in arrays, and the towers index the blocks by their first key.
+ * A search descends the towers to the right block and then binary searches
+ * inside it, and a scan walks the arrays of a block before it follows the
+ * next link, so there is one pointer chase per block instead of one per
+ * entry.
+ *
+ * A full block is split in two halves on insert. After a remove a block is
+ * unlinked once it is empty, and a block that drops to a quarter full is
+ * merged with its previous or next block when both together fit in half a
+ * block.
+ *
+ * Like SkipList, duplicates are kept newest first, and remove takes the
+ * newest entry with a key.
+ *
+ * @author Rushil, Kush
+ *
+ * @version 1.0
+ * @param <K>
+ *            Key
+ * @param <V>
+ *            Value
+ */
+public class UnrolledSkipList<K extends Comparable<K>, V>
+    implements NameIndex<K, V> {
+
+    /**
+     * The number of entries a block holds unless told otherwise.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 32;
+
+    private Block head; // First block (Sentinel Node), holds no entries
+
+    private int size; // number of entries in the Skip List
+    private int blockCount; // number of blocks, not counting the head
+    private int capacity; // most entries a block may hold
+    private Random rng; // Random number generator for determining node levels
+    private Block[] update; // search path reused by insert and remove
+
+    /**
+     * Constructs an empty UnrolledSkipList with blocks of the default size.
+     */
+    public UnrolledSkipList() {
+        this(DEFAULT_BLOCK_SIZE);
+    }
+
+
+    /**
+     * Constructs an empty UnrolledSkipList.
+     *
+     * @param blockSize
+     *            the most entries a block may hold
+     * @throws IllegalArgumentException
+     *             if blockSize is less than 4
+     */
+    public UnrolledSkipList(int blockSize) {
+        if (blockSize < 4) {
+            throw new IllegalArgumentException("Illegal block size: "
+                + blockSize);
+        }
+        capacity = blockSize;
+        head = new Block(1, 0);
+        size = 0;
+        blockCount = 0;
+        rng = new TestableRandom();
+        update = newPath(1);
+    }
+
+
+    /**
+     * Generates a random level for a new block.
+     *
+     * @return The randomly generated level.
+     */
+    public int randomLevel() {
+        int level = 1; // Start at level 1
+        while (rng.nextBoolean()) {
+            level++;
+        }
+        return level;
+    }
+
+
+    /**
+     * Returns the number of entries in the UnrolledSkipList.
+     *
+     * @return The size of the UnrolledSkipList.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Returns the number of blocks in use.
+     *
+     * @return the number of blocks
+     */
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+
+    /**
+     * Returns the most entries a block may hold.
+     *
+     * @return the block size
+     */
+    public int getBlockSize() {
+        return capacity;
+    }
+
+
+    /**
+     * Searches for a key in the list and returns all associated values.
+     *
+     * @param key
+     *            The key to search for.
+     * @return A list of key-value pairs with the specified key.
+     */
+    @Override
+    public MyArrayList<KVPair<K, V>> search(K key) {
+        MyArrayList<KVPair<K, V>> result = new MyArrayList<>();
+        Block block = findPath(key);
+        int pos = block.lowerBound(key);
+
+        // Equal keys may run on into the following blocks
+        while (block != null) {
+            while (pos < block.count && block.key(pos).compareTo(key) == 0) {
+                result.add(block.pair(pos));
+                pos++;
+            }
+            if (pos < block.count) {
+                break;
+            }
+            block = block.forward[1];
+            pos = 0;
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns the entries with from <= key < to in key order.
+     *
+     * @param from
+     *            the smallest key to include, or null to start at the first
+     *            entry
+     * @param to
+     *            the key to stop before, or null to run to the last entry
+     * @return An iterator over the key-value pairs in the range.
+     */
+    public Iterator<KVPair<K, V>> range(K from, K to) {
+        if (from == null) {
+            return new BlockIterator(head.forward[1], 0, to);
+        }
+        Block block = findPath(from);
+        return new BlockIterator(block, block.lowerBound(from), to);
+    }
+
+
+    /**
+     * Inserts the KVPair in front of any entries with the same key.
+     *
+     * @param it
+     *            The key-value pair to insert.
+     * @throws IllegalArgumentException
+     *             if KV Pair is null.
+     */
+    @Override
+    public void insert(KVPair<K, V> it) {
+        if (it == null) {
+            throw new IllegalArgumentException("KV pair is null");
+        }
+
+        K key = it.getKey();
+        Block block = findPath(key);
+        int pos;
+        if (block == head) {
+            // The key is not after the first key of any block
+            block = head.forward[1];
+            if (block == null) {
+                block = link(randomLevel());
+            }
+            for (int i = 1; i <= block.level; i++) {
+                update[i] = block;
+            }
+            pos = 0;
+        }
+        else {
+            pos = block.lowerBound(key);
+        }
+
+        if (block.count == capacity) {
+            Block right = split(block);
+            if (pos > block.count) {
+                pos -= block.count;
+                block = right;
+            }
+        }
+        block.insertAt(pos, it);
+        size++;
+    }
+
+
+    /**
+     * Removes the newest entry with a key from the list.
+     *
+     * @param key
+     *            The key to remove.
+     * @return The removed key-value pair, or null if not found.
+     */
+    @Override
+    public KVPair<K, V> remove(K key) {
+        Block block = findPath(key);
+        int pos = block.lowerBound(key);
+        if (pos == block.count) {
+            block = block.forward[1];
+            pos = 0;
+        }
+        if (block == null || block.key(pos).compareTo(key) != 0) {
+            return null;
+        }
+        return removeAt(block, pos);
+    }
+
+
+    /**
+     * Removes a KVPair with the specified value.
+     *
+     * @param val
+     *            the value of the KVPair to be removed
+     * @return returns the removed KVPair, or null if not found
+     */
+    @Override
+    public KVPair<K, V> removeByValue(V val) {
+        for (Block block = head.forward[1]; block != null;
+            block = block.forward[1]) {
+            for (int pos = 0; pos < block.count; pos++) {
+                if (block.pair(pos).getValue().equals(val)) {
+                    return removeAt(block, pos);
+                }
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Prints out the UnrolledSkipList in the same format as SkipList.dump(),
+     * one line per entry with the depth of the block holding it.
+     */
+    @Override
+    public void dump() {
+        System.out.println("SkipList dump:");
+        if (size == 0) {
+            System.out.println("Node has depth 1, Value (null)");
+            System.out.println("SkipList size is: 0");
+            return;
+        }
+
+        System.out.println("Node has depth " + head.level + ", value null");
+        for (Block block = head.forward[1]; block != null;
+            block = block.forward[1]) {
+            for (int pos = 0; pos < block.count; pos++) {
+                System.out.println("Node has depth " + block.level
+                    + ", value " + block.pair(pos).toString());
+            }
+        }
+        System.out.println("SkipList size is: " + size);
+    }
+
+
+    /**
+     * Removes the entry at a position of a block, then unlinks the block if
+     * it is empty or merges the next block into it if both are small.
+     *
+     * @param block
+     *            the block holding the entry
+     * @param pos
+     *            the position of the entry in the block
+     * @return the removed key-value pair
+     */
+    private KVPair<K, V> removeAt(Block block, int pos) {
+        size--;
+        if (block.count == 1) {
+            // Unlink while the block still has its first key to search by
+            unlink(block);
+            return block.pair(pos);
+        }
+
+        KVPair<K, V> removed = block.removeAt(pos);
+        if (block.count > capacity / 4) {
+            return removed;
+        }
+
+        // The block is small; try to fold it into a small neighbour
+        Block prev = pathTo(block);
+        if (prev != head && prev.count + block.count <= capacity / 2) {
+            unlinkAfterPath(block);
+            append(prev, block);
+            return removed;
+        }
+        Block next = block.forward[1];
+        if (next != null && block.count + next.count <= capacity / 2) {
+            unlink(next);
+            append(block, next);
+        }
+        return removed;
+    }
+
+
+    /**
+     * Moves all entries of a block to the end of the block before it.
+     *
+     * @param into
+     *            the block that takes the entries
+     * @param from
+     *            the block right after it, already unlinked
+     */
+    private void append(Block into, Block from) {
+        System.arraycopy(from.keys, 0, into.keys, into.count, from.count);
+        System.arraycopy(from.pairs, 0, into.pairs, into.count, from.count);
+        into.count += from.count;
+    }
+
+
+    /**
+     * Fills update with the last block before key at each level, that is,
+     * the last block whose first key is less than key.
+     *
+     * @param key
+     *            the key to look for
+     * @return the last block at level 1 before key, or the head
+     */
+    private Block findPath(K key) {
+        Block current = head;
+        for (int i = head.level; i >= 1; i--) {
+            while (current.forward[i] != null && current.forward[i].key(0)
+                .compareTo(key) < 0) {
+                current = current.forward[i];
+            }
+            update[i] = current;
+        }
+        return current;
+    }
+
+
+    /**
+     * Unlinks a block from every level.
+     *
+     * @param block
+     *            the block to unlink, which must not be empty
+     */
+    private void unlink(Block block) {
+        pathTo(block);
+        unlinkAfterPath(block);
+    }
+
+
+    /**
+     * Unlinks a block whose predecessors are in update.
+     *
+     * @param block
+     *            the block to unlink
+     */
+    private void unlinkAfterPath(Block block) {
+        for (int i = 1; i <= block.level; i++) {
+            update[i].forward[i] = block.forward[i];
+        }
+        blockCount--;
+    }
+
+
+    /**
+     * Fills update with the blocks right before a block at each level.
+     *
+     * @param block
+     *            the block to find, which must not be empty
+     * @return the block right before it at level 1, or the head
+     */
+    private Block pathTo(Block block) {
+        findPath(block.key(0));
+        // Step over blocks that start with the same key
+        Block current = update[1];
+        while (current.forward[1] != block) {
+            current = current.forward[1];
+            for (int i = 1; i <= current.level; i++) {
+                update[i] = current;
+            }
+        }
+        return current;
+    }
+
+
+    /**
+     * Moves the upper half of a full block into a new block linked right
+     * after it. update must hold the block itself at each of its levels.
+     *
+     * @param block
+     *            the full block
+     * @return the new block
+     */
+    private Block split(Block block) {
+        Block right = link(randomLevel());
+        int half = block.count / 2;
+        right.count = block.count - half;
+        System.arraycopy(block.keys, half, right.keys, 0, right.count);
+        System.arraycopy(block.pairs, half, right.pairs, 0, right.count);
+        for (int i = half; i < block.count; i++) {
+            block.keys[i] = null;
+            block.pairs[i] = null;
+        }
+        block.count = half;
+        return right;
+    }
+
+
+    /**
+     * Creates an empty block and links it after the nodes in update.
+     *
+     * @param level
+     *            the level of the new block
+     * @return the new block
+     */
+    private Block link(int level) {
+        if (level > head.level) {
+            adjustHead(level);
+        }
+        Block block = new Block(level, capacity);
+        for (int i = 1; i <= level; i++) {
+            block.forward[i] = update[i].forward[i];
+            update[i].forward[i] = block;
+        }
+        blockCount++;
+        return block;
+    }
+
+
+    /**
+     * Increases the number of levels in head so that no block has more
+     * indices than the head.
+     *
+     * @param newLevel
+     *            The new maximum level.
+     */
+    private void adjustHead(int newLevel) {
+        Block newHead = new Block(newLevel, 0);
+        for (int i = 1; i <= head.level; i++) {
+            newHead.forward[i] = head.forward[i];
+        }
+        // The path of the pending insert now starts at the new head
+        for (int i = 1; i <= head.level; i++) {
+            if (update[i] == head) {
+                update[i] = newHead;
+            }
+        }
+        Block[] newUpdate = newPath(newLevel);
+        System.arraycopy(update, 0, newUpdate, 0, update.length);
+        for (int i = head.level + 1; i <= newLevel; i++) {
+            newUpdate[i] = newHead;
+        }
+        head = newHead;
+        update = newUpdate;
+    }
+
+
+    /**
+     * Creates a search path array with room for the given number of levels.
+     *
+     * @param levels
+     *            the number of levels the path must hold
+     * @return the new path array
+     */
+    @SuppressWarnings("unchecked")
+    private Block[] newPath(int levels) {
+        return (Block[])Array.newInstance(UnrolledSkipList.Block.class,
+            levels + 1);
+    }
+
+
+    /**
+     * A node holding a sorted run of entries. The keys are kept in their own
+     * array so that binary search does not have to load the pairs.
+     */
+    private class Block {
+        private Object[] keys;
+        private Object[] pairs;
+        private int count;
+        private Block[] forward;
+        private int level;
+
+        /**
+         * Creates an empty block.
+         *
+         * @param level
+         *            the number of levels that the block should have
+         * @param capacity
+         *            the most entries the block may hold, 0 for the head
+         */
+        @SuppressWarnings("unchecked")
+        Block(int level, int capacity) {
+            this.level = level;
+            keys = new Object[capacity];
+            pairs = new Object[capacity];
+            forward = (Block[])Array.newInstance(UnrolledSkipList.Block.class,
+                level + 1);
+        }
+
+
+        /**
+         * Returns the key at a position.
+         *
+         * @param pos
+         *            the position in the block
+         * @return the key
+         */
+        @SuppressWarnings("unchecked")
+        K key(int pos) {
+            return (K)keys[pos];
+        }
+
+
+        /**
+         * Returns the entry at a position.
+         *
+         * @param pos
+         *            the position in the block
+         * @return the key-value pair
+         */
+        @SuppressWarnings("unchecked")
+        KVPair<K, V> pair(int pos) {
+            return (KVPair<K, V>)pairs[pos];
+        }
+
+
+        /**
+         * Finds the first position whose key is not less than key.
+         *
+         * @param key
+         *            the key to look for
+         * @return the position, count if every key is less
+         */
+        int lowerBound(K key) {
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (key(mid).compareTo(key) < 0) {
+                    low = mid + 1;
+                }
+                else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+
+        /**
+         * Inserts an entry at a position. The block must not be full.
+         *
+         * @param pos
+         *            the position of the new entry
+         * @param it
+         *            the key-value pair
+         */
+        void insertAt(int pos, KVPair<K, V> it) {
+            System.arraycopy(keys, pos, keys, pos + 1, count - pos);
+            System.arraycopy(pairs, pos, pairs, pos + 1, count - pos);
+            keys[pos] = it.getKey();
+            pairs[pos] = it;
+            count++;
+        }
+
+
+        /**
+         * Removes the entry at a position.
+         *
+         * @param pos
+         *            the position of the entry
+         * @return the removed key-value pair
+         */
+        KVPair<K, V> removeAt(int pos) {
+            KVPair<K, V> removed = pair(pos);
+            System.arraycopy(keys, pos + 1, keys, pos, count - pos - 1);
+            System.arraycopy(pairs, pos + 1, pairs, pos, count - pos - 1);
+            count--;
+            keys[count] = null;
+            pairs[count] = null;
+            return removed;
+        }
+    }
+
+
+    /**
+     * Iterator that walks the blocks from a position and stops before an
+     * upper key bound.
+     */
+    private class BlockIterator implements Iterator<KVPair<K, V>> {
+        private Block block;
+        private int pos;
+        private K to;
+
+        /**
+         * Creates the iterator.
+         *
+         * @param block
+         *            the block to start in, may be null
+         * @param pos
+         *            the position to start at, may be the block's count
+         * @param to
+         *            the key to stop before, or null
+         */
+        BlockIterator(Block block, int pos, K to) {
+            this.block = block;
+            this.pos = pos;
+            this.to = to;
+        }
+
+
+        @Override
+        public boolean hasNext() {
+            while (block != null && pos == block.count) {
+                block = block.forward[1];
+                pos = 0;
+            }
+            if (block != null && to != null && block.key(pos).compareTo(
+                to) >= 0) {
+                block = null;
+            }
+            return block != null;
+        }
+
+
+        @Override
+        public KVPair<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return block.pair(pos++);
+        }
+    }
+
+    /**
+     * Returns an iterator over elements of the UnrolledSkipList.
+     *
+     * @return An iterator over key-value pairs.
+     */
+    @Override
+    public Iterator<KVPair<K, V>> iterator() {
+        return new BlockIterator(head.forward[1], 0, null);
+    }
+}
@@ -0,0 +1,149 @@
+import java.util.Iterator;
+
+/**
+ * The test class for UnrolledSkipList
+ *
+ * @author Rushil, Kush
+ * @version 1.0
+ */
+public class UnrolledSkipListTest extends NameIndexTestCase {
+    private UnrolledSkipList<Integer, String> list;
+
+    /**
+     * Sets up the variables for use in this class
+     */
+    public void setUp() {
+        list = new UnrolledSkipList<>(8);
+    }
+
+
+    /**
+     * Tests bad arguments
+     */
+    public void testIllegalArguments() {
+        try {
+            new UnrolledSkipList<Integer, String>(3);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+        try {
+            list.insert(null);
+            fail("Expected IllegalArgumentException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof IllegalArgumentException);
+        }
+        assertEquals(UnrolledSkipList.DEFAULT_BLOCK_SIZE,
+            new UnrolledSkipList<Integer, String>().getBlockSize());
+    }
+
+
+    /**
+     * Tests that random inserts and removes give the same entries in the
+     * same order as a SkipList
+     */
+    public void testMatchesSkipList() {
+        assertMatchesSkipList(list, intKeys(500), step -> "V" + step, 20000,
+            5);
+    }
+
+
+    /**
+     * Tests that blocks split when full and merge when small
+     */
+    public void testSplitAndMerge() {
+        for (int i = 0; i < 800; i++) {
+            list.insert(new KVPair<>(i, "V" + i));
+        }
+        assertEquals(800, list.size());
+        // Ascending inserts split every full block in half
+        assertTrue(list.getBlockCount() >= 100);
+        assertTrue(list.getBlockCount() <= 200);
+
+        for (int i = 0; i < 800; i++) {
+            if (i % 10 != 0) {
+                assertEquals(i, (int)list.remove(i).getKey());
+            }
+        }
+        assertEquals(80, list.size());
+        // Small neighbours were merged, so blocks are a quarter full
+        assertTrue(list.getBlockCount() <= 40);
+
+        for (int i = 0; i < 800; i += 10) {
+            assertEquals(1, list.search(i).size());
+            assertNotNull(list.remove(i));
+        }
+        assertEquals(0, list.getBlockCount());
+        assertFalse(list.iterator().hasNext());
+    }
+
+
+    /**
+     * Tests long runs of one key spanning several blocks
+     */
+    public void testDuplicatesAcrossBlocks() {
+        list.insert(new KVPair<>(1, "low"));
+        list.insert(new KVPair<>(3, "high"));
+        for (int i = 0; i < 50; i++) {
+            list.insert(new KVPair<>(2, "V" + i));
+        }
+        MyArrayList<KVPair<Integer, String>> twos = list.search(2);
+        assertEquals(50, twos.size());
+        assertEquals("V49", twos.get(0).getValue());
+        assertEquals("V0", twos.get(49).getValue());
+        assertEquals("V49", list.remove(2).getValue());
+        assertEquals("V10", list.removeByValue("V10").getValue());
+        assertEquals(48, list.search(2).size());
+        assertEquals(1, list.search(1).size());
+        assertEquals(1, list.search(3).size());
+    }
+
+
+    /**
+     * Tests the range method
+     */
+    public void testRange() {
+        for (int i = 0; i < 100; i++) {
+            list.insert(new KVPair<>(i, "V" + i));
+        }
+        Iterator<KVPair<Integer, String>> iterator = list.range(25, 75);
+        for (int i = 25; i < 75; i++) {
+            assertEquals(i, (int)iterator.next().getKey());
+        }
+        assertFalse(iterator.hasNext());
+        try {
+            iterator.next();
+            fail("Expected NoSuchElementException");
+        }
+        catch (Exception error) {
+            assertTrue(error instanceof java.util.NoSuchElementException);
+        }
+
+        iterator = list.range(null, 3);
+        assertEquals(0, (int)iterator.next().getKey());
+        iterator = list.range(98, null);
+        assertEquals(98, (int)iterator.next().getKey());
+        assertEquals(99, (int)iterator.next().getKey());
+        assertFalse(iterator.hasNext());
+        assertFalse(list.range(200, null).hasNext());
+    }
+
+
+    /**
+     * Tests the dump method
+     */
+    public void testDump() {
+        systemOut().clearHistory();
+        list.dump();
+        assertTrue(systemOut().getHistory().contains("SkipList size is: 0"));
+        list.insert(new KVPair<>(1, "A"));
+        list.insert(new KVPair<>(2, "B"));
+        list.dump();
+        assertTrue(systemOut().getHistory().contains("value A"));
+        assertTrue(systemOut().getHistory().contains("SkipList size is: 2"));
+        assertNull(list.remove(5));
+        assertNull(list.removeByValue("C"));
+    }
+}